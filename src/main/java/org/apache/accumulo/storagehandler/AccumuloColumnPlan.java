@@ -0,0 +1,244 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.serde.serdeConstants;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable mapping between Accumulo columns and Hive columns for one table.
+ *
+ * Parses the column mapping, Hive column names and types once so that lookups
+ * per key/value go straight from column family and qualifier bytes to the
+ * Hive column index and value type.
+ */
+public class AccumuloColumnPlan {
+
+    private static final Pattern PIPE = Pattern.compile("[|]");
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final List<Column> columns;
+    private final Map<ByteSequence, Map<ByteSequence, Column>> byFamily;
+    private final int rowIdIndex;
+    private final AccumuloRowIdShards rowIdShards;
+
+    /**
+     *
+     * @param accumuloCols entries from the Accumulo column mapping.
+     * @param hiveCols Hive column names aligned with accumuloCols.
+     * @param types Hive type names aligned with hiveCols.
+     */
+    public AccumuloColumnPlan(List<String> accumuloCols, List<String> hiveCols, List<String> types) {
+        if(types.size() != hiveCols.size())
+            throw new IllegalArgumentException("num of hive cols (" + hiveCols.size() + ") does not match " +
+                    "number of types (" + types.size() + ")");
+        List<Column> cols = Lists.newArrayList();
+        Map<ByteSequence, Map<ByteSequence, Column>> families = Maps.newHashMap();
+        int rowId = -1;
+        AccumuloRowIdShards shards = null;
+        for (int i = 0; i < accumuloCols.size() && i < hiveCols.size(); i++) {
+            String famQualPair = accumuloCols.get(i);
+            Column column;
+            if(AccumuloHiveUtils.containsRowID(famQualPair)) {
+                column = new Column(i, hiveCols.get(i), types.get(i), null, null);
+                rowId = i;
+                shards = AccumuloRowIdShards.fromMapping(famQualPair);
+            } else {
+                String[] famQualPieces = PIPE.split(famQualPair);
+                if (famQualPieces.length != 2)
+                    throw new IllegalArgumentException("Malformed famQualPair: " + famQualPair);
+                column = new Column(i, hiveCols.get(i), types.get(i), famQualPieces[0], famQualPieces[1]);
+                ByteSequence cf = new ArrayByteSequence(column.getCf().getBytes(UTF8));
+                Map<ByteSequence, Column> quals = families.get(cf);
+                if(quals == null) {
+                    quals = Maps.newHashMap();
+                    families.put(cf, quals);
+                }
+                quals.put(new ArrayByteSequence(column.getQual().getBytes(UTF8)), column);
+            }
+            cols.add(column);
+        }
+        this.columns = Collections.unmodifiableList(cols);
+        this.byFamily = families;
+        this.rowIdIndex = rowId;
+        this.rowIdShards = shards;
+    }
+
+    /**
+     * Build from the column mapping, columns and column types stored in conf.
+     */
+    public static AccumuloColumnPlan fromConf(Configuration conf) {
+        String accumuloProp = conf.get(AccumuloSerde.COLUMN_MAPPINGS);
+        if(accumuloProp == null)
+            throw new IllegalArgumentException(AccumuloSerde.COLUMN_MAPPINGS + " cannot be null");
+        return new AccumuloColumnPlan(AccumuloHiveUtils.parseColumnMapping(accumuloProp),
+                AccumuloHiveUtils.parseColumnMapping(conf.get(serdeConstants.LIST_COLUMNS)),
+                AccumuloHiveUtils.parseColumnMapping(conf.get(serdeConstants.LIST_COLUMN_TYPES)));
+    }
+
+    /**
+     *
+     * @return mapped column for the family and qualifier, or null if not mapped.
+     */
+    public Column getColumn(ByteSequence cf, ByteSequence qual) {
+        Map<ByteSequence, Column> quals = byFamily.get(cf);
+        if(quals == null)
+            return null;
+        return quals.get(qual);
+    }
+
+    /**
+     *
+     * @return column at Hive column index.
+     */
+    public Column getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     *
+     * @return index of the column mapped to rowID, or -1 if rowID is not mapped.
+     */
+    public int getRowIdIndex() {
+        return rowIdIndex;
+    }
+
+    /**
+     *
+     * @return shard layout of the rowID, or null if rowID is not mapped or not sharded.
+     */
+    public AccumuloRowIdShards getRowIdShards() {
+        return rowIdShards;
+    }
+
+    /**
+     * Accumulo value encodings for the supported Hive types.
+     */
+    public static enum ValueType {
+        STRING(0),
+        INT(4),
+        BIGINT(8),
+        DOUBLE(8);
+
+        private final int width;
+
+        private ValueType(int width) {
+            this.width = width;
+        }
+
+        /**
+         *
+         * @return number of bytes in the binary encoding, or 0 for variable length.
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         *
+         * @return matching ValueType for the hive type name, or null if not supported.
+         */
+        public static ValueType forHiveType(String type) {
+            if(type.equals(serdeConstants.STRING_TYPE_NAME)) {
+                return STRING;
+            } else if (type.equals(serdeConstants.INT_TYPE_NAME)) {
+                return INT;
+            } else if (type.equals(serdeConstants.BIGINT_TYPE_NAME)) {
+                return BIGINT;
+            } else if (type.equals(serdeConstants.DOUBLE_TYPE_NAME)) {
+                return DOUBLE;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One Hive column with its Accumulo family/qualifier and value type.
+     */
+    public static class Column {
+        private final int index;
+        private final String hiveName;
+        private final String hiveType;
+        private final String cf;
+        private final String qual;
+        private final ValueType valueType;
+
+        private Column(int index, String hiveName, String hiveType, String cf, String qual) {
+            this.index = index;
+            this.hiveName = hiveName;
+            this.hiveType = hiveType;
+            this.cf = cf;
+            this.qual = qual;
+            this.valueType = ValueType.forHiveType(hiveType);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getHiveName() {
+            return hiveName;
+        }
+
+        public String getHiveType() {
+            return hiveType;
+        }
+
+        /**
+         *
+         * @return column family, or null for the rowID column.
+         */
+        public String getCf() {
+            return cf;
+        }
+
+        /**
+         *
+         * @return column qualifier, or null for the rowID column.
+         */
+        public String getQual() {
+            return qual;
+        }
+
+        public boolean isRowId() {
+            return cf == null;
+        }
+
+        /**
+         *
+         * @return value type, or null if the Hive type is not supported.
+         */
+        public ValueType getValueType() {
+            return valueType;
+        }
+
+        /**
+         * Values are handed to LazyAccumuloRow in their Accumulo encoding, numeric types
+         * are read in place by the binary lazy objects.
+         *
+         * @return Accumulo value unchanged.
+         * @throws IOException if the Hive type is not supported or the value has the wrong width.
+         */
+        public byte[] rawValue(byte[] value) throws IOException {
+            if(valueType == null)
+                throw new IOException("Unsupported type: " + hiveType + " currently only string,int,long,double supported");
+            if(valueType.getWidth() > 0 && value.length < valueType.getWidth())
+                throw new IOException("Value for " + cf + "|" + qual + " has " + value.length + " bytes, expected " +
+                        valueType.getWidth() + " for type " + hiveType);
+            return value;
+        }
+    }
+}
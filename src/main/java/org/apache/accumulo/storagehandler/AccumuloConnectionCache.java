@@ -0,0 +1,133 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Instance;
+import org.apache.accumulo.core.client.ZooKeeperInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM wide cache of Accumulo instances, connectors and user authorizations.
+ *
+ * getSplits, getRecordReader and the storage handler each need a connector, and reused
+ * task JVMs or a HiveServer running many queries would otherwise open a new ZooKeeperInstance
+ * and authenticate again every time. Instances are keyed on instance name and zookeepers,
+ * connectors also on the principal and are replaced if the password changes.
+ * Authorizations expire after {@link AccumuloSerde#AUTHORIZATIONS_TTL} so changes to a
+ * user's authorizations are picked up. Connectors are thread safe and shared by all callers.
+ */
+public final class AccumuloConnectionCache {
+
+    private static final Logger log = Logger.getLogger(AccumuloConnectionCache.class);
+
+    private static final ConcurrentMap<String, Instance> instances = new ConcurrentHashMap<String, Instance>();
+    private static final ConcurrentMap<String, CachedConnector> connectors = new ConcurrentHashMap<String, CachedConnector>();
+    private static final ConcurrentMap<String, CachedAuthorizations> authorizations =
+            new ConcurrentHashMap<String, CachedAuthorizations>();
+
+    private static class CachedConnector {
+        private final byte[] password;
+        private final Connector connector;
+
+        private CachedConnector(byte[] password, Connector connector) {
+            this.password = password;
+            this.connector = connector;
+        }
+    }
+
+    private static class CachedAuthorizations {
+        private final Authorizations auths;
+        private final long fetched;
+
+        private CachedAuthorizations(Authorizations auths, long fetched) {
+            this.auths = auths;
+            this.fetched = fetched;
+        }
+    }
+
+    private AccumuloConnectionCache() {}
+
+    /**
+     *
+     * @return shared ZooKeeperInstance for the instance name and zookeepers.
+     */
+    public static Instance getInstance(String instanceName, String zookeepers) {
+        String key = instanceName + "|" + zookeepers;
+        Instance instance = instances.get(key);
+        if(instance == null) {
+            Instance created = new ZooKeeperInstance(instanceName, zookeepers);
+            instance = instances.putIfAbsent(key, created);
+            if(instance == null)
+                instance = created;
+        }
+        return instance;
+    }
+
+    /**
+     *
+     * @return shared connector to instance for user, authenticated once per password.
+     */
+    public static Connector getConnector(Instance instance, String user, String pass)
+            throws AccumuloException, AccumuloSecurityException {
+        String key = key(instance, user);
+        byte[] password = pass.getBytes();
+        CachedConnector cached = connectors.get(key);
+        if(cached != null && Arrays.equals(cached.password, password))
+            return cached.connector;
+        Connector connector = instance.getConnector(user, new PasswordToken(password));
+        //racing callers authenticate separately, the last one in is kept.
+        connectors.put(key, new CachedConnector(password, connector));
+        if(log.isDebugEnabled())
+            log.debug("Opened connector for " + key);
+        return connector;
+    }
+
+    /**
+     *
+     * @param ttlMillis how long authorizations are reused. 0 or less always asks the instance.
+     * @return user authorizations, looked up at most once per ttlMillis. The age of a cached
+     * lookup is checked against the caller's ttlMillis, whatever TTL the lookup was made with.
+     */
+    public static Authorizations getAuthorizations(Connector connector, String user, long ttlMillis)
+            throws AccumuloException, AccumuloSecurityException {
+        String key = key(connector.getInstance(), user);
+        long now = System.currentTimeMillis();
+        CachedAuthorizations cached = authorizations.get(key);
+        if(ttlMillis > 0 && cached != null && now - cached.fetched < ttlMillis)
+            return cached.auths;
+        Authorizations auths = connector.securityOperations().getUserAuthorizations(user);
+        authorizations.put(key, new CachedAuthorizations(auths, now));
+        return auths;
+    }
+
+    /**
+     *
+     * @return user authorizations, cached for the TTL set in conf.
+     */
+    public static Authorizations getAuthorizations(Connector connector, String user, Configuration conf)
+            throws AccumuloException, AccumuloSecurityException {
+        return getAuthorizations(connector, user,
+                conf.getLong(AccumuloSerde.AUTHORIZATIONS_TTL, AccumuloSerde.DEFAULT_AUTHORIZATIONS_TTL));
+    }
+
+    /**
+     * Drop everything cached, so the next caller reconnects.
+     */
+    public static void clear() {
+        instances.clear();
+        connectors.clear();
+        authorizations.clear();
+    }
+
+    private static String key(Instance instance, String user) {
+        return instance.getInstanceName() + "|" + instance.getZooKeepers() + "|" + user;
+    }
+}
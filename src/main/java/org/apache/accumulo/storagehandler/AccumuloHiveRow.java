@@ -7,16 +7,24 @@ import org.apache.hadoop.io.Writable;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Holds column tuples for rowID. Each tuple contains
  * column family label, qualifier label, and byte [] value.
+ *
+ * Tuples are indexed by family and qualifier in an open addressing table,
+ * so lookups stay constant time regardless of row width.
  */
 public class AccumuloHiveRow implements Writable{
 
+    private static final int INITIAL_SLOTS = 16;
+
     private String rowId;
     List<ColumnTuple> tuples = Lists.newArrayList();
+    //slot holds tuple position + 1, 0 marks an empty slot. Length is always a power of 2.
+    private int[] slots = new int[INITIAL_SLOTS];
 
     public AccumuloHiveRow() {
     }
@@ -34,12 +42,7 @@ public class AccumuloHiveRow implements Writable{
      * @return true if this instance has a tuple containing fam and qual, false otherwise.
      */
     public boolean hasFamAndQual(String fam, String qual) {
-        for (ColumnTuple tuple : tuples) {
-            if(tuple.getCf().equals(fam) && tuple.getQual().equals(qual)){
-                return true;
-            }
-        }
-        return false;
+        return find(fam, qual) != null;
     }
 
     /**
@@ -47,12 +50,8 @@ public class AccumuloHiveRow implements Writable{
      * @return byte [] value for first tuple containing fam and qual or null if no match.
      */
     public byte[] getValue(String fam, String qual) {
-        for (ColumnTuple tuple : tuples) {
-            if(tuple.getCf().equals(fam) && tuple.getQual().equals(qual)){
-                return tuple.getValue();
-            }
-        }
-        return null;
+        ColumnTuple tuple = find(fam, qual);
+        return tuple == null ? null : tuple.getValue();
     }
 
     public String getRowId() {
@@ -71,9 +70,25 @@ public class AccumuloHiveRow implements Writable{
         }
     }
 
+    /**
+     * Exchange contents with other without copying any tuples.
+     */
+    public void swap(AccumuloHiveRow other) {
+        String otherRowId = other.rowId;
+        List<ColumnTuple> otherTuples = other.tuples;
+        int[] otherSlots = other.slots;
+        other.rowId = rowId;
+        other.tuples = tuples;
+        other.slots = slots;
+        rowId = otherRowId;
+        tuples = otherTuples;
+        slots = otherSlots;
+    }
+
     public void clear() {
         this.rowId = null;
-        this.tuples = Lists.newArrayList();
+        this.tuples.clear();
+        Arrays.fill(slots, 0);
     }
 
     @Override
@@ -96,15 +111,55 @@ public class AccumuloHiveRow implements Writable{
             String qual = dataInput.readUTF();
             int valSize = dataInput.readInt();
             byte[] val = new byte[valSize];
-            for (int j = 0; j < valSize; j++) {
-                val[i] = dataInput.readByte();
-            }
-            tuples.add(new ColumnTuple(cf, qual, val));
+            dataInput.readFully(val);
+            add(cf, qual, val);
         }
     }
 
     public void add(String cf, String qual, byte[] val) {
         tuples.add(new ColumnTuple(cf, qual, val));
+        if(tuples.size() * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            index(tuples.size() - 1);
+        }
+    }
+
+    private ColumnTuple find(String fam, String qual) {
+        int mask = slots.length - 1;
+        for (int i = hash(fam, qual) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            ColumnTuple tuple = tuples.get(slots[i] - 1);
+            if(tuple.getCf().equals(fam) && tuple.getQual().equals(qual)){
+                return tuple;
+            }
+        }
+        return null;
+    }
+
+    //first tuple added for a fam/qual pair wins, matching the original linear lookup.
+    private void index(int position) {
+        ColumnTuple tuple = tuples.get(position);
+        int mask = slots.length - 1;
+        int i = hash(tuple.getCf(), tuple.getQual()) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            ColumnTuple existing = tuples.get(slots[i] - 1);
+            if(existing.getCf().equals(tuple.getCf()) && existing.getQual().equals(tuple.getQual()))
+                return;
+        }
+        slots[i] = position + 1;
+    }
+
+    private void rehash(int numSlots) {
+        slots = new int[numSlots];
+        for (int i = 0; i < tuples.size(); i++) {
+            index(i);
+        }
+    }
+
+    //String caches its hash code, so repeated lookups with the same labels are cheap.
+    private static int hash(String fam, String qual) {
+        int h = fam.hashCode() * 31 + qual.hashCode();
+        return h ^ (h >>> 16);
     }
 
     public static class ColumnTuple {
@@ -3,22 +3,31 @@ package org.apache.accumulo.storagehandler;
 import com.google.common.collect.Lists;
 import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.impl.Writer;
-import org.apache.accumulo.core.client.security.tokens.PasswordToken;
-import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
-import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.storagehandler.predicate.AccumuloPredicateHandler;
 import org.apache.accumulo.storagehandler.predicate.compare.PrimitiveCompare;
 import org.apache.commons.cli.MissingArgumentException;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.util.StringUtils;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -30,6 +39,8 @@ public class AccumuloHiveUtils {
 
     private static final String ROWID = "rowID";
     private static final Pattern COMMA = Pattern.compile("[,]");
+    private static final Pattern SEMICOLON = Pattern.compile("[;]");
+    static final int MAX_SAMPLE_ROWS = 100000;
 
     public static String getFromConf(Configuration conf, String property)
             throws MissingArgumentException {
@@ -51,6 +62,151 @@ public class AccumuloHiveUtils {
         return Lists.newArrayList(COMMA.split(columnMapping));
     }
 
+    /**
+     * Parse locality groups declared as name:family,family;name:family
+     *
+     * @param groups value of {@link AccumuloSerde#LOCALITY_GROUPS}
+     * @return column families of each group, in declared order.
+     * @throws IllegalArgumentException if a group is malformed, empty, declared twice or shares a family with another.
+     */
+    public static Map<String, Set<Text>> parseLocalityGroups(String groups) {
+        Map<String, Set<Text>> parsed = new LinkedHashMap<String, Set<Text>>();
+        Set<Text> allFamilies = new HashSet<Text>();
+        for(String group : SEMICOLON.split(groups.trim())) {
+            int colon = group.indexOf(':');
+            String name = colon < 0 ? "" : group.substring(0, colon).trim();
+            if(name.isEmpty() || colon == group.length() - 1)
+                throw new IllegalArgumentException("Malformed " + AccumuloSerde.LOCALITY_GROUPS + " group: " + group);
+            if(parsed.containsKey(name))
+                throw new IllegalArgumentException("Locality group " + name + " declared twice");
+            Set<Text> families = new HashSet<Text>();
+            for(String family : COMMA.split(group.substring(colon + 1))) {
+                Text cf = new Text(family.trim());
+                if(!allFamilies.add(cf))
+                    throw new IllegalArgumentException("Column family " + cf + " is in more than one locality group");
+                families.add(cf);
+            }
+            parsed.put(name, families);
+        }
+        return parsed;
+    }
+
+    /**
+     * Split points to create a table with, from at most one of {@link AccumuloSerde#SPLITS},
+     * {@link AccumuloSerde#SPLITS_UNIFORM} or {@link AccumuloSerde#SPLITS_SAMPLE}.
+     *
+     * @param params table or serde properties.
+     * @return split points, empty if none were declared.
+     * @throws IllegalArgumentException if more than one scheme is declared or a tablet count is not positive.
+     * @throws IOException if the sample cannot be read.
+     */
+    public static SortedSet<Text> getSplitPoints(Map<String, String> params, Configuration conf)
+            throws IOException {
+        String explicit = params.get(AccumuloSerde.SPLITS);
+        String uniform = params.get(AccumuloSerde.SPLITS_UNIFORM);
+        String sample = params.get(AccumuloSerde.SPLITS_SAMPLE);
+        int declared = (explicit != null ? 1 : 0) + (uniform != null ? 1 : 0) + (sample != null ? 1 : 0);
+        if(declared > 1)
+            throw new IllegalArgumentException("Declare only one of " + AccumuloSerde.SPLITS + ", " +
+                    AccumuloSerde.SPLITS_UNIFORM + " or " + AccumuloSerde.SPLITS_SAMPLE);
+        SortedSet<Text> splits = new TreeSet<Text>();
+        if(explicit != null) {
+            for(String split : COMMA.split(explicit)) {
+                if(split.trim().length() > 0)
+                    splits.add(new Text(split.trim()));
+            }
+        } else if(uniform != null) {
+            splits = uniformHexSplits(Integer.parseInt(uniform.trim()));
+        } else if(sample != null) {
+            String tablets = params.get(AccumuloSerde.SPLITS_SAMPLE_TABLETS);
+            splits = sampledSplits(readSample(new Path(sample), conf, MAX_SAMPLE_ROWS),
+                    tablets == null ? AccumuloSerde.DEFAULT_SPLITS_SAMPLE_TABLETS : Integer.parseInt(tablets.trim()));
+        }
+        return splits;
+    }
+
+    /**
+     * Split points for rowIDs that start with a lowercase hex hash, so each of the tablets
+     * covers an equal share of the hash space.
+     *
+     * @return tablets - 1 hex prefixes, zero padded to the fewest digits that keep them distinct.
+     */
+    public static SortedSet<Text> uniformHexSplits(int tablets) {
+        if(tablets < 1)
+            throw new IllegalArgumentException(AccumuloSerde.SPLITS_UNIFORM + " must be positive: " + tablets);
+        int digits = 1;
+        long space = 16;
+        while(space < tablets) {
+            digits++;
+            space *= 16;
+        }
+        SortedSet<Text> splits = new TreeSet<Text>();
+        for(int i = 1; i < tablets; i++)
+            splits.add(new Text(String.format("%0" + digits + "x", i * space / tablets)));
+        return splits;
+    }
+
+    /**
+     *
+     * @param rows sampled rowIDs, in any order.
+     * @return rows at the tablets - 1 evenly spaced quantiles of the sample.
+     */
+    public static SortedSet<Text> sampledSplits(List<Text> rows, int tablets) {
+        if(tablets < 1)
+            throw new IllegalArgumentException(AccumuloSerde.SPLITS_SAMPLE_TABLETS + " must be positive: " + tablets);
+        List<Text> sorted = Lists.newArrayList(rows);
+        Collections.sort(sorted);
+        SortedSet<Text> splits = new TreeSet<Text>();
+        if(sorted.isEmpty())
+            return splits;
+        for(int i = 1; i < tablets; i++)
+            splits.add(sorted.get((int)((long)i * sorted.size() / tablets)));
+        return splits;
+    }
+
+    /*
+      One rowID per line, from a file or a directory of files such as INSERT OVERWRITE DIRECTORY writes.
+      Hidden files starting with _ or . are skipped. Larger samples are cut to a uniform reservoir
+      sample of maxRows rows, seeded so the same sample gives the same split points.
+     */
+    static List<Text> readSample(Path sample, Configuration conf, int maxRows) throws IOException {
+        FileSystem fs = sample.getFileSystem(conf);
+        List<Path> files = Lists.newArrayList();
+        if(fs.getFileStatus(sample).isDir()) {
+            for(FileStatus status : fs.listStatus(sample)) {
+                String name = status.getPath().getName();
+                if(!status.isDir() && !name.startsWith("_") && !name.startsWith("."))
+                    files.add(status.getPath());
+            }
+        } else {
+            files.add(sample);
+        }
+        List<Text> rows = Lists.newArrayList();
+        Random random = new Random(maxRows);
+        long seen = 0;
+        for(Path file : files) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(file), "UTF-8"));
+            try {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    if(line.length() == 0)
+                        continue;
+                    seen++;
+                    if(rows.size() < maxRows) {
+                        rows.add(new Text(line));
+                    } else {
+                        long slot = (long)(random.nextDouble() * seen);
+                        if(slot < maxRows)
+                            rows.set((int) slot, new Text(line));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return rows;
+    }
+
     /**
      *
      * @return the Hive column aligned with the accumulo rowID, or null if no column is mapped to rowID.
@@ -151,41 +307,9 @@ public class AccumuloHiveUtils {
         throw new IllegalArgumentException("not type index found for column: " + col);
     }
 
-    /**
-     * For a given column family and qualifier and value, lookup the hive column type that maps
-     * to the qualifier. Assume the value type matches the Hive type, and convert the bytes
-     * to UTF8. This seems to be required by Hive LazyObjects for serialization.
-     *
-     * @param k Accumulo key
-     * @param v Accumulo value
-     * @return value as UTF8 byte array.
-     * @throws IOException
-     */
-    public static byte[] valueAsUTF8bytes(JobConf conf, Key k, Value v)
-            throws IOException {
-        String cf = k.getColumnFamily().toString();
-        String qual = k.getColumnQualifier().toString();
-        String combined = cf + "|" + qual;
-        String type = hiveColType(accumuloToHive(combined, conf), conf);
-        if(type.equals("string")) {
-            return v.get();
-        } else if (type.equals("int")) {
-            int val = ByteBuffer.wrap(v.get()).asIntBuffer().get();
-            return String.valueOf(val).getBytes();
-        } else if (type.equals("double")) {
-            double val = ByteBuffer.wrap(v.get()).asDoubleBuffer().get();
-            return String.valueOf(val).getBytes();
-        } else if (type.equals("bigint")) {
-            long val = ByteBuffer.wrap(v.get()).asLongBuffer().get();
-            return String.valueOf(val).getBytes();
-        } else {
-            throw new IOException("Unsupported type: " + type + " currently only string,int,long,double supported");
-        }
-    }
-
     /**
      * Use conf to lookup instance id, user, pass, and zookeepers from conf.
-     * Create and return a connector.
+     * Return the cached connector for the instance and user in conf.
      *
      * @return Accumulo connector
      * @throws IOException
@@ -197,8 +321,8 @@ public class AccumuloHiveUtils {
             String user = getFromConf(conf, AccumuloSerde.USER_NAME);
             String pass = getFromConf(conf, AccumuloSerde.USER_PASS);
             String zookeepers = getFromConf(conf, AccumuloSerde.ZOOKEEPERS);
-            ZooKeeperInstance inst = new ZooKeeperInstance(instance, zookeepers);
-            return  inst.getConnector(user, new PasswordToken(pass.getBytes()));
+            Instance inst = AccumuloConnectionCache.getInstance(instance, zookeepers);
+            return AccumuloConnectionCache.getConnector(inst, user, pass);
         } catch (MissingArgumentException e){
             throw new IOException(StringUtils.stringifyException(e));
         } catch (AccumuloSecurityException e) {
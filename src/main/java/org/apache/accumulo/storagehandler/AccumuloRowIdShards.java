@@ -0,0 +1,169 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.storagehandler.predicate.RowRanges;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Hash sharded rowID layout, declared in the column mapping as rowID#shards, e.g. rowID#16.
+ *
+ * Each Accumulo row is the Hive rowID behind a shard prefix: the shard number in zero padded
+ * lowercase hex followed by '_', with the shard taken from a hash of the rowID bytes. Monotonic
+ * rowIDs such as timestamps or sequence ids are spread over every shard instead of all landing
+ * on the last tablet. Readers strip the prefix, and rowID ranges are expanded to one range per
+ * shard so scans fan out across the tablets of every shard. A single rowID hashes to one shard
+ * and stays a single range.
+ */
+public class AccumuloRowIdShards {
+
+    private static final char SHARD_MARK = '#';
+    private static final byte SEPARATOR = '_';
+
+    private final int count;
+    private final Text[] prefixes;
+
+    public AccumuloRowIdShards(int count) {
+        if(count < 1)
+            throw new IllegalArgumentException("rowID shard count must be positive: " + count);
+        this.count = count;
+        int digits = Integer.toHexString(count - 1).length();
+        prefixes = new Text[count];
+        for (int i = 0; i < count; i++)
+            prefixes[i] = new Text(String.format("%0" + digits + "x%c", i, (char) SEPARATOR));
+    }
+
+    /**
+     *
+     * @param famQualPair one entry of the column mapping.
+     * @return shards declared on a rowID entry, or null if the entry is not a sharded rowID.
+     * @throws IllegalArgumentException if the shard count is malformed.
+     */
+    public static AccumuloRowIdShards fromMapping(String famQualPair) {
+        if(!AccumuloHiveUtils.containsRowID(famQualPair))
+            return null;
+        int mark = famQualPair.indexOf(SHARD_MARK);
+        if(mark < 0)
+            return null;
+        try {
+            return new AccumuloRowIdShards(Integer.parseInt(famQualPair.substring(mark + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed rowID shard count: " + famQualPair);
+        }
+    }
+
+    /**
+     *
+     * @return shards declared on the rowID in {@link AccumuloSerde#COLUMN_MAPPINGS}, or null if rowID is not sharded.
+     */
+    public static AccumuloRowIdShards fromConf(Configuration conf) {
+        String accumuloProp = conf.get(AccumuloSerde.COLUMN_MAPPINGS);
+        if(accumuloProp == null)
+            throw new IllegalArgumentException(AccumuloSerde.COLUMN_MAPPINGS + " cannot be null");
+        return fromColumnMapping(accumuloProp);
+    }
+
+    /**
+     *
+     * @param columnMapping value of {@link AccumuloSerde#COLUMN_MAPPINGS}.
+     * @return shards declared on the rowID, or null if rowID is not mapped or not sharded.
+     */
+    public static AccumuloRowIdShards fromColumnMapping(String columnMapping) {
+        for (String famQualPair : AccumuloHiveUtils.parseColumnMapping(columnMapping)) {
+            AccumuloRowIdShards shards = fromMapping(famQualPair);
+            if(shards != null)
+                return shards;
+        }
+        return null;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     *
+     * @return shard of the rowID in the first length bytes of rowId.
+     */
+    public int shardOf(byte[] rowId, int length) {
+        return (WritableComparator.hashBytes(rowId, length) & Integer.MAX_VALUE) % count;
+    }
+
+    /**
+     * Set row to the Accumulo row for rowId. row and rowId must not be the same Text.
+     */
+    public void toRow(Text rowId, Text row) {
+        toRow(prefixes[shardOf(rowId.getBytes(), rowId.getLength())], rowId, row);
+    }
+
+    /**
+     *
+     * @return Hive rowID of the Accumulo row.
+     * @throws IOException if the row has no shard prefix.
+     */
+    public String toRowId(Text row) throws IOException {
+        int prefixLength = prefixes[0].getLength();
+        if(row.getLength() < prefixLength || row.getBytes()[prefixLength - 1] != SEPARATOR)
+            throw new IOException("Row " + row + " has no rowID shard prefix");
+        return Text.decode(row.getBytes(), prefixLength, row.getLength() - prefixLength);
+    }
+
+    /**
+     * Split points that put each shard in its own tablet.
+     */
+    public SortedSet<Text> splitPoints() {
+        SortedSet<Text> splits = new TreeSet<Text>();
+        for (int i = 1; i < count; i++)
+            splits.add(new Text(prefixes[i]));
+        return splits;
+    }
+
+    /**
+     * Turn ranges over Hive rowIDs into ranges over Accumulo rows. Single rowID ranges go to
+     * the rowID's shard, other ranges are repeated in every shard.
+     *
+     * @param ranges sorted, disjoint rowID ranges, or null for every row.
+     * @return sorted, disjoint row ranges, or null for every row.
+     */
+    public List<Range> expand(List<Range> ranges) {
+        if(ranges == null)
+            return null;
+        List<Range> expanded = Lists.newArrayList();
+        for (Range range : ranges) {
+            if(!range.isInfiniteStartKey() && range.equals(new Range(range.getStartKey().getRow()))) {
+                Text rowId = range.getStartKey().getRow();
+                expanded.add(inShard(range, prefixes[shardOf(rowId.getBytes(), rowId.getLength())]));
+            } else {
+                for (Text prefix : prefixes)
+                    expanded.add(inShard(range, prefix));
+            }
+        }
+        return RowRanges.merge(expanded);
+    }
+
+    private Range inShard(Range range, Text prefix) {
+        Key start = range.isInfiniteStartKey() ? new Key(prefix) : prefixed(range.getStartKey(), prefix);
+        Key end = range.isInfiniteStopKey() ? new Key(Range.followingPrefix(prefix)) : prefixed(range.getEndKey(), prefix);
+        return new Range(start, range.isInfiniteStartKey() || range.isStartKeyInclusive(),
+                end, !range.isInfiniteStopKey() && range.isEndKeyInclusive());
+    }
+
+    private Key prefixed(Key key, Text prefix) {
+        Text row = new Text();
+        toRow(prefix, key.getRow(), row);
+        return new Key(row, key.getColumnFamily(), key.getColumnQualifier(), key.getColumnVisibility(), key.getTimestamp());
+    }
+
+    private void toRow(Text prefix, Text rowId, Text row) {
+        row.set(prefix);
+        row.append(rowId.getBytes(), 0, rowId.getLength());
+    }
+}
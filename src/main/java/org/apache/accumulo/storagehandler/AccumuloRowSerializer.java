@@ -0,0 +1,174 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.io.Text;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns Hive rows into Mutations for one table, in the value encodings the record readers
+ * and filter iterators decode: UTF8 strings, and int, bigint and double as big endian 4 and
+ * 8 byte values, as read by IntCompare, LongCompare and DoubleCompare.
+ *
+ * Column family and qualifier Texts are built once per table, and the row Text, Value and
+ * numeric byte buffers are reused for every row, since Mutation copies what is put into it.
+ * Each row still needs its own Mutation, the BatchWriter holds on to mutations until they are
+ * sent. Null columns are skipped before anything is read or allocated for them.
+ *
+ * A sharded rowID is written behind its shard prefix, see {@link AccumuloRowIdShards}.
+ *
+ * Not thread safe, as with the serde that owns it.
+ */
+public class AccumuloRowSerializer {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final AccumuloColumnPlan plan;
+    private final Text[] families;
+    private final Text[] qualifiers;
+    private final Text row = new Text();
+    private final Text shardedRow = new Text();
+    private final Value value = new Value(new byte[0]);
+    private final byte[] intBytes = new byte[4];
+    private final byte[] longBytes = new byte[8];
+
+    //resolved from the first row's inspector, Hive passes the same one for every row.
+    private StructObjectInspector soi;
+    private StructField[] fields;
+    private PrimitiveObjectInspector[] inspectors;
+
+    public AccumuloRowSerializer(AccumuloColumnPlan plan) {
+        this.plan = plan;
+        List<AccumuloColumnPlan.Column> columns = plan.getColumns();
+        families = new Text[columns.size()];
+        qualifiers = new Text[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            AccumuloColumnPlan.Column column = columns.get(i);
+            if(column.isRowId())
+                continue;
+            families[i] = new Text(column.getCf());
+            qualifiers[i] = new Text(column.getQual());
+        }
+    }
+
+    /**
+     * Turn a Hive row into a Mutation on its rowID. Each non null column becomes one
+     * family|qualifier cell and null columns are left out.
+     *
+     * @throws SerDeException if the table has no rowID column, the rowID is null or a column type is not supported.
+     */
+    public Mutation serialize(Object o, ObjectInspector objectInspector) throws SerDeException {
+        if(objectInspector != soi)
+            resolve(objectInspector);
+        int rowIdIndex = plan.getRowIdIndex();
+        Object rowId = soi.getStructFieldData(o, fields[rowIdIndex]);
+        if(rowId == null)
+            throw new SerDeException("Cannot write a row with null rowID");
+        setText(row, rowId, inspectors[rowIdIndex]);
+        Mutation mutation;
+        if(plan.getRowIdShards() != null) {
+            plan.getRowIdShards().toRow(row, shardedRow);
+            mutation = new Mutation(shardedRow);
+        } else {
+            mutation = new Mutation(row);
+        }
+        List<AccumuloColumnPlan.Column> columns = plan.getColumns();
+        for (int i = 0; i < fields.length; i++) {
+            if(i == rowIdIndex)
+                continue;
+            Object data = soi.getStructFieldData(o, fields[i]);
+            if(data == null)
+                continue;
+            PrimitiveObjectInspector oi = inspectors[i];
+            switch (columns.get(i).getValueType()) {
+                case STRING:
+                    value.set(stringBytes(data, oi));
+                    break;
+                case INT:
+                    putInt(PrimitiveObjectInspectorUtils.getInt(data, oi));
+                    value.set(intBytes);
+                    break;
+                case BIGINT:
+                    putLong(PrimitiveObjectInspectorUtils.getLong(data, oi));
+                    value.set(longBytes);
+                    break;
+                case DOUBLE:
+                    putLong(Double.doubleToLongBits(PrimitiveObjectInspectorUtils.getDouble(data, oi)));
+                    value.set(longBytes);
+                    break;
+            }
+            mutation.put(families[i], qualifiers[i], value);
+        }
+        return mutation;
+    }
+
+    private void resolve(ObjectInspector objectInspector) throws SerDeException {
+        if(objectInspector.getCategory() != ObjectInspector.Category.STRUCT)
+            throw new SerDeException(AccumuloSerde.class.getName() + " can only serialize struct types, got " +
+                    objectInspector.getTypeName());
+        if(plan.getRowIdIndex() < 0)
+            throw new SerDeException("Cannot write to a table without rowID in " + AccumuloSerde.COLUMN_MAPPINGS);
+        StructObjectInspector structInspector = (StructObjectInspector) objectInspector;
+        List<? extends StructField> refs = structInspector.getAllStructFieldRefs();
+        List<AccumuloColumnPlan.Column> columns = plan.getColumns();
+        if(refs.size() != columns.size())
+            throw new SerDeException("Row has " + refs.size() + " fields, table has " + columns.size() + " columns");
+        StructField[] resolvedFields = refs.toArray(new StructField[refs.size()]);
+        PrimitiveObjectInspector[] resolvedInspectors = new PrimitiveObjectInspector[refs.size()];
+        for (int i = 0; i < resolvedFields.length; i++) {
+            ObjectInspector oi = resolvedFields[i].getFieldObjectInspector();
+            if(oi.getCategory() != ObjectInspector.Category.PRIMITIVE)
+                throw new SerDeException("Cannot write " + oi.getTypeName() + " field " +
+                        resolvedFields[i].getFieldName() + ", only primitive types");
+            if(!columns.get(i).isRowId() && columns.get(i).getValueType() == null)
+                throw new SerDeException("Unsupported type: " + columns.get(i).getHiveType() +
+                        " currently only string,int,long,double supported");
+            resolvedInspectors[i] = (PrimitiveObjectInspector) oi;
+        }
+        fields = resolvedFields;
+        inspectors = resolvedInspectors;
+        soi = structInspector;
+    }
+
+    //Text backed strings are copied straight from their bytes, without decoding to a String.
+    private void setText(Text text, Object data, PrimitiveObjectInspector oi) {
+        if(oi instanceof StringObjectInspector && oi.preferWritable()) {
+            text.set(((StringObjectInspector) oi).getPrimitiveWritableObject(data));
+        } else {
+            text.set(PrimitiveObjectInspectorUtils.getString(data, oi));
+        }
+    }
+
+    private byte[] stringBytes(Object data, PrimitiveObjectInspector oi) {
+        if(oi instanceof StringObjectInspector && oi.preferWritable()) {
+            Text text = ((StringObjectInspector) oi).getPrimitiveWritableObject(data);
+            byte[] bytes = text.getBytes();
+            return bytes.length == text.getLength() ? bytes : Arrays.copyOf(bytes, text.getLength());
+        }
+        return PrimitiveObjectInspectorUtils.getString(data, oi).getBytes(UTF8);
+    }
+
+    private void putInt(int v) {
+        intBytes[0] = (byte) (v >>> 24);
+        intBytes[1] = (byte) (v >>> 16);
+        intBytes[2] = (byte) (v >>> 8);
+        intBytes[3] = (byte) v;
+    }
+
+    private void putLong(long v) {
+        for (int i = 7; i >= 0; i--) {
+            longBytes[i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.apache.hadoop.hive.serde2.lazy.LazyFactory;
 import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
 import org.apache.hadoop.hive.serde2.lazy.objectinspector.LazySimpleStructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.io.Writable;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -20,22 +21,74 @@ import java.util.Properties;
 import java.util.regex.Pattern;
 
 /**
- * Deserialization from Accumulo to LazyAccumuloRow for Hive.
- *
+ * Deserialization from Accumulo to LazyAccumuloRow for Hive,
+ * and serialization of Hive rows to Mutations for INSERT.
  */
 public class AccumuloSerde implements SerDe {
     public static final String TABLE_NAME = "accumulo.table.name";
+    public static final String HIVE_TABLE_NAME = "accumulo.hive.table.name";
     public static final String USER_NAME = "accumulo.user.name";
     public static final String USER_PASS = "accumulo.user.pass";
     public static final String ZOOKEEPERS = "accumulo.zookeepers";
     public static final String INSTANCE_ID = "accumulo.instance.id";
     public static final String COLUMN_MAPPINGS = "accumulo.columns.mapping";
     public static final String NO_ITERATOR_PUSHDOWN = "accumulo.no.iterators";
+    public static final String NO_PROJECTION_PUSHDOWN = "accumulo.no.projection";
+    public static final String LOCALITY_GROUPS = "accumulo.locality.groups";
+    public static final String SPLITS = "accumulo.table.splits";
+    public static final String SPLITS_UNIFORM = "accumulo.table.splits.uniform";
+    public static final String SPLITS_SAMPLE = "accumulo.table.splits.sample";
+    public static final String SPLITS_SAMPLE_TABLETS = "accumulo.table.splits.sample.tablets";
+    public static final int DEFAULT_SPLITS_SAMPLE_TABLETS = 10;
+    public static final String READER_MODE = "accumulo.reader.mode";
+    public static final String BATCH_READER_THREADS = "accumulo.reader.batch.threads";
+    public static final String SCANNER_READER = "scanner";
+    public static final String BATCH_READER = "batch";
+    public static final String DIRECT_READER = "direct";
+    public static final String DIRECT_RANGE_THRESHOLD = "accumulo.reader.direct.range.threshold";
+    public static final int DEFAULT_DIRECT_RANGE_THRESHOLD = 10;
+    public static final String AUTHORIZATIONS_TTL = "accumulo.cache.authorizations.ttl.ms";
+    public static final long DEFAULT_AUTHORIZATIONS_TTL = 5 * 60 * 1000;
+    public static final String PREFETCH_DEPTH = "accumulo.reader.prefetch.depth";
+    public static final String SPLIT_TARGET_SIZE = "accumulo.split.target.size";
+    public static final String WRITER_MODE = "accumulo.writer.mode";
+    public static final String BATCH_WRITER = "batch";
+    public static final String BULK_WRITER = "bulk";
+    public static final String BULK_DIRECTORY = "accumulo.bulk.dir";
+    public static final String WRITER_MAX_MEMORY = "accumulo.writer.max.memory";
+    public static final long DEFAULT_WRITER_MAX_MEMORY = 50 * 1024 * 1024;
+    public static final String WRITER_MAX_LATENCY = "accumulo.writer.max.latency.ms";
+    public static final long DEFAULT_WRITER_MAX_LATENCY = 2 * 60 * 1000;
+    public static final String WRITER_THREADS = "accumulo.writer.threads";
+    public static final int DEFAULT_WRITER_THREADS = 3;
+    public static final int DEFAULT_BATCH_READER_THREADS = 10;
+    public static final String BATCH_RANGE_THRESHOLD = "accumulo.reader.batch.range.threshold";
+    public static final int DEFAULT_BATCH_RANGE_THRESHOLD = 100;
+    public static final String BATCH_SPLIT_RANGES = "accumulo.reader.batch.split.ranges";
+    public static final int DEFAULT_BATCH_SPLIT_RANGES = 100;
+    public static final String ITERATOR_FILTER_MODE = "accumulo.iterator.filter.mode";
+    public static final String STREAMING_FILTER = "streaming";
+    public static final String WHOLE_ROW_FILTER = "wholerow";
+    public static final String AGGREGATE_PUSHDOWN = "accumulo.pushdown.aggregate";
+    public static final String COUNT_AGGREGATE = "count";
+    public static final String AGGREGATE_TABLE = "accumulo.pushdown.aggregate.table";
+    public static final String AGGREGATE_COLUMN = "accumulo.pushdown.aggregate.column";
+    public static final String AGGREGATE_GROUP_BY = "accumulo.pushdown.aggregate.groupby";
+    public static final String AGGREGATE_MAX_GROUPS = "accumulo.pushdown.aggregate.max.groups";
+    public static final int DEFAULT_AGGREGATE_MAX_GROUPS = 10000;
+    public static final String LIMIT_PUSHDOWN = "accumulo.pushdown.limit";
+    public static final String LIMIT_TABLE = "accumulo.pushdown.limit.table";
+    public static final String LIMIT_ORDER_COLUMN = "accumulo.pushdown.limit.order.column";
+    public static final String LIMIT_ORDER_DESCENDING = "accumulo.pushdown.limit.order.desc";
+    public static final String LIMIT_SPLITS = "accumulo.pushdown.limit.splits";
+    public static final int DEFAULT_LIMIT_SPLITS = 4;
     private static final String MORE_ACCUMULO_THAN_HIVE = "You have more " + COLUMN_MAPPINGS + " fields than hive columns";
     private static final String MORE_HIVE_THAN_ACCUMULO = "You have more hive columns than fields mapped with " + COLUMN_MAPPINGS;
     private LazySimpleSerDe.SerDeParameters serDeParameters;
     private LazyAccumuloRow cachedRow;
     private List<String> fetchCols;
+    private AccumuloColumnPlan columnPlan;
+    private AccumuloRowSerializer serializer;
     private ObjectInspector cachedObjectInspector;
 
     private static final Logger log = Logger.getLogger(AccumuloSerde.class);
@@ -94,6 +147,11 @@ public class AccumuloSerde implements SerDe {
                     fetchCols.size() + " elements. " + printColumnMismatchTip(fetchCols.size(),
                     serDeParameters.getColumnNames().size()));
         }
+        List<String> types = Lists.newArrayList();
+        for (TypeInfo typeInfo : serDeParameters.getColumnTypes())
+            types.add(typeInfo.getTypeName());
+        columnPlan = new AccumuloColumnPlan(fetchCols, serDeParameters.getColumnNames(), types);
+        serializer = new AccumuloRowSerializer(columnPlan);
 
         if(log.isInfoEnabled())
             log.info("Serde initialized successfully for column mapping: " + colMapping);
@@ -113,9 +171,14 @@ public class AccumuloSerde implements SerDe {
         return Mutation.class;
     }
 
+    /**
+     * Turn a Hive row into a Mutation on its rowID, see {@link AccumuloRowSerializer}.
+     *
+     * @throws SerDeException if the table has no rowID column, the rowID is null or a column type is not supported.
+     */
     public Writable serialize(Object o, ObjectInspector objectInspector)
             throws SerDeException {
-        throw new UnsupportedOperationException("Serialization to Accumulo not yet supported");
+        return serializer.serialize(o, objectInspector);
     }
 
     public Object deserialize(Writable writable) throws SerDeException {
@@ -124,7 +187,7 @@ public class AccumuloSerde implements SerDe {
                     "Expected AccumuloHiveRow. Got " + writable.getClass().getName());
         }
 
-        cachedRow.init((AccumuloHiveRow)writable, fetchCols);
+        cachedRow.init((AccumuloHiveRow)writable, columnPlan);
         return cachedRow;
     }
 
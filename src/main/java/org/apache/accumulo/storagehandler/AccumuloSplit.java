@@ -18,7 +18,9 @@
 
 package org.apache.accumulo.storagehandler;
 
+import com.google.common.collect.Lists;
 import org.apache.accumulo.core.client.mapreduce.InputFormatBase.*;
+import org.apache.accumulo.core.data.Range;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
@@ -28,14 +30,23 @@ import org.apache.log4j.Logger;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-
+import java.util.List;
 
 
 /**
  * Wraps RangeInputSplit into the older MapReduce split package.
+ *
+ * Also carries every range the split should read. Normally that is just the range of
+ * the wrapped RangeInputSplit, but several ranges hosted by the same tablet server
+ * can be grouped into one split for the batch reader. A direct split has no tablet
+ * locations at all, its ranges are read straight from a Scanner by the task that opens it.
+ * A split sized by {@link AccumuloSplitPlanner} reports its estimated size as its length.
  */
 public class AccumuloSplit extends FileSplit implements InputSplit {
   private RangeInputSplit split;
+  private List<Range> ranges = Lists.newArrayList();
+  private boolean direct = false;
+  private long estimatedSize = 0;
 
     private static final Logger log = Logger.getLogger(AccumuloSplit.class);
 
@@ -47,31 +58,97 @@ public class AccumuloSplit extends FileSplit implements InputSplit {
   public AccumuloSplit(RangeInputSplit split, Path dummyPath) {
     super(dummyPath, 0, 0, (String[]) null);
     this.split = split;
+    this.ranges.add(split.getRange());
+  }
+
+  /**
+   *
+   * @param split supplies the locations for this split.
+   * @param ranges all ranges to read, each hosted at the locations of split.
+   * @param dummyPath table path required by Hive.
+   */
+  public AccumuloSplit(RangeInputSplit split, List<Range> ranges, Path dummyPath) {
+    super(dummyPath, 0, 0, (String[]) null);
+    this.split = split;
+    this.ranges.addAll(ranges);
+  }
+
+  /**
+   *
+   * @param ranges all ranges to read, without resolving the tablets hosting them.
+   * @param dummyPath table path required by Hive.
+   * @return direct split
+   */
+  public static AccumuloSplit direct(List<Range> ranges, Path dummyPath) {
+    AccumuloSplit split = new AccumuloSplit(new RangeInputSplit(), ranges, dummyPath);
+    split.direct = true;
+    return split;
+  }
+
+  /**
+   *
+   * @return true if this split was made without looking up tablets, see {@link #direct}.
+   */
+  public boolean isDirect() {
+    return direct;
+  }
+
+  /**
+   *
+   * @param estimatedSize bytes this split is expected to read, reported as its length.
+   */
+  public void setEstimatedSize(long estimatedSize) {
+    this.estimatedSize = estimatedSize;
   }
 
   public RangeInputSplit getSplit() {
     return this.split;
   }
 
+  /**
+   *
+   * @return all ranges covered by this split.
+   */
+  public List<Range> getRanges() {
+    return ranges;
+  }
+
   @Override
   public void readFields(DataInput in) throws IOException {
     super.readFields(in);
     split.readFields(in);
+    ranges.clear();
+    int numRanges = in.readInt();
+    for (int i = 0; i < numRanges; i++) {
+      Range range = new Range();
+      range.readFields(in);
+      ranges.add(range);
+    }
+    direct = in.readBoolean();
+    estimatedSize = in.readLong();
   }
 
   @Override
   public String toString() {
-    return "TableSplit " + split;
+    return (direct ? "DirectSplit" : "TableSplit " + split) + " ranges: " + ranges.size();
   }
 
   @Override
   public void write(DataOutput out) throws IOException {
     super.write(out);
     split.write(out);
+    out.writeInt(ranges.size());
+    for (Range range : ranges) {
+      range.write(out);
+    }
+    out.writeBoolean(direct);
+    out.writeLong(estimatedSize);
   }
 
   @Override
   public long getLength() {
+      if (estimatedSize > 0)
+          return estimatedSize;
       int len = 0;
       try {
           return split.getLength();
@@ -0,0 +1,307 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.mapreduce.InputFormatBase.RangeInputSplit;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Sizes splits to {@link AccumuloSerde#SPLIT_TARGET_SIZE} instead of one split per tablet.
+ *
+ * Tablet sizes are estimated from the file entries in the metadata table. Adjacent tablet
+ * ranges hosted by the same tablet server are packed into one split up to the target size,
+ * and a range larger than the target is cut into pieces at rows interpolated between the
+ * tablet's previous and end rows, without scanning the table. Every split keeps the location of the tablets it reads.
+ *
+ * Without size estimates, for example when the metadata table is not readable, tablets are
+ * only packed, into about as many splits as the numSplits hint asks for.
+ */
+public class AccumuloSplitPlanner {
+
+    //the metadata table was renamed in 1.6.
+    private static final String[] METADATA_TABLES = {"accumulo.metadata", "!METADATA"};
+    private static final Text FILE_FAMILY = new Text("file");
+
+    private static final Logger log = Logger.getLogger(AccumuloSplitPlanner.class);
+
+    private final Connector connector;
+    private final String tableName;
+    private final long targetSize;
+
+    /**
+     *
+     * @param targetSize bytes each split should read.
+     */
+    public AccumuloSplitPlanner(Connector connector, String tableName, long targetSize) {
+        if(targetSize < 1)
+            throw new IllegalArgumentException(AccumuloSerde.SPLIT_TARGET_SIZE + " must be positive: " + targetSize);
+        this.connector = connector;
+        this.tableName = tableName;
+        this.targetSize = targetSize;
+    }
+
+    /**
+     *
+     * @param splits one split per tablet range, as returned by AccumuloInputFormat.
+     * @param numSplits split count hint, used when tablet sizes are unknown.
+     * @param tablePath table path required by Hive.
+     * @return splits of about the target size.
+     */
+    public List<AccumuloSplit> plan(List<org.apache.hadoop.mapreduce.InputSplit> splits, int numSplits, Path tablePath) {
+        SortedMap<Text, Long> sizes = tabletSizes();
+        long target = targetSize;
+        boolean estimated = !sizes.isEmpty();
+        if(!estimated) {
+            if(numSplits < 1 || splits.size() <= numSplits) {
+                List<AccumuloSplit> perTablet = Lists.newArrayListWithCapacity(splits.size());
+                for (org.apache.hadoop.mapreduce.InputSplit split : splits)
+                    perTablet.add(new AccumuloSplit((RangeInputSplit)split, tablePath));
+                return perTablet;
+            }
+            //count each tablet as one unit.
+            target = (splits.size() + numSplits - 1) / numSplits;
+            log.info("No tablet size estimates for " + tableName + ", packing " + target + " tablets per split");
+        }
+
+        Map<String, List<Piece>> byLocation = new LinkedHashMap<String, List<Piece>>();
+        for (org.apache.hadoop.mapreduce.InputSplit split : splits) {
+            RangeInputSplit ris = (RangeInputSplit)split;
+            String[] locations = ris.getLocations();
+            String location = locations != null && locations.length > 0 ? locations[0] : "";
+            List<Piece> pieces = byLocation.get(location);
+            if(pieces == null) {
+                pieces = Lists.newArrayList();
+                byLocation.put(location, pieces);
+            }
+            if(!estimated) {
+                pieces.add(new Piece(ris, ris.getRange(), 1));
+                continue;
+            }
+            long size = estimate(sizes, ris.getRange());
+            if(size > target)
+                pieces.addAll(subdivide(ris, size, target));
+            else
+                pieces.add(new Piece(ris, ris.getRange(), size));
+        }
+
+        List<AccumuloSplit> planned = Lists.newArrayList();
+        for (List<Piece> pieces : byLocation.values()) {
+            Collections.sort(pieces);
+            for (List<Piece> packed : pack(pieces, target))
+                planned.add(toSplit(packed, estimated, tablePath));
+        }
+        if(log.isInfoEnabled())
+            log.info("Planned " + planned.size() + " splits from " + splits.size() + " tablet ranges of " + tableName);
+        return planned;
+    }
+
+    private AccumuloSplit toSplit(List<Piece> packed, boolean estimated, Path tablePath) {
+        RangeInputSplit ris = packed.get(0).split;
+        AccumuloSplit split;
+        if(packed.size() == 1 && packed.get(0).range.equals(ris.getRange())) {
+            split = new AccumuloSplit(ris, tablePath);
+        } else {
+            List<Range> ranges = Lists.newArrayListWithCapacity(packed.size());
+            for (Piece piece : packed)
+                ranges.add(piece.range);
+            split = new AccumuloSplit(ris, ranges, tablePath);
+        }
+        if(estimated) {
+            long size = 0;
+            for (Piece piece : packed)
+                size += piece.size;
+            split.setEstimatedSize(size);
+        }
+        return split;
+    }
+
+    /*
+      Greedily pack adjacent pieces while the total stays within target. Every pack holds at least one piece.
+     */
+    static List<List<Piece>> pack(List<Piece> pieces, long target) {
+        List<List<Piece>> packs = Lists.newArrayList();
+        List<Piece> current = Lists.newArrayList();
+        long currentSize = 0;
+        for (Piece piece : pieces) {
+            if(!current.isEmpty() && currentSize + piece.size > target) {
+                packs.add(current);
+                current = Lists.newArrayList();
+                currentSize = 0;
+            }
+            current.add(piece);
+            currentSize += piece.size;
+        }
+        if(!current.isEmpty())
+            packs.add(current);
+        return packs;
+    }
+
+    private List<Piece> subdivide(RangeInputSplit ris, long size, long target) {
+        Range range = ris.getRange();
+        int numPieces = (int)Math.min(Integer.MAX_VALUE, (size + target - 1) / target);
+        List<Piece> pieces = Lists.newArrayList();
+        //the first and last tablets have no previous or end row in the metadata to interpolate between.
+        if(range.isInfiniteStartKey() || range.isInfiniteStopKey()) {
+            log.info("Not subdividing " + range + " of " + tableName + ", it is not bounded by tablet rows");
+            pieces.add(new Piece(ris, range, size));
+            return pieces;
+        }
+        List<Range> ranges = subdivide(range,
+                splitRows(range.getStartKey().getRow(), range.getEndKey().getRow(), numPieces));
+        for (Range piece : ranges)
+            pieces.add(new Piece(ris, piece, size / ranges.size()));
+        return pieces;
+    }
+
+    /**
+     *
+     * @return range cut at each of rows, which must be sorted.
+     */
+    static List<Range> subdivide(Range range, List<Text> rows) {
+        List<Range> pieces = Lists.newArrayListWithCapacity(rows.size() + 1);
+        Key start = range.getStartKey();
+        boolean startInclusive = range.isStartKeyInclusive();
+        for (Text row : rows) {
+            Key cut = new Key(row);
+            if(start != null && cut.compareTo(start) <= 0)
+                continue;
+            if(range.getEndKey().compareTo(cut) <= 0)
+                break;
+            pieces.add(new Range(start, startInclusive, cut, false));
+            start = cut;
+            startInclusive = true;
+        }
+        pieces.add(new Range(start, startInclusive, range.getEndKey(), range.isEndKeyInclusive()));
+        return pieces;
+    }
+
+    /**
+     * Interpolate rows between lower and upper, treating each as a fixed length unsigned number.
+     *
+     * @return up to numPieces - 1 sorted, distinct rows strictly between lower and upper.
+     */
+    static List<Text> splitRows(Text lower, Text upper, int numPieces) {
+        List<Text> rows = Lists.newArrayList();
+        //one extra byte leaves room between rows that differ only in their last byte.
+        int length = Math.max(lower.getLength(), upper.getLength()) + 1;
+        BigInteger low = new BigInteger(1, padded(lower, length));
+        BigInteger high = new BigInteger(1, padded(upper, length));
+        if(high.compareTo(low) <= 0)
+            return rows;
+        BigInteger span = high.subtract(low);
+        Text previous = lower;
+        for (int i = 1; i < numPieces; i++) {
+            BigInteger point = low.add(span.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(numPieces)));
+            Text row = new Text(toBytes(point, length));
+            if(row.compareTo(previous) > 0 && row.compareTo(upper) < 0) {
+                rows.add(row);
+                previous = row;
+            }
+        }
+        return rows;
+    }
+
+    private static byte[] padded(Text row, int length) {
+        byte[] bytes = new byte[length];
+        System.arraycopy(row.getBytes(), 0, bytes, 0, row.getLength());
+        return bytes;
+    }
+
+    private static byte[] toBytes(BigInteger value, int length) {
+        byte[] magnitude = value.toByteArray(); //may carry a leading sign byte.
+        byte[] bytes = new byte[length];
+        int copy = Math.min(length, magnitude.length);
+        System.arraycopy(magnitude, magnitude.length - copy, bytes, length - copy, copy);
+        return bytes;
+    }
+
+    /*
+      Estimated bytes per tablet from the metadata file entries, keyed by tablet end row.
+      The last tablet has no end row and is keyed by an empty Text, which sorts first,
+      so lookups handle it separately.
+     */
+    private SortedMap<Text, Long> tabletSizes() {
+        SortedMap<Text, Long> sizes = new TreeMap<Text, Long>();
+        String tableId = connector.tableOperations().tableIdMap().get(tableName);
+        if(tableId == null)
+            return sizes;
+        for (String metadataTable : METADATA_TABLES) {
+            if(!connector.tableOperations().exists(metadataTable))
+                continue;
+            try {
+                Scanner scanner = connector.createScanner(metadataTable, new Authorizations());
+                //tablet rows are tableId;endRow, and tableId< for the last tablet.
+                scanner.setRange(new Range(new Text(tableId + ";"), true, new Text(tableId + "<"), true));
+                scanner.fetchColumnFamily(FILE_FAMILY);
+                for (Map.Entry<Key, Value> entry : scanner) {
+                    String row = entry.getKey().getRow().toString();
+                    Text endRow = row.endsWith("<") && row.length() == tableId.length() + 1 ?
+                            new Text() : new Text(row.substring(tableId.length() + 1));
+                    String value = entry.getValue().toString();
+                    int comma = value.indexOf(',');
+                    long fileSize = Long.parseLong(comma < 0 ? value : value.substring(0, comma));
+                    Long current = sizes.get(endRow);
+                    sizes.put(endRow, current == null ? fileSize : current + fileSize);
+                }
+            } catch (TableNotFoundException e) {
+                log.info("Cannot read tablet sizes for " + tableName + " from " + metadataTable + ": " + e.getMessage());
+                sizes.clear();
+            } catch (RuntimeException e) { //permission denied, or a malformed file entry.
+                log.info("Cannot read tablet sizes for " + tableName + " from " + metadataTable + ": " + e.getMessage());
+                sizes.clear();
+            }
+            break;
+        }
+        return sizes;
+    }
+
+    /*
+      A clipped tablet range starts just after the previous tablet's end row, so the
+      tablet holding it is the first whose end row is at or after the range start.
+     */
+    private static long estimate(SortedMap<Text, Long> sizes, Range range) {
+        SortedMap<Text, Long> after = range.isInfiniteStartKey() ? sizes : sizes.tailMap(range.getStartKey().getRow());
+        for (Map.Entry<Text, Long> entry : after.entrySet()) {
+            if(entry.getKey().getLength() > 0)
+                return entry.getValue();
+        }
+        Long last = sizes.get(new Text());
+        return last == null ? 0 : last;
+    }
+
+    static class Piece implements Comparable<Piece> {
+        private final RangeInputSplit split;
+        private final Range range;
+        private final long size;
+
+        Piece(RangeInputSplit split, Range range, long size) {
+            this.split = split;
+            this.range = range;
+            this.size = size;
+        }
+
+        Range getRange() {
+            return range;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        @Override
+        public int compareTo(Piece other) {
+            return range.compareTo(other.range);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package org.apache.accumulo.storagehandler;
 
 import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.admin.TableOperations;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.accumulo.storagehandler.limit.LimitPushdown;
 import org.apache.accumulo.storagehandler.predicate.AccumuloPredicateHandler;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.metastore.HiveMetaHook;
@@ -16,6 +18,7 @@ import org.apache.hadoop.hive.ql.plan.TableDesc;
 import org.apache.hadoop.hive.ql.security.authorization.HiveAuthorizationProvider;
 import org.apache.hadoop.hive.serde2.Deserializer;
 import org.apache.hadoop.hive.serde2.SerDe;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.InputFormat;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.OutputFormat;
@@ -41,6 +44,25 @@ public class AccumuloStorageHandler
     }
     private AccumuloPredicateHandler predicateHandler = AccumuloPredicateHandler.getInstance();
 
+    //optional table properties passed through to the job when set.
+    private static final String[] OPTIONAL_JOB_PROPERTIES = {
+            AccumuloSerde.NO_ITERATOR_PUSHDOWN,
+            AccumuloSerde.NO_PROJECTION_PUSHDOWN,
+            AccumuloSerde.LOCALITY_GROUPS,
+            AccumuloSerde.READER_MODE,
+            AccumuloSerde.BATCH_READER_THREADS,
+            AccumuloSerde.BATCH_RANGE_THRESHOLD,
+            AccumuloSerde.ITERATOR_FILTER_MODE,
+            AccumuloSerde.AUTHORIZATIONS_TTL,
+            AccumuloSerde.PREFETCH_DEPTH,
+            AccumuloSerde.SPLIT_TARGET_SIZE,
+            AccumuloSerde.WRITER_MODE,
+            AccumuloSerde.BULK_DIRECTORY,
+            AccumuloSerde.WRITER_MAX_MEMORY,
+            AccumuloSerde.WRITER_MAX_LATENCY,
+            AccumuloSerde.WRITER_THREADS
+    };
+
     private Connector getConnector()
             throws MetaException{
 
@@ -67,11 +89,18 @@ public class AccumuloStorageHandler
                 tblProperties.getProperty(AccumuloSerde.COLUMN_MAPPINGS));
         String tableName = tblProperties.getProperty(AccumuloSerde.TABLE_NAME);
         jobProps.put(AccumuloSerde.TABLE_NAME, tableName);
-        String useIterators = tblProperties.getProperty(AccumuloSerde.NO_ITERATOR_PUSHDOWN);
-        if(useIterators != null) {
-            jobProps.put(AccumuloSerde.NO_ITERATOR_PUSHDOWN, useIterators);
-        }
+        if(desc.getTableName() != null)
+            jobProps.put(AccumuloSerde.HIVE_TABLE_NAME, desc.getTableName());
+        copyOptionalProperties(tblProperties, jobProps);
+    }
 
+    private void copyOptionalProperties(Properties tblProperties, Map<String, String> jobProps) {
+        for(String property : OPTIONAL_JOB_PROPERTIES) {
+            String value = tblProperties.getProperty(property);
+            if(value != null) {
+                jobProps.put(property, value);
+            }
+        }
     }
 
     private String getTableName(Table table) throws MetaException{
@@ -114,15 +143,17 @@ public class AccumuloStorageHandler
                 props.getProperty(AccumuloSerde.COLUMN_MAPPINGS));
         properties.put(AccumuloSerde.TABLE_NAME,
                 props.getProperty(AccumuloSerde.TABLE_NAME));
-        String useIterators = props.getProperty(AccumuloSerde.NO_ITERATOR_PUSHDOWN);
-        if(useIterators != null) {
-            properties.put(AccumuloSerde.NO_ITERATOR_PUSHDOWN, useIterators);
-        }
+        copyOptionalProperties(props, properties);
     }
 
     @Override
-    public void configureOutputJobProperties(TableDesc tableDesc, Map<String, String> map) {
-        //TODO: implement for serialization to Accumulo
+    public void configureOutputJobProperties(TableDesc tableDesc, Map<String, String> properties) {
+        Properties props = tableDesc.getProperties();
+        properties.put(AccumuloSerde.COLUMN_MAPPINGS,
+                props.getProperty(AccumuloSerde.COLUMN_MAPPINGS));
+        properties.put(AccumuloSerde.TABLE_NAME,
+                props.getProperty(AccumuloSerde.TABLE_NAME));
+        copyOptionalProperties(props, properties);
     }
 
     @Override
@@ -152,10 +183,24 @@ public class AccumuloStorageHandler
             String columnMapping = serdeParams.get(AccumuloSerde.COLUMN_MAPPINGS);
             if (columnMapping == null)
                 throw new MetaException(AccumuloSerde.COLUMN_MAPPINGS + " missing from SERDEPROPERTIES");
+            String localityGroups = serdeParams.get(AccumuloSerde.LOCALITY_GROUPS);
+            Map<String, Set<Text>> groups = localityGroups == null ? null :
+                    AccumuloHiveUtils.parseLocalityGroups(localityGroups);
             if (!tableOpts.exists(tblName)) {
                 if(!isExternal) {
                     tableOpts.create(tblName);
-                    tableOpts.online(tblName);
+                    if(groups != null)
+                        tableOpts.setLocalityGroups(tblName, groups);
+                    //split before the first INSERT, so the load is spread over tablet servers from the start.
+                    //a sharded rowID gets one tablet per shard unless split points are declared.
+                    SortedSet<Text> splits = AccumuloHiveUtils.getSplitPoints(serdeParams, conf);
+                    AccumuloRowIdShards shards = AccumuloRowIdShards.fromColumnMapping(columnMapping);
+                    if(splits.isEmpty() && shards != null)
+                        splits = shards.splitPoints();
+                    if(!splits.isEmpty()) {
+                        tableOpts.addSplits(tblName, splits);
+                        log.info("Created " + tblName + " with " + (splits.size() + 1) + " tablets");
+                    }
                 } else {
                     throw new MetaException("Accumulo table " + tblName + " doesn't exist even though declared external");
                 }
@@ -163,6 +208,12 @@ public class AccumuloStorageHandler
                 if (!isExternal) {
                     throw new MetaException("Table " + tblName + " already exists. Use CREATE EXTERNAL TABLE to register with Hive.");
                 }
+                if (groups != null)
+                    log.info(AccumuloSerde.LOCALITY_GROUPS + " only guides scans of external table " + tblName +
+                            ". Its locality groups are left as configured in Accumulo.");
+                if (serdeParams.get(AccumuloSerde.SPLITS) != null || serdeParams.get(AccumuloSerde.SPLITS_UNIFORM) != null ||
+                        serdeParams.get(AccumuloSerde.SPLITS_SAMPLE) != null)
+                    log.info("Split points are only applied to tables Hive creates, not to external table " + tblName);
             }
 
         } catch (AccumuloSecurityException e) {
@@ -174,7 +225,9 @@ public class AccumuloStorageHandler
         } catch (TableNotFoundException e) {
             throw new MetaException(StringUtils.stringifyException(e));
         } catch (IllegalArgumentException e) {
-            log.info("Error parsing column mapping");
+            log.info("Invalid table properties: " + e.getMessage());
+            throw new MetaException(StringUtils.stringifyException(e));
+        } catch (IOException e) {
             throw new MetaException(StringUtils.stringifyException(e));
         }
     }
@@ -236,7 +289,16 @@ public class AccumuloStorageHandler
                                                   Deserializer deserializer,
                                                   ExprNodeDesc desc) {
         if(conf.get(AccumuloSerde.NO_ITERATOR_PUSHDOWN) == null){
-            return predicateHandler.decompose(conf, desc);
+            DecomposedPredicate decomposed = predicateHandler.decompose(conf, desc);
+            //rows rebuilt from partial aggregates carry no values for Hive to filter on,
+            //and a limit counts rows before Hive filters them.
+            String pushdown = AggregatePushdown.isRequested(conf) ? AccumuloSerde.AGGREGATE_PUSHDOWN :
+                              LimitPushdown.isRequested(conf) ? AccumuloSerde.LIMIT_PUSHDOWN : null;
+            if(pushdown != null && (decomposed == null || decomposed.residualPredicate != null))
+                throw new IllegalArgumentException(pushdown + " requires every WHERE predicate " +
+                        "to be pushed down. Not pushed: " +
+                        (decomposed == null ? desc : decomposed.residualPredicate).getExprString());
+            return decomposed;
         } else {
             log.info("Set to ignore iterator. skipping predicate handler");
             return null;
@@ -0,0 +1,193 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes mutations as sorted RFiles and bulk imports them when the task closes.
+ *
+ * Cells are buffered in key order up to {@link AccumuloSerde#WRITER_MAX_MEMORY}. Each full
+ * buffer is written as one RFile per tablet of the table's split points at the time the
+ * writer opened, so every file is assigned to a single tablet on import. Closing the writer
+ * imports the task's files with importDirectory, and Accumulo stamps the cells with the
+ * import time. An aborted task deletes its files instead.
+ *
+ * Hive 0.10 gives a storage handler no job level commit, so each attempt imports its own
+ * files. Speculative attempts would import the same rows twice with different timestamps,
+ * so {@link HiveAccumuloTableOutputFormat} refuses bulk writes unless speculative execution
+ * is off. A task that fails after its import started is retried and imports its rows again.
+ */
+public class BulkRecordWriter implements RecordWriter {
+
+    //rough TreeMap entry and object header cost per buffered cell.
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private static final Logger log = Logger.getLogger(BulkRecordWriter.class);
+
+    private final Connector connector;
+    private final String tableName;
+    private final Configuration conf;
+    private final FileSystem fs;
+    private final Path taskDir;
+    private final Path filesDir;
+    private final Path failuresDir;
+    private final List<Text> splits;
+    private final long maxMemory;
+    private final TreeMap<Key, Value> buffer = new TreeMap<Key, Value>();
+    private final long start = System.currentTimeMillis();
+    private long bufferedBytes = 0;
+    private long cells = 0;
+    private int numFiles = 0;
+
+    /**
+     *
+     * @param taskDir directory for this task's files, created if missing and deleted once imported.
+     * @param maxMemory bytes of cells to buffer before writing files.
+     */
+    public BulkRecordWriter(Connector connector, String tableName, Path taskDir, Configuration conf, long maxMemory)
+            throws IOException {
+        this.connector = connector;
+        this.tableName = tableName;
+        this.conf = conf;
+        this.taskDir = taskDir;
+        this.maxMemory = maxMemory;
+        fs = taskDir.getFileSystem(conf);
+        filesDir = new Path(taskDir, "files");
+        failuresDir = new Path(taskDir, "failures");
+        if(!fs.mkdirs(filesDir) || !fs.mkdirs(failuresDir))
+            throw new IOException("Cannot create bulk import directories under " + taskDir);
+        try {
+            splits = Lists.newArrayList(connector.tableOperations().listSplits(tableName));
+        } catch (TableNotFoundException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        } catch (AccumuloSecurityException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        } catch (AccumuloException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        }
+        Collections.sort(splits);
+    }
+
+    @Override
+    public void write(Writable writable) throws IOException {
+        if(!(writable instanceof Mutation))
+            throw new IOException("Expected Mutation. Got " + writable.getClass().getName());
+        Mutation mutation = (Mutation) writable;
+        byte[] row = mutation.getRow();
+        for (ColumnUpdate update : mutation.getUpdates()) {
+            Key key = new Key(row, update.getColumnFamily(), update.getColumnQualifier(),
+                    update.getColumnVisibility(), update.hasTimestamp() ? update.getTimestamp() : 0, update.isDeleted());
+            Value value = new Value(update.getValue(), false);
+            buffer.put(key, value);
+            bufferedBytes += key.getSize() + value.getSize() + ENTRY_OVERHEAD;
+        }
+        if(bufferedBytes >= maxMemory)
+            flush();
+    }
+
+    /*
+      Write the buffer as one file per tablet. Tablet i holds rows up to and including split i,
+      the last tablet everything after the last split.
+     */
+    private void flush() throws IOException {
+        FileSKVWriter writer = null;
+        int tablet = -1;
+        boolean written = false;
+        try {
+            for (Map.Entry<Key, Value> entry : buffer.entrySet()) {
+                Key key = entry.getKey();
+                if(writer == null || (tablet < splits.size() && key.compareRow(splits.get(tablet)) > 0)) {
+                    if(writer != null) {
+                        writer.close();
+                        writer = null;
+                    }
+                    tablet = tabletFor(key.getRow());
+                    Path file = new Path(filesDir, "part-" + numFiles++ + "." + RFile.EXTENSION);
+                    writer = FileOperations.getInstance().openWriter(file.toString(), fs, conf,
+                            AccumuloConfiguration.getDefaultConfiguration());
+                    writer.startDefaultLocalityGroup();
+                }
+                writer.append(key, entry.getValue());
+                cells++;
+            }
+            written = true;
+        } finally {
+            if(writer != null) {
+                if(written)
+                    writer.close();
+                else
+                    closeAfterFailure(writer);
+            }
+        }
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    //the failure that got here is the one to report.
+    private void closeAfterFailure(FileSKVWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn("Cannot close bulk file after a failed write: " + e.getMessage());
+        }
+    }
+
+    private int tabletFor(Text row) {
+        int pos = Collections.binarySearch(splits, row);
+        return pos >= 0 ? pos : -(pos + 1);
+    }
+
+    @Override
+    public void close(boolean abort) throws IOException {
+        if(abort) {
+            fs.delete(taskDir, true);
+            return;
+        }
+        flush();
+        if(numFiles > 0) {
+            try {
+                connector.tableOperations().importDirectory(tableName, filesDir.toString(), failuresDir.toString(), true);
+            } catch (TableNotFoundException e) {
+                throw new IOException(StringUtils.stringifyException(e));
+            } catch (AccumuloException e) {
+                throw new IOException(StringUtils.stringifyException(e));
+            } catch (AccumuloSecurityException e) {
+                throw new IOException(StringUtils.stringifyException(e));
+            }
+            FileStatus[] failures = fs.listStatus(failuresDir);
+            if(failures != null && failures.length > 0)
+                throw new IOException(failures.length + " files failed to import into " + tableName +
+                        ", left in " + failuresDir);
+        }
+        fs.delete(taskDir, true);
+        if(log.isInfoEnabled())
+            log.info("Bulk imported " + cells + " cells in " + numFiles + " files into " + tableName + " in " +
+                    (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,172 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.util.Pair;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.accumulo.storagehandler.limit.LimitPushdown;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.util.StringUtils;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads every range of an AccumuloSplit concurrently through a BatchScanner.
+ *
+ * BatchScanner results arrive in no particular order across ranges, so a WholeRowIterator
+ * is placed at the top of the iterator stack to keep each row together. The extra
+ * encoding level is removed client-side before the row is handed to Hive.
+ *
+ * Progress is the average position reached within each range, estimated from the row
+ * bytes the same way as for the Scanner backed reader, since ranges are read in parallel.
+ */
+public class HiveAccumuloBatchRecordReader extends HiveAccumuloRecordReader {
+
+    public static final String ROW_ITERATOR_NAME = "hive.accumulo.batch.row";
+    //applied after every pushed down filter iterator.
+    public static final int ROW_ITERATOR_PRIORITY = Integer.MAX_VALUE;
+
+    private final BatchScanner scanner;
+    private final Iterator<Map.Entry<Key,Value>> iter;
+    private final List<Range> sortedRanges;
+    private final float[] rangeProgress;
+    private boolean done = false;
+
+    /**
+     *
+     * @param jobConf job configuration.
+     * @param connector connector to read from.
+     * @param tableName Accumulo table.
+     * @param auths scan authorizations.
+     * @param iterators filter iterators to apply before the row is assembled.
+     * @param columns colfam/qual pairs to fetch.
+     * @param ranges all ranges for this split.
+     * @param numThreads BatchScanner query threads.
+     * @param encodingLevels number of row encodings added by the filter iterators.
+     * @param aggregate aggregate pushed for this scan, or null to read rows.
+     * @param limit limit pushed for this scan, or null to read every row.
+     * @throws IOException
+     */
+    public HiveAccumuloBatchRecordReader(JobConf jobConf,
+                                         Connector connector,
+                                         String tableName,
+                                         Authorizations auths,
+                                         List<IteratorSetting> iterators,
+                                         Collection<Pair<Text, Text>> columns,
+                                         Collection<Range> ranges,
+                                         int numThreads,
+                                         int encodingLevels,
+                                         AggregatePushdown aggregate,
+                                         LimitPushdown limit) throws IOException {
+        super(jobConf, encodingLevels + 1, aggregate, limit); //+1 for the row assembly iterator.
+        try {
+            scanner = connector.createBatchScanner(tableName, auths, numThreads);
+        } catch (TableNotFoundException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        }
+        scanner.setRanges(ranges);
+        for(IteratorSetting is : iterators)
+            scanner.addScanIterator(is);
+        scanner.addScanIterator(new IteratorSetting(ROW_ITERATOR_PRIORITY, ROW_ITERATOR_NAME, WholeRowIterator.class));
+        for(Pair<Text, Text> column : columns) {
+            if(column.getSecond() == null)
+                scanner.fetchColumnFamily(column.getFirst());
+            else
+                scanner.fetchColumn(column.getFirst(), column.getSecond());
+        }
+        iter = scanner.iterator();
+        sortedRanges = Range.mergeOverlapping(ranges);
+        rangeProgress = new float[sortedRanges.size()];
+    }
+
+    @Override
+    protected boolean nextRow(List<Key> keys, List<Value> values) throws IOException {
+        if(!iter.hasNext()) {
+            done = true;
+            return false;
+        }
+        Map.Entry<Key,Value> kv = iter.next();
+        keys.add(kv.getKey());
+        values.add(kv.getValue());
+        track(kv.getKey());
+        return true;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+        if(done || sortedRanges.isEmpty())
+            return done ? 1.0F : 0.0F;
+        float sum = 0;
+        for(float progress : rangeProgress)
+            sum += progress;
+        return sum / rangeProgress.length;
+    }
+
+    private void track(Key key) {
+        int lo = 0;
+        int hi = sortedRanges.size() - 1;
+        while(lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            Range range = sortedRanges.get(mid);
+            if(range.beforeStartKey(key)) {
+                hi = mid - 1;
+            } else if(range.afterEndKey(key)) {
+                lo = mid + 1;
+            } else {
+                rangeProgress[mid] = Math.max(rangeProgress[mid], position(range, key.getRow()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estimate how far row is into range, from the 8 bytes following the prefix the range's
+     * start and end rows share. An infinite start or end counts as the lowest or highest row.
+     *
+     * @return fraction of the range before row, between 0 and 1.
+     */
+    static float position(Range range, Text row) {
+        Text start = range.isInfiniteStartKey() ? new Text() : range.getStartKey().getRow();
+        Text end = range.isInfiniteStopKey() ? null : range.getEndKey().getRow();
+        int prefix = 0;
+        if(end != null) {
+            int shared = Math.min(start.getLength(), end.getLength());
+            while(prefix < shared && start.getBytes()[prefix] == end.getBytes()[prefix])
+                prefix++;
+        }
+        double from = fraction(start, prefix);
+        double to = end == null ? 1.0 : fraction(end, prefix);
+        if(to <= from)
+            return 0.0F;
+        double at = (fraction(row, prefix) - from) / (to - from);
+        return (float) Math.min(1.0, Math.max(0.0, at));
+    }
+
+    private static double fraction(Text row, int offset) {
+        double fraction = 0;
+        double scale = 1.0 / 256;
+        for(int i = offset; i < offset + 8; i++) {
+            if(i < row.getLength())
+                fraction += (row.getBytes()[i] & 0xff) * scale;
+            scale /= 256;
+        }
+        return fraction;
+    }
+
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+    }
+}
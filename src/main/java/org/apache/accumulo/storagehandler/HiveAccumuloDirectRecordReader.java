@@ -0,0 +1,126 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.RowIterator;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.util.Pair;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.accumulo.storagehandler.limit.LimitPushdown;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.util.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one range of a direct AccumuloSplit with a plain Scanner, in the calling process.
+ *
+ * Meant for point lookups and small scans answered by Hive's local fetch task, where
+ * setting up AccumuloRowInputFormat costs more than the read. Also reads a piece of a
+ * subdivided tablet range in scanner reader mode. Scanner results are already in key
+ * order, so rows are assembled client side without an extra encoding level.
+ * The time to the first row and to the last are logged on close.
+ */
+public class HiveAccumuloDirectRecordReader extends HiveAccumuloRecordReader {
+
+    private static final Logger log = Logger.getLogger(HiveAccumuloDirectRecordReader.class);
+
+    private final RowIterator rows;
+    private final Range range;
+    private Text lastRow;
+    private final long startNanos = System.nanoTime();
+    private long firstRowNanos = -1;
+    private long numRows = 0;
+    private boolean done = false;
+
+    /**
+     *
+     * @param jobConf job configuration.
+     * @param connector connector to read from.
+     * @param tableName Accumulo table.
+     * @param auths scan authorizations.
+     * @param iterators iterators to apply on the tablet server.
+     * @param columns colfam/qual pairs to fetch.
+     * @param range range to read.
+     * @param encodingLevels number of row encodings added by the filter iterators.
+     * @param aggregate aggregate pushed for this scan, or null to read rows.
+     * @param limit limit pushed for this scan, or null to read every row.
+     * @throws IOException
+     */
+    public HiveAccumuloDirectRecordReader(JobConf jobConf,
+                                          Connector connector,
+                                          String tableName,
+                                          Authorizations auths,
+                                          List<IteratorSetting> iterators,
+                                          Collection<Pair<Text, Text>> columns,
+                                          Range range,
+                                          int encodingLevels,
+                                          AggregatePushdown aggregate,
+                                          LimitPushdown limit) throws IOException {
+        super(jobConf, encodingLevels, aggregate, limit);
+        Scanner scanner;
+        try {
+            scanner = connector.createScanner(tableName, auths);
+        } catch (TableNotFoundException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        }
+        scanner.setRange(range);
+        this.range = range;
+        for(IteratorSetting is : iterators)
+            scanner.addScanIterator(is);
+        for(Pair<Text, Text> column : columns) {
+            if(column.getSecond() == null)
+                scanner.fetchColumnFamily(column.getFirst());
+            else
+                scanner.fetchColumn(column.getFirst(), column.getSecond());
+        }
+        rows = new RowIterator(scanner);
+    }
+
+    @Override
+    protected boolean nextRow(List<Key> keys, List<Value> values) throws IOException {
+        if(!rows.hasNext()) {
+            done = true;
+            return false;
+        }
+        Iterator<Map.Entry<Key,Value>> row = rows.next();
+        while(row.hasNext()) {
+            Map.Entry<Key,Value> kv = row.next();
+            keys.add(kv.getKey());
+            values.add(kv.getValue());
+        }
+        lastRow = keys.get(0).getRow();
+        if(firstRowNanos < 0)
+            firstRowNanos = System.nanoTime() - startNanos;
+        numRows++;
+        return true;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+        if(done)
+            return 1.0F;
+        return lastRow == null ? 0.0F : HiveAccumuloBatchRecordReader.position(range, lastRow);
+    }
+
+    /**
+     * Scanners hold no resources once read, so only the latency is reported.
+     */
+    @Override
+    public void close() throws IOException {
+        if(log.isInfoEnabled())
+            log.info("Direct read of " + numRows + " rows in " + (System.nanoTime() - startNanos) / 1000000 + " ms" +
+                    (firstRowNanos < 0 ? "" : ", first row after " + firstRowNanos / 1000000 + " ms"));
+    }
+}
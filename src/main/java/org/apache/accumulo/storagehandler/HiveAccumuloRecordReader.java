@@ -0,0 +1,174 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.accumulo.storagehandler.aggregate.PartialRows;
+import org.apache.accumulo.storagehandler.limit.LimitPushdown;
+import org.apache.accumulo.storagehandler.predicate.PrimitiveComparisonFilter;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Base RecordReader for Hive. Subclasses supply the raw key/values for one
+ * Accumulo row at a time, this class strips any row encoding added by iterators
+ * and flattens the remaining key/values into an AccumuloHiveRow. The shard prefix
+ * of a sharded rowID is removed from the row.
+ *
+ * When an aggregate is pushed, each entry read is a partial result and is
+ * turned back into rows for Hive instead. When a limit is pushed, the reader
+ * stops once the split has returned that many rows.
+ */
+public abstract class HiveAccumuloRecordReader implements RecordReader<Text, AccumuloHiveRow> {
+
+    protected final JobConf jobConf;
+    private final AccumuloColumnPlan plan;
+    private final int encodingLevels;
+    private final AggregatePushdown aggregate;
+    private final long rowsPerSplit;
+    private long rowsRead = 0;
+    private PartialRows pending = PartialRows.empty(0);
+    private Iterator<PartialRows> partials = Collections.<PartialRows>emptyList().iterator();
+    private int nextPartial = 0;
+    private String pendingRowId;
+    private List<Key> keys = Lists.newArrayList();
+    private List<Value> values = Lists.newArrayList();
+
+    /**
+     *
+     * @param jobConf job configuration for column lookups.
+     * @param encodingLevels number of WholeRowIterator encodings wrapped around each row.
+     */
+    protected HiveAccumuloRecordReader(JobConf jobConf, int encodingLevels) {
+        this(jobConf, encodingLevels, null);
+    }
+
+    /**
+     *
+     * @param jobConf job configuration for column lookups.
+     * @param encodingLevels number of WholeRowIterator encodings wrapped around each entry.
+     * @param aggregate aggregate pushed for this scan, or null to read rows.
+     */
+    protected HiveAccumuloRecordReader(JobConf jobConf, int encodingLevels, AggregatePushdown aggregate) {
+        this(jobConf, encodingLevels, aggregate, null);
+    }
+
+    /**
+     *
+     * @param jobConf job configuration for column lookups.
+     * @param encodingLevels number of WholeRowIterator encodings wrapped around each entry.
+     * @param aggregate aggregate pushed for this scan, or null to read rows.
+     * @param limit limit pushed for this scan, or null to read every row.
+     */
+    protected HiveAccumuloRecordReader(JobConf jobConf, int encodingLevels, AggregatePushdown aggregate, LimitPushdown limit) {
+        this.jobConf = jobConf;
+        this.plan = AccumuloColumnPlan.fromConf(jobConf);
+        this.encodingLevels = encodingLevels;
+        this.aggregate = aggregate;
+        this.rowsPerSplit = limit == null ? -1 : limit.getRowsPerSplit();
+    }
+
+    /**
+     * Collect the key/values for the next row.
+     *
+     * @return true if a row was read, false if the source is exhausted.
+     * @throws IOException
+     */
+    protected abstract boolean nextRow(List<Key> keys, List<Value> values) throws IOException;
+
+    @Override
+    public Text createKey() {
+        return new Text();
+    }
+
+    @Override
+    public AccumuloHiveRow createValue() {
+        return new AccumuloHiveRow();
+    }
+
+    @Override
+    public long getPos() throws IOException {
+        return 0;
+    }
+
+    @Override
+    public boolean next(Text rowKey, AccumuloHiveRow row) throws IOException {
+        if(aggregate != null)
+            return nextAggregateRow(rowKey, row);
+        if(rowsPerSplit >= 0 && rowsRead >= rowsPerSplit)
+            return false; //Hive's own LIMIT applies the final cut.
+        keys.clear();
+        values.clear();
+        if(!nextRow(keys, values))
+            return false;
+        rowsRead++;
+        row.clear();
+        Text accumuloRow = keys.get(0).getRow();
+        rowKey.set(accumuloRow);
+        AccumuloRowIdShards shards = plan.getRowIdShards();
+        row.setRowId(shards == null ? accumuloRow.toString() : shards.toRowId(accumuloRow));
+        decode();
+        pushToValue(keys, values, row); //after decoding we can push to value.
+        return true;
+    }
+
+    private void decode() throws IOException {
+        for(int i = 0; i < encodingLevels; i++) { //each iterator creates a level of encoding.
+            SortedMap<Key,Value> decoded = PrimitiveComparisonFilter.decodeRow(keys.get(0), values.get(0));
+            keys = Lists.newArrayList(decoded.keySet());
+            values = Lists.newArrayList(decoded.values());
+        }
+    }
+
+    /*
+     Hand out the rows each partial result stands for, reading the next partial once they run out.
+     */
+    private boolean nextAggregateRow(Text rowKey, AccumuloHiveRow row) throws IOException {
+        while(!pending.next()) {
+            if(partials.hasNext()) {
+                pending = partials.next();
+                continue;
+            }
+            if(nextPartial >= values.size()) {
+                keys.clear();
+                values.clear();
+                nextPartial = 0;
+                if(!nextRow(keys, values))
+                    return false;
+                decode();
+                pendingRowId = keys.get(0).getRow().toString();
+            }
+            partials = aggregate.rowsFor(values.get(nextPartial++).get()).iterator();
+        }
+        rowKey.set(pendingRowId);
+        row.clear();
+        row.setRowId(pendingRowId);
+        if(pending.group() != null)
+            row.add(aggregate.getGroupColumn().getCf(), aggregate.getGroupColumn().getQual(), pending.group());
+        if(pending.value() != null)
+            row.add(aggregate.getColumn().getCf(), aggregate.getColumn().getQual(), pending.value());
+        return true;
+    }
+
+    //flatten key/value pairs into row object for use in Serde. Unmapped columns are skipped.
+    private void pushToValue(List<Key> keys, List<Value> values, AccumuloHiveRow row)
+            throws IOException {
+        Iterator<Key> kIter = keys.iterator();
+        Iterator<Value> vIter = values.iterator();
+        while(kIter.hasNext()) {
+            Key k = kIter.next();
+            Value v = vIter.next();
+            AccumuloColumnPlan.Column column = plan.getColumn(k.getColumnFamilyData(), k.getColumnQualifierData());
+            if(column != null)
+                row.add(column.getCf(), column.getQual(), column.rawValue(v.get()));
+        }
+    }
+}
@@ -8,10 +8,13 @@ import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.core.util.PeekingIterator;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.accumulo.storagehandler.limit.LimitPushdown;
 import org.apache.accumulo.storagehandler.predicate.AccumuloPredicateHandler;
-import org.apache.accumulo.storagehandler.predicate.PrimitiveComparisonFilter;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
 import org.apache.hadoop.hive.serde2.SerDeException;
@@ -25,6 +28,7 @@ import org.apache.hadoop.mapreduce.*;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.util.StringUtils;
+import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.*;
@@ -41,11 +45,13 @@ public class HiveAccumuloTableInputFormat
         implements org.apache.hadoop.mapred.InputFormat<Text, AccumuloHiveRow> {
 
     private static final Pattern PIPE = Pattern.compile("[|]");
+    private static final Logger log = Logger.getLogger(HiveAccumuloTableInputFormat.class);
     private AccumuloPredicateHandler predicateHandler = AccumuloPredicateHandler.getInstance();
     private Instance instance;
 
     @Override
     public InputSplit[] getSplits(JobConf jobConf, int numSplits) throws IOException {
+        long start = System.currentTimeMillis();
         String id = jobConf.get(AccumuloSerde.INSTANCE_ID);
         String user = jobConf.get(AccumuloSerde.USER_NAME);
         String pass = jobConf.get(AccumuloSerde.USER_PASS);
@@ -53,7 +59,21 @@ public class HiveAccumuloTableInputFormat
         instance = getInstance(id, zookeepers);
         Job job = new Job(jobConf);
         try {
-            Connector connector =  instance.getConnector(user,  new PasswordToken(pass.getBytes()));
+            List<Range> ranges = predicateHandler.getRanges(jobConf);
+            if(ranges != null && ranges.isEmpty()) { //Accumulo treats no ranges as the whole table.
+                log.info("rowID predicates cannot match any row. Returning no splits");
+                return new InputSplit[0];
+            }
+            if(useDirectReader(jobConf, ranges)) {
+                List<Range> directRanges = ranges != null ? ranges : Lists.newArrayList(new Range());
+                InputSplit split = AccumuloSplit.direct(directRanges,
+                        org.apache.hadoop.mapred.FileInputFormat.getInputPaths(jobConf)[0]);
+                if(log.isInfoEnabled())
+                    log.info("Direct split for " + directRanges.size() + " ranges in " +
+                            (System.currentTimeMillis() - start) + " ms");
+                return new InputSplit[] {split};
+            }
+            Connector connector =  AccumuloConnectionCache.getConnector(instance, user, pass);
             String colMapping = jobConf.get(AccumuloSerde.COLUMN_MAPPINGS);
             List<String> colQualFamPairs = AccumuloHiveUtils.parseColumnMapping(colMapping);
             configure(job, jobConf, connector, colQualFamPairs);
@@ -66,6 +86,20 @@ public class HiveAccumuloTableInputFormat
             JobContext context = new JobContext(job.getConfiguration(), job.getJobID());
             Path[] tablePaths = FileInputFormat.getInputPaths(context);
             List<org.apache.hadoop.mapreduce.InputSplit> splits = super.getSplits(job); //get splits from Accumulo.
+            LimitPushdown limit = LimitPushdown.fromConf(jobConf);
+            if (limit != null && !limit.isTopN() && splits.size() > 1 && predicateHandler.getIterators(jobConf).isEmpty())
+                return limitSplits(splits, tablePaths[0],
+                        jobConf.getInt(AccumuloSerde.LIMIT_SPLITS, AccumuloSerde.DEFAULT_LIMIT_SPLITS));
+            long targetSize = jobConf.getLong(AccumuloSerde.SPLIT_TARGET_SIZE, 0);
+            if (targetSize <= 0 && (useBatchReader(jobConf) || manyRanges(jobConf, ranges)))
+                return groupByLocation(splits, tablePaths[0],
+                        jobConf.getInt(AccumuloSerde.BATCH_SPLIT_RANGES, AccumuloSerde.DEFAULT_BATCH_SPLIT_RANGES));
+            if (targetSize > 0) {
+                AccumuloSplitPlanner planner = new AccumuloSplitPlanner(connector,
+                        jobConf.get(AccumuloSerde.TABLE_NAME), targetSize);
+                List<AccumuloSplit> planned = planner.plan(splits, numSplits, tablePaths[0]);
+                return planned.toArray(new InputSplit[planned.size()]);
+            }
             InputSplit[] newSplits = new InputSplit[splits.size()];
             for (int i = 0; i < splits.size(); i++) {
                 RangeInputSplit ris = (RangeInputSplit)splits.get(i);
@@ -81,12 +115,119 @@ public class HiveAccumuloTableInputFormat
         }
     }
 
+    /*
+      Group tablet ranges by hosting tablet server so one batch reader fetches several at once.
+      Each group holds at most maxRanges ranges, so a few large tablet servers still get
+      several splits. A split target size packs by estimated size instead, see getSplits.
+     */
+    private InputSplit[] groupByLocation(List<org.apache.hadoop.mapreduce.InputSplit> splits, Path tablePath,
+                                         int maxRanges) throws IOException {
+        if (maxRanges < 1)
+            throw new IllegalArgumentException(AccumuloSerde.BATCH_SPLIT_RANGES + " must be positive: " + maxRanges);
+        Map<String, List<RangeInputSplit>> byLocation = new LinkedHashMap<String, List<RangeInputSplit>>();
+        for (org.apache.hadoop.mapreduce.InputSplit split : splits) {
+            RangeInputSplit ris = (RangeInputSplit)split;
+            String[] locations = ris.getLocations();
+            String location = locations != null && locations.length > 0 ? locations[0] : "";
+            List<RangeInputSplit> group = byLocation.get(location);
+            if (group == null) {
+                group = Lists.newArrayList();
+                byLocation.put(location, group);
+            }
+            group.add(ris);
+        }
+        List<InputSplit> newSplits = Lists.newArrayList();
+        for (List<RangeInputSplit> group : byLocation.values()) {
+            for (List<RangeInputSplit> part : Lists.partition(group, maxRanges)) {
+                List<Range> ranges = Lists.newArrayList();
+                for (RangeInputSplit ris : part)
+                    ranges.add(ris.getRange());
+                newSplits.add(new AccumuloSplit(part.get(0), ranges, tablePath));
+            }
+        }
+        if (log.isInfoEnabled())
+            log.info("Grouped " + splits.size() + " tablet ranges into " + newSplits.size() + " batch splits");
+        return newSplits.toArray(new InputSplit[newSplits.size()]);
+    }
+
+    /*
+      Without WHERE filters a pushed LIMIT is met by the first rows of any tablet, so tablet ranges
+      are packed in order into at most maxSplits splits, each read by the batch reader and stopped
+      at the limit. With filters the matching rows may be sparse, so every tablet keeps its split.
+     */
+    private InputSplit[] limitSplits(List<org.apache.hadoop.mapreduce.InputSplit> splits, Path tablePath,
+                                     int maxSplits) {
+        if (maxSplits < 1)
+            throw new IllegalArgumentException(AccumuloSerde.LIMIT_SPLITS + " must be positive: " + maxSplits);
+        int perSplit = (splits.size() + maxSplits - 1) / maxSplits;
+        List<InputSplit> newSplits = Lists.newArrayList();
+        for (List<org.apache.hadoop.mapreduce.InputSplit> part : Lists.partition(splits, perSplit)) {
+            List<Range> ranges = Lists.newArrayList();
+            for (org.apache.hadoop.mapreduce.InputSplit split : part)
+                ranges.add(((RangeInputSplit)split).getRange());
+            newSplits.add(new AccumuloSplit((RangeInputSplit)part.get(0), ranges, tablePath));
+        }
+        if (log.isInfoEnabled())
+            log.info("Limit pushed, reading " + splits.size() + " tablet ranges from " + newSplits.size() + " splits");
+        return newSplits.toArray(new InputSplit[newSplits.size()]);
+    }
+
+    private boolean useBatchReader(JobConf conf) {
+        return AccumuloSerde.BATCH_READER.equals(conf.get(AccumuloSerde.READER_MODE, AccumuloSerde.SCANNER_READER));
+    }
+
+    /*
+     Point lookups on a few rowIDs are answered faster by a Scanner in the reading process than by
+     resolving tablets for splits. accumulo.reader.mode=direct forces it for other small queries.
+     */
+    private boolean useDirectReader(JobConf conf, List<Range> ranges) {
+        String mode = conf.get(AccumuloSerde.READER_MODE);
+        if (mode != null)
+            return mode.equals(AccumuloSerde.DIRECT_READER);
+        if (ranges == null ||
+            ranges.size() > conf.getInt(AccumuloSerde.DIRECT_RANGE_THRESHOLD, AccumuloSerde.DEFAULT_DIRECT_RANGE_THRESHOLD))
+            return false;
+        for (Range range : ranges) {
+            if (range.isInfiniteStartKey() || !range.equals(new Range(range.getStartKey().getRow())))
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     IN lists and ORs over rowID can produce enough ranges that one scanner split per range
+     costs more than the scan. Unless a reader mode was chosen, group them for the batch reader.
+     */
+    private boolean manyRanges(JobConf conf, List<Range> ranges) {
+        if (ranges == null || conf.get(AccumuloSerde.READER_MODE) != null)
+            return false;
+        return ranges.size() > conf.getInt(AccumuloSerde.BATCH_RANGE_THRESHOLD, AccumuloSerde.DEFAULT_BATCH_RANGE_THRESHOLD);
+    }
+
+    /*
+     Only iterators that extend WholeRowIterator wrap each row in an encoded key/value.
+     Streaming filters pass cells through as is.
+     */
+    private int countEncodingIterators(List<IteratorSetting> iterators)
+            throws IOException {
+        int count = 0;
+        for(IteratorSetting is : iterators) {
+            try {
+                if(WholeRowIterator.class.isAssignableFrom(Class.forName(is.getIteratorClass())))
+                    count++;
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+        return count;
+    }
+
     private Instance getInstance(String id,
                                  String zookeepers) {
         if(instance != null) {
             return instance;
         } else {
-            return new ZooKeeperInstance(id, zookeepers);
+            return AccumuloConnectionCache.getInstance(id, zookeepers);
         }
     }
 
@@ -111,7 +252,17 @@ public class HiveAccumuloTableInputFormat
             InputSplit inputSplit,
             final JobConf jobConf,
             final Reporter reporter) throws IOException {
+        RecordReader<Text, AccumuloHiveRow> reader = getAccumuloRecordReader(inputSplit, jobConf, reporter);
+        int prefetchDepth = jobConf.getInt(AccumuloSerde.PREFETCH_DEPTH, 0);
+        if(prefetchDepth > 0)
+            return new PrefetchingRecordReader(reader, prefetchDepth, reporter);
+        return reader;
+    }
 
+    private RecordReader<Text, AccumuloHiveRow> getAccumuloRecordReader(
+            InputSplit inputSplit,
+            final JobConf jobConf,
+            final Reporter reporter) throws IOException {
 
         String user = jobConf.get(AccumuloSerde.USER_NAME);
         String pass = jobConf.get(AccumuloSerde.USER_PASS);
@@ -119,13 +270,15 @@ public class HiveAccumuloTableInputFormat
         String zookeepers = jobConf.get(AccumuloSerde.ZOOKEEPERS);
         instance = getInstance(id, zookeepers);
         AccumuloSplit as = (AccumuloSplit)inputSplit;
+        if (as.isDirect())
+            return getDirectRecordReader(as, jobConf);
         RangeInputSplit ris = as.getSplit();
         Job job = new Job(jobConf);
         try {
             String colMapping = jobConf.get(AccumuloSerde.COLUMN_MAPPINGS);
             List<String> colQualFamPairs;
             colQualFamPairs = AccumuloHiveUtils.parseColumnMapping(colMapping);
-            Connector connector = instance.getConnector(user, new PasswordToken(pass.getBytes()));
+            Connector connector = AccumuloConnectionCache.getConnector(instance, user, pass);
             configure(job, jobConf, connector, colQualFamPairs);
 
             List<Integer> readColIds = ColumnProjectionUtils.getReadColumnIDs(jobConf);
@@ -135,6 +288,35 @@ public class HiveAccumuloTableInputFormat
                         " numbers less than the hive table columns. (" + readColIds.size() + ")");
 
 
+            //a pushed aggregate consumes the encoded rows on the tablet server.
+            final AggregatePushdown aggregate = AggregatePushdown.fromConf(jobConf);
+            final LimitPushdown limit = LimitPushdown.fromConf(jobConf);
+            final int itrCount = aggregate != null ? 0 : countEncodingIterators(getIterators(job));
+            //a planned split may hold several tablet ranges, or just part of one.
+            if (useBatchReader(jobConf) || as.getRanges().size() > 1) {
+                return new HiveAccumuloBatchRecordReader(jobConf, connector,
+                        jobConf.get(AccumuloSerde.TABLE_NAME),
+                        getScanAuthorizations(job),
+                        getIterators(job),
+                        getFetchColumns(jobConf, colQualFamPairs),
+                        as.getRanges(),
+                        jobConf.getInt(AccumuloSerde.BATCH_READER_THREADS, AccumuloSerde.DEFAULT_BATCH_READER_THREADS),
+                        itrCount,
+                        aggregate,
+                        limit);
+            }
+            if (!as.getRanges().get(0).equals(ris.getRange())) {
+                return new HiveAccumuloDirectRecordReader(jobConf, connector,
+                        jobConf.get(AccumuloSerde.TABLE_NAME),
+                        getScanAuthorizations(job),
+                        getIterators(job),
+                        getFetchColumns(jobConf, colQualFamPairs),
+                        as.getRanges().get(0),
+                        itrCount,
+                        aggregate,
+                        limit);
+            }
+
             //for use to initialize final record reader.
             final TaskAttemptContext tac =
                     new TaskAttemptContext(job.getConfiguration(), new TaskAttemptID()) {
@@ -148,33 +330,14 @@ public class HiveAccumuloTableInputFormat
                     <Text,PeekingIterator<Map.Entry<Key,Value>>> recordReader =
                     createRecordReader(ris, tac);
             recordReader.initialize(ris, tac);
-            final int itrCount = getIterators(job).size();
-
-            return new RecordReader<Text, AccumuloHiveRow>() {
 
-                protected Text currentK;
-                protected AccumuloHiveRow currentV;
+            return new HiveAccumuloRecordReader(jobConf, itrCount, aggregate, limit) {
 
                 @Override
                 public void close() throws IOException {
                     recordReader.close();
                 }
 
-                @Override
-                public Text createKey() {
-                    return new Text();
-                }
-
-                @Override
-                public AccumuloHiveRow createValue() {
-                    return new AccumuloHiveRow();
-                }
-
-                @Override
-                public long getPos() throws IOException {
-                    return 0;
-                }
-
                 @Override
                 public float getProgress() throws IOException {
                     float progress = 0.0F;
@@ -189,54 +352,20 @@ public class HiveAccumuloTableInputFormat
                 }
 
                 @Override
-                public boolean next(Text rowKey, AccumuloHiveRow row) throws IOException {
-                    boolean next;
+                protected boolean nextRow(List<Key> keys, List<Value> values) throws IOException {
                     try {
-                        next = recordReader.nextKeyValue();
-                        Text key = recordReader.getCurrentKey();
+                        if(!recordReader.nextKeyValue())
+                            return false;
                         PeekingIterator<Map.Entry<Key,Value>> iter = recordReader.getCurrentValue();
-                        if(next) {
-                            row.clear();
-                            row.setRowId(key.toString());
-                            List<Key> keys = Lists.newArrayList();
-                            List<Value> values = Lists.newArrayList();
-                            while(iter.hasNext()) {  //collect key/values for this row.
-                                Map.Entry<Key, Value> kv = iter.next();
-                                keys.add(kv.getKey());
-                                values.add(kv.getValue());
-
-                            }
-                            if(itrCount == 0) {  //no encoded values, we can push directly to row.
-                                pushToValue(keys, values, row);
-                            }
-                            else {
-                                for(int i = 0; i < itrCount; i++) { //each iterator creates a level of encoding.
-                                    SortedMap<Key,Value> decoded =
-                                            PrimitiveComparisonFilter.decodeRow(keys.get(0), values.get(0));
-                                    keys = Lists.newArrayList(decoded.keySet());
-                                    values = Lists.newArrayList(decoded.values());
-                                }
-                                pushToValue(keys, values, row); //after decoding we can push to value.
-                            }
+                        while(iter.hasNext()) {  //collect key/values for this row.
+                            Map.Entry<Key, Value> kv = iter.next();
+                            keys.add(kv.getKey());
+                            values.add(kv.getValue());
                         }
                     } catch (InterruptedException e) {
                         throw new IOException(StringUtils.stringifyException(e));
                     }
-                    return next;
-                }
-
-                //flatten key/value pairs into row object for use in Serde.
-                private void pushToValue(List<Key> keys, List<Value> values, AccumuloHiveRow row)
-                        throws IOException {
-                    Iterator<Key> kIter = keys.iterator();
-                    Iterator<Value> vIter = values.iterator();
-                    while(kIter.hasNext()) {
-                        Key k = kIter.next();
-                        Value v = vIter.next();
-                        byte[] utf8Val = AccumuloHiveUtils.valueAsUTF8bytes(jobConf, k, v);
-                        row.add(k.getColumnFamily().toString(),
-                                k.getColumnQualifier().toString(),utf8Val);
-                    }
+                    return true;
                 }
             };
 
@@ -251,8 +380,59 @@ public class HiveAccumuloTableInputFormat
         }
     }
 
+    /*
+      Direct splits skip the Job and AccumuloRowInputFormat setup. The scan is configured with
+      the same iterators, authorizations and columns as configure().
+     */
+    private RecordReader<Text, AccumuloHiveRow> getDirectRecordReader(AccumuloSplit as, JobConf jobConf)
+            throws IOException {
+        String user = jobConf.get(AccumuloSerde.USER_NAME);
+        String pass = jobConf.get(AccumuloSerde.USER_PASS);
+        String tableName = jobConf.get(AccumuloSerde.TABLE_NAME);
+        try {
+            Connector connector = AccumuloConnectionCache.getConnector(instance, user, pass);
+            Authorizations auths = AccumuloConnectionCache.getAuthorizations(connector, user, jobConf);
+            List<IteratorSetting> iterators = scanIterators(jobConf);
+            AggregatePushdown aggregate = AggregatePushdown.fromConf(jobConf);
+            LimitPushdown limit = LimitPushdown.fromConf(jobConf);
+            int itrCount = aggregate != null ? 0 : countEncodingIterators(iterators);
+            Collection<Pair<Text, Text>> columns =
+                    getFetchColumns(jobConf, AccumuloHiveUtils.parseColumnMapping(jobConf.get(AccumuloSerde.COLUMN_MAPPINGS)));
+            if (as.getRanges().size() == 1)
+                return new HiveAccumuloDirectRecordReader(jobConf, connector, tableName, auths, iterators, columns,
+                        as.getRanges().get(0), itrCount, aggregate, limit);
+            return new HiveAccumuloBatchRecordReader(jobConf, connector, tableName, auths, iterators, columns,
+                    as.getRanges(),
+                    jobConf.getInt(AccumuloSerde.BATCH_READER_THREADS, AccumuloSerde.DEFAULT_BATCH_READER_THREADS),
+                    itrCount,
+                    aggregate,
+                    limit);
+        } catch (AccumuloException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        } catch (AccumuloSecurityException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        } catch (SerDeException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        }
+    }
+
+    /*
+      Filter iterators from WHERE predicates, then any pushed aggregate or Top-N on top of them.
+     */
+    private List<IteratorSetting> scanIterators(JobConf conf) throws SerDeException, IOException {
+        List<IteratorSetting> iterators = Lists.newArrayList(predicateHandler.getIterators(conf));
+        int encodingLevels = countEncodingIterators(iterators);
+        AggregatePushdown aggregate = AggregatePushdown.fromConf(conf);
+        if(aggregate != null)
+            iterators.add(aggregate.toSetting(encodingLevels));
+        LimitPushdown limit = LimitPushdown.fromConf(conf);
+        if(limit != null && limit.isTopN())
+            iterators.add(limit.toSetting(encodingLevels));
+        return iterators;
+    }
+
     private void configure(Job job, JobConf conf, Connector connector, List<String> colQualFamPairs)
-            throws AccumuloSecurityException, AccumuloException, SerDeException {
+            throws AccumuloSecurityException, AccumuloException, SerDeException, IOException {
         String instanceId = job.getConfiguration().get(AccumuloSerde.INSTANCE_ID);
         String zookeepers = job.getConfiguration().get(AccumuloSerde.ZOOKEEPERS);
         String user = job.getConfiguration().get(AccumuloSerde.USER_NAME);
@@ -265,14 +445,71 @@ public class HiveAccumuloTableInputFormat
         }
         setConnectorInfo(job, user, new PasswordToken(pass.getBytes()));
         setInputTableName(job, tableName);
-        setScanAuthorizations(job, connector.securityOperations().getUserAuthorizations(user));
-        List<IteratorSetting> iterators = predicateHandler.getIterators(conf); //restrict with any filters found from WHERE predicates.
-        for(IteratorSetting is : iterators)
+        setScanAuthorizations(job, AccumuloConnectionCache.getAuthorizations(connector, user, conf));
+        for(IteratorSetting is : scanIterators(conf)) //restrict with any filters found from WHERE predicates.
             addIterator(job, is);
-        Collection<Range> ranges = predicateHandler.getRanges(conf); //restrict with any ranges found from WHERE predicates.
-        if(ranges.size() > 0)
+        List<Range> ranges = predicateHandler.getRanges(conf); //restrict with any ranges found from WHERE predicates.
+        if(ranges != null && ranges.size() > 0)
             setRanges(job, ranges);
-        fetchColumns(job, getPairCollection(colQualFamPairs));
+        fetchColumns(job, getFetchColumns(conf, colQualFamPairs));
+    }
+
+    /*
+      Only fetch the columns Hive reads, plus those the pushed filters and aggregates look at,
+      since columns that are not fetched are invisible to the iterators as well. Rows without
+      any fetched column are not returned. Hive 0.10 cannot tell reading no columns from reading
+      all of them, so an empty projection, or one of just the rowID, fetches every column.
+     */
+    private Collection<Pair<Text, Text>> getFetchColumns(JobConf conf, List<String> colQualFamPairs)
+            throws SerDeException {
+        List<Integer> readColIds = ColumnProjectionUtils.getReadColumnIDs(conf);
+        if (conf.get(AccumuloSerde.NO_PROJECTION_PUSHDOWN) != null || readColIds.isEmpty())
+            return getPairCollection(colQualFamPairs);
+        AccumuloColumnPlan plan = AccumuloColumnPlan.fromConf(conf);
+        Set<String> needed = predicateHandler.getFilterColumns(conf);
+        for (Integer id : readColIds)
+            needed.add(plan.getColumn(id).getHiveName());
+        AggregatePushdown aggregate = AggregatePushdown.fromConf(conf);
+        if (aggregate != null && aggregate.getColumn() != null)
+            needed.add(aggregate.getColumn().getHiveName());
+        if (aggregate != null && aggregate.getGroupColumn() != null)
+            needed.add(aggregate.getGroupColumn().getHiveName());
+        List<String> projected = Lists.newArrayList();
+        for (AccumuloColumnPlan.Column column : plan.getColumns()) {
+            if (!column.isRowId() && needed.contains(column.getHiveName()))
+                projected.add(column.getCf() + "|" + column.getQual());
+        }
+        if (projected.isEmpty())
+            return getPairCollection(colQualFamPairs);
+        if (log.isDebugEnabled())
+            log.debug("Fetching " + projected + " of " + colQualFamPairs);
+        Collection<Pair<Text, Text>> pairs = getPairCollection(projected);
+        Collection<Pair<Text, Text>> group = localityGroupFamilies(conf, pairs);
+        return group != null ? group : pairs;
+    }
+
+    /*
+      When every fetched column is in one declared locality group, fetch the group's families whole.
+      The tablet server then reads only that group and needs no per key qualifier filtering.
+     */
+    private Collection<Pair<Text, Text>> localityGroupFamilies(JobConf conf, Collection<Pair<Text, Text>> pairs) {
+        String declared = conf.get(AccumuloSerde.LOCALITY_GROUPS);
+        if (declared == null)
+            return null;
+        for (Map.Entry<String, Set<Text>> group : AccumuloHiveUtils.parseLocalityGroups(declared).entrySet()) {
+            boolean all = true;
+            for (Pair<Text, Text> pair : pairs)
+                all &= group.getValue().contains(pair.getFirst());
+            if (!all)
+                continue;
+            if (log.isDebugEnabled())
+                log.debug("Fetching locality group " + group.getKey());
+            List<Pair<Text, Text>> families = Lists.newArrayList();
+            for (Text family : group.getValue())
+                families.add(new Pair<Text, Text>(family, null));
+            return families;
+        }
+        return null;
     }
 
     /*
@@ -1,10 +1,8 @@
 package org.apache.accumulo.storagehandler;
 
-import org.apache.accumulo.core.client.BatchWriter;
-import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.mapreduce.AccumuloOutputFormat;
 import org.apache.accumulo.core.data.Mutation;
-import org.apache.commons.cli.MissingArgumentException;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
@@ -13,19 +11,29 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.OutputFormat;
-import org.apache.hadoop.mapred.TaskAttemptID;
-import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.JobContext;
-import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.util.Progressable;
 import org.apache.hadoop.util.StringUtils;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Required for AccumuloSerde. Not yet implemented.
+ * Writes the Mutations made by {@link AccumuloSerde#serialize} to the table with a BatchWriter.
+ *
+ * The BatchWriter sends buffered mutations from its own threads while Hive serializes the
+ * following rows. Buffer size, latency and thread count are set with
+ * {@link AccumuloSerde#WRITER_MAX_MEMORY}, {@link AccumuloSerde#WRITER_MAX_LATENCY} and
+ * {@link AccumuloSerde#WRITER_THREADS}, as table or job properties.
+ *
+ * With {@link AccumuloSerde#WRITER_MODE} set to bulk, each task instead writes RFiles
+ * under {@link AccumuloSerde#BULK_DIRECTORY} and bulk imports them when it closes,
+ * see {@link BulkRecordWriter}. Bulk writes require speculative execution to be off.
+ *
+ * Accumulo tables are never emptied first, so INSERT OVERWRITE behaves like INSERT INTO and
+ * replaces only the cells it writes.
  */
 public class HiveAccumuloTableOutputFormat
         extends AccumuloOutputFormat
@@ -33,6 +41,9 @@ public class HiveAccumuloTableOutputFormat
         OutputFormat<Text, Mutation>
 {
 
+    private static final Logger log = Logger.getLogger(HiveAccumuloTableOutputFormat.class);
+    private Instance instance;
+
     @Override
     public RecordWriter getHiveRecordWriter(
             JobConf jobConf,
@@ -42,7 +53,101 @@ public class HiveAccumuloTableOutputFormat
             Properties properties,
             final Progressable progressable)
       throws IOException {
-        throw new UnsupportedOperationException("INSERT not yet supported to Accumulo");
+        final String tableName = properties.getProperty(AccumuloSerde.TABLE_NAME, jobConf.get(AccumuloSerde.TABLE_NAME));
+        if(AccumuloSerde.BULK_WRITER.equals(jobConf.get(AccumuloSerde.WRITER_MODE, AccumuloSerde.BATCH_WRITER)))
+            return getBulkRecordWriter(jobConf, tableName);
+        final BatchWriter writer;
+        try {
+            writer = getConnector(jobConf).createBatchWriter(tableName, getWriterConfig(jobConf));
+        } catch (TableNotFoundException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        }
+        return new RecordWriter() {
+            private final long start = System.currentTimeMillis();
+            private long mutations = 0;
+
+            @Override
+            public void write(Writable writable) throws IOException {
+                if(!(writable instanceof Mutation))
+                    throw new IOException("Expected Mutation. Got " + writable.getClass().getName());
+                try {
+                    writer.addMutation((Mutation)writable);
+                } catch (MutationsRejectedException e) {
+                    throw new IOException(StringUtils.stringifyException(e));
+                }
+                mutations++;
+                if(progressable != null)
+                    progressable.progress();
+            }
+
+            @Override
+            public void close(boolean abort) throws IOException {
+                try {
+                    writer.close(); //mutations already sent cannot be taken back, so flush on abort as well.
+                } catch (MutationsRejectedException e) {
+                    throw new IOException(StringUtils.stringifyException(e));
+                }
+                if(log.isInfoEnabled())
+                    log.info("Wrote " + mutations + " mutations to " + tableName + " in " +
+                            (System.currentTimeMillis() - start) + " ms" + (abort ? ", task aborted" : ""));
+            }
+        };
+    }
+
+    /*
+      Each task writes under its own directory below accumulo.bulk.dir, so retried and
+      concurrent attempts never import each other's files.
+     */
+    private RecordWriter getBulkRecordWriter(JobConf jobConf, String tableName) throws IOException {
+        checkBulkSpecs(jobConf);
+        String bulkDir = jobConf.get(AccumuloSerde.BULK_DIRECTORY);
+        String taskId = jobConf.get("mapred.task.id");
+        if(taskId == null)
+            taskId = UUID.randomUUID().toString();
+        Path taskDir = new Path(new Path(bulkDir, tableName), taskId);
+        return new BulkRecordWriter(getConnector(jobConf), tableName, taskDir, jobConf,
+                jobConf.getLong(AccumuloSerde.WRITER_MAX_MEMORY, AccumuloSerde.DEFAULT_WRITER_MAX_MEMORY));
+    }
+
+    /*
+      Every attempt imports its files when it closes, so a speculative attempt would import
+      the same rows a second time.
+     */
+    private void checkBulkSpecs(JobConf jobConf) throws IOException {
+        if(jobConf.get(AccumuloSerde.BULK_DIRECTORY) == null)
+            throw new IOException(AccumuloSerde.BULK_DIRECTORY + " is required with " +
+                    AccumuloSerde.WRITER_MODE + "=" + AccumuloSerde.BULK_WRITER);
+        if(jobConf.getMapSpeculativeExecution() || jobConf.getReduceSpeculativeExecution())
+            throw new IOException(AccumuloSerde.WRITER_MODE + "=" + AccumuloSerde.BULK_WRITER +
+                    " requires set mapred.map.tasks.speculative.execution=false; and" +
+                    " set mapred.reduce.tasks.speculative.execution=false;");
+    }
+
+    private BatchWriterConfig getWriterConfig(JobConf jobConf) {
+        BatchWriterConfig config = new BatchWriterConfig();
+        config.setMaxMemory(jobConf.getLong(AccumuloSerde.WRITER_MAX_MEMORY, AccumuloSerde.DEFAULT_WRITER_MAX_MEMORY));
+        config.setMaxLatency(jobConf.getLong(AccumuloSerde.WRITER_MAX_LATENCY, AccumuloSerde.DEFAULT_WRITER_MAX_LATENCY),
+                TimeUnit.MILLISECONDS);
+        config.setMaxWriteThreads(jobConf.getInt(AccumuloSerde.WRITER_THREADS, AccumuloSerde.DEFAULT_WRITER_THREADS));
+        return config;
+    }
+
+    private Connector getConnector(JobConf jobConf) throws IOException {
+        if(instance == null)
+            return AccumuloHiveUtils.getConnector(jobConf);
+        try {
+            return AccumuloConnectionCache.getConnector(instance,
+                    jobConf.get(AccumuloSerde.USER_NAME), jobConf.get(AccumuloSerde.USER_PASS));
+        } catch (AccumuloException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        } catch (AccumuloSecurityException e) {
+            throw new IOException(StringUtils.stringifyException(e));
+        }
+    }
+
+    //for testing purposes to set MockInstance
+    public void setInstance(Instance instance) {
+        this.instance = instance;
     }
 
     @Override
@@ -56,6 +161,12 @@ public class HiveAccumuloTableOutputFormat
 
     @Override
     public void checkOutputSpecs(FileSystem fileSystem, JobConf jobConf) throws IOException {
-        throw new UnsupportedOperationException("INSERT not yet supported to Accumulo");
+        String tableName = jobConf.get(AccumuloSerde.TABLE_NAME);
+        if(tableName == null)
+            throw new IOException(AccumuloSerde.TABLE_NAME + " is required to write to Accumulo");
+        if(!getConnector(jobConf).tableOperations().exists(tableName))
+            throw new IOException("Accumulo table " + tableName + " does not exist");
+        if(AccumuloSerde.BULK_WRITER.equals(jobConf.get(AccumuloSerde.WRITER_MODE, AccumuloSerde.BATCH_WRITER)))
+            checkBulkSpecs(jobConf);
     }
 }
@@ -0,0 +1,22 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.storagehandler.predicate.compare.RawBytes;
+import org.apache.hadoop.hive.serde2.lazy.ByteArrayRef;
+import org.apache.hadoop.hive.serde2.lazy.LazyDouble;
+import org.apache.hadoop.hive.serde2.lazy.objectinspector.primitive.LazyDoubleObjectInspector;
+
+/**
+ * LazyDouble over the 8 byte big-endian Accumulo value. Reads the
+ * double in place instead of parsing UTF8 text.
+ */
+public class LazyAccumuloDouble extends LazyDouble {
+
+    public LazyAccumuloDouble(LazyDoubleObjectInspector oi) {
+        super(oi);
+    }
+
+    @Override
+    public void init(ByteArrayRef bytes, int start, int length) {
+        getWritableObject().set(RawBytes.readDouble(bytes.getData(), start));
+    }
+}
@@ -0,0 +1,22 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.storagehandler.predicate.compare.RawBytes;
+import org.apache.hadoop.hive.serde2.lazy.ByteArrayRef;
+import org.apache.hadoop.hive.serde2.lazy.LazyInteger;
+import org.apache.hadoop.hive.serde2.lazy.objectinspector.primitive.LazyIntObjectInspector;
+
+/**
+ * LazyInteger over the 4 byte big-endian Accumulo value. Reads the
+ * int in place instead of parsing UTF8 text.
+ */
+public class LazyAccumuloInteger extends LazyInteger {
+
+    public LazyAccumuloInteger(LazyIntObjectInspector oi) {
+        super(oi);
+    }
+
+    @Override
+    public void init(ByteArrayRef bytes, int start, int length) {
+        getWritableObject().set(RawBytes.readInt(bytes.getData(), start));
+    }
+}
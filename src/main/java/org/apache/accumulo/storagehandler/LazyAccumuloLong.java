@@ -0,0 +1,22 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.storagehandler.predicate.compare.RawBytes;
+import org.apache.hadoop.hive.serde2.lazy.ByteArrayRef;
+import org.apache.hadoop.hive.serde2.lazy.LazyLong;
+import org.apache.hadoop.hive.serde2.lazy.objectinspector.primitive.LazyLongObjectInspector;
+
+/**
+ * LazyLong over the 8 byte big-endian Accumulo value. Reads the
+ * long in place instead of parsing UTF8 text.
+ */
+public class LazyAccumuloLong extends LazyLong {
+
+    public LazyAccumuloLong(LazyLongObjectInspector oi) {
+        super(oi);
+    }
+
+    @Override
+    public void init(ByteArrayRef bytes, int start, int length) {
+        getWritableObject().set(RawBytes.readLong(bytes.getData(), start));
+    }
+}
@@ -2,36 +2,40 @@ package org.apache.accumulo.storagehandler;
 
 import org.apache.hadoop.hive.serde2.lazy.*;
 import org.apache.hadoop.hive.serde2.lazy.objectinspector.LazySimpleStructObjectInspector;
+import org.apache.hadoop.hive.serde2.lazy.objectinspector.primitive.LazyDoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.lazy.objectinspector.primitive.LazyIntObjectInspector;
+import org.apache.hadoop.hive.serde2.lazy.objectinspector.primitive.LazyLongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  *
  * Parses column tuples in each AccumuloHiveRow and creates
- * Lazy objects for each field.
+ * Lazy objects for each field. int, bigint and double fields read the
+ * binary Accumulo value directly.
  *
  */
 public class LazyAccumuloRow extends LazyStruct{
 
     private AccumuloHiveRow row;
-    private List<String> fetchCols;
+    private AccumuloColumnPlan columnPlan;
     private ArrayList<Object> cachedList = new ArrayList<Object>();
+    private ByteArrayRef[] refs;
 
-    private static final Pattern PIPE = Pattern.compile("[|]");
     private static final Logger log = Logger.getLogger(LazyAccumuloRow.class);
 
     public LazyAccumuloRow(LazySimpleStructObjectInspector inspector) {
         super(inspector);
     }
 
-    public void init(AccumuloHiveRow hiveRow, List<String> fetchCols) {
+    public void init(AccumuloHiveRow hiveRow, AccumuloColumnPlan columnPlan) {
         this.row = hiveRow;
-        this.fetchCols = fetchCols;
+        this.columnPlan = columnPlan;
         setParsed(false);
 
     }
@@ -41,9 +45,11 @@ public class LazyAccumuloRow extends LazyStruct{
             List<? extends StructField> fieldRefs =
                     getInspector().getAllStructFieldRefs();
             setFields(new LazyObject[fieldRefs.size()]);
+            refs = new ByteArrayRef[fieldRefs.size()];
             for (int i = 0; i < getFields().length; i++) {
                 //Only supports fam:qual pairs for now. Cell mapped column families not yet supported.
-                getFields()[i] = LazyFactory.createLazyObject(fieldRefs.get(i).getFieldObjectInspector());
+                getFields()[i] = createLazyField(columnPlan.getColumn(i), fieldRefs.get(i).getFieldObjectInspector());
+                refs[i] = new ByteArrayRef();
             }
             setFieldInited(new boolean[getFields().length]);
         }
@@ -51,6 +57,26 @@ public class LazyAccumuloRow extends LazyStruct{
         setParsed(true);
     }
 
+    /*
+        rowID is stored as text. Numeric column values keep their binary Accumulo encoding
+        and are read in place rather than round tripping through UTF8 text.
+     */
+    private LazyObject createLazyField(AccumuloColumnPlan.Column column, ObjectInspector oi) {
+        if(!column.isRowId() && column.getValueType() != null) {
+            switch (column.getValueType()) {
+                case INT:
+                    return new LazyAccumuloInteger((LazyIntObjectInspector) oi);
+                case BIGINT:
+                    return new LazyAccumuloLong((LazyLongObjectInspector) oi);
+                case DOUBLE:
+                    return new LazyAccumuloDouble((LazyDoubleObjectInspector) oi);
+                default:
+                    break;
+            }
+        }
+        return LazyFactory.createLazyObject(oi);
+    }
+
     @Override
     public Object getField(int id) {
         if(!getParsed()) {
@@ -60,28 +86,24 @@ public class LazyAccumuloRow extends LazyStruct{
     }
 
     /*
-        split pairs by pipe.
+        fam/qual pairs are already split by the column plan.
      */
     private Object uncheckedGetField(int id) {
         if(!getFieldInited()[id]) {
-            getFieldInited()[id] = true;
-            ByteArrayRef ref;
-            String famQualPair = fetchCols.get(id);
-            if(AccumuloHiveUtils.containsRowID(famQualPair)) { //rowID field
-                ref = new ByteArrayRef();
+            ByteArrayRef ref = refs[id];
+            AccumuloColumnPlan.Column column = columnPlan.getColumn(id);
+            if(column.isRowId()) { //rowID field
                 ref.setData(row.getRowId().getBytes());
             } else {  //find the matching column tuple.
-                String[] famQualPieces = PIPE.split(famQualPair);
-                if (famQualPieces.length != 2)
-                    throw new IllegalArgumentException("Malformed famQualPair: " + famQualPair);
-                byte[] val = row.getValue(famQualPieces[0], famQualPieces[1]);
+                byte[] val = row.getValue(column.getCf(), column.getQual());
+                //absent from the row or not fetched. Leave uninitialized so the last row's value is never returned.
                 if (val == null){
                     return null;
                 } else {
-                    ref = new ByteArrayRef();
                     ref.setData(val);
                 }
             }
+            getFieldInited()[id] = true;
             getFields()[id].init(ref, 0, ref.getData().length);
         }
         return getFields()[id].getObject();
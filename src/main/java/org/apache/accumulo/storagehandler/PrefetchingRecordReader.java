@@ -0,0 +1,194 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Reads rows from another record reader on a background thread, so scanning and decoding
+ * overlap with Hive's processing of earlier rows.
+ *
+ * Rows are read into a fixed pool of {@link AccumuloHiveRow} buffers, at most depth of them
+ * ahead of Hive, and handed over by swapping contents with Hive's row. Each buffer carries the
+ * key read with its row. An exception on the background thread is rethrown by next() once the
+ * rows read before it are consumed. Progress is the delegate's progress as of the last row read
+ * ahead, sampled on the background thread so the delegate is only ever used from one thread.
+ *
+ * Time Hive waits for a row means the scan is the bottleneck, time the background thread waits
+ * for a free buffer means Hive is. Both are logged on close and added to the
+ * {@link #COUNTER_GROUP} counters when a Reporter is available.
+ *
+ * close() waits at most {@link #CLOSE_TIMEOUT_MILLIS} for the background thread. A thread still
+ * stuck in the delegate is left to die with the task, and the delegate is not closed under it.
+ */
+public class PrefetchingRecordReader implements RecordReader<Text, AccumuloHiveRow> {
+
+    public static final String COUNTER_GROUP = "Accumulo prefetch";
+    public static final String SCAN_WAIT_MILLIS = "Hive waiting on scan (ms)";
+    public static final String HIVE_WAIT_MILLIS = "Scan waiting on Hive (ms)";
+    public static final String ROWS = "Rows prefetched";
+    public static final long CLOSE_TIMEOUT_MILLIS = 10 * 1000;
+
+    private static final Logger log = Logger.getLogger(PrefetchingRecordReader.class);
+    //queued after the last row, or after a failure.
+    private static final Buffer END = new Buffer(new Text(), new AccumuloHiveRow());
+
+    private final RecordReader<Text, AccumuloHiveRow> delegate;
+    private final Reporter reporter;
+    private final BlockingQueue<Buffer> ready = new LinkedBlockingQueue<Buffer>();
+    private final BlockingQueue<Buffer> free = new LinkedBlockingQueue<Buffer>();
+    private final Thread fetcher;
+
+    private volatile Throwable failure;
+    private volatile boolean closed = false;
+    private volatile long hiveWaitNanos = 0;
+    private volatile long rowsFetched = 0;
+    private volatile float progress = 0.0F;
+    private long scanWaitNanos = 0;
+    private boolean finished = false;
+
+    /**
+     *
+     * @param delegate reader to read ahead of Hive.
+     * @param depth number of rows read ahead.
+     * @param reporter task reporter for the wait counters, may be null.
+     */
+    public PrefetchingRecordReader(RecordReader<Text, AccumuloHiveRow> delegate, int depth, Reporter reporter) {
+        if(depth < 1)
+            throw new IllegalArgumentException("Prefetch depth must be positive: " + depth);
+        this.delegate = delegate;
+        this.reporter = reporter;
+        for (int i = 0; i < depth; i++)
+            free.add(new Buffer(delegate.createKey(), delegate.createValue()));
+        fetcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fetch();
+            }
+        }, "accumulo-prefetch");
+        fetcher.setDaemon(true);
+        fetcher.start();
+    }
+
+    private void fetch() {
+        try {
+            while (!closed) {
+                long start = System.nanoTime();
+                Buffer buffer = free.take();
+                hiveWaitNanos += System.nanoTime() - start;
+                if(!delegate.next(buffer.key, buffer.row))
+                    break;
+                rowsFetched++;
+                progress = delegate.getProgress();
+                ready.add(buffer);
+            }
+        } catch (InterruptedException e) {
+            //closed before the scan finished.
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            ready.add(END);
+        }
+    }
+
+    @Override
+    public boolean next(Text key, AccumuloHiveRow value) throws IOException {
+        if(finished)
+            return false;
+        Buffer buffer;
+        long start = System.nanoTime();
+        try {
+            buffer = ready.take();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted waiting for prefetched row", e);
+        } finally {
+            scanWaitNanos += System.nanoTime() - start;
+        }
+        if(buffer == END) {
+            finished = true;
+            if(failure != null)
+                throw new IOException("Prefetching rows failed", failure);
+            return false;
+        }
+        key.set(buffer.key);
+        value.swap(buffer.row);
+        free.add(buffer);
+        return true;
+    }
+
+    @Override
+    public Text createKey() {
+        return delegate.createKey();
+    }
+
+    @Override
+    public AccumuloHiveRow createValue() {
+        return delegate.createValue();
+    }
+
+    @Override
+    public long getPos() throws IOException {
+        return 0;
+    }
+
+    @Override
+    public float getProgress() throws IOException {
+        return finished ? 1.0F : progress;
+    }
+
+    /**
+     *
+     * @return nanoseconds next() spent waiting for the scan.
+     */
+    public long getScanWaitNanos() {
+        return scanWaitNanos;
+    }
+
+    /**
+     *
+     * @return nanoseconds the background thread spent waiting for Hive to free a buffer.
+     */
+    public long getHiveWaitNanos() {
+        return hiveWaitNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        fetcher.interrupt();
+        try {
+            fetcher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(fetcher.isAlive())
+            log.warn("Prefetch thread did not stop within " + CLOSE_TIMEOUT_MILLIS + " ms, leaving the scan open");
+        else
+            delegate.close();
+        long scanWaitMillis = scanWaitNanos / 1000000;
+        long hiveWaitMillis = hiveWaitNanos / 1000000;
+        if(reporter != null) {
+            reporter.incrCounter(COUNTER_GROUP, SCAN_WAIT_MILLIS, scanWaitMillis);
+            reporter.incrCounter(COUNTER_GROUP, HIVE_WAIT_MILLIS, hiveWaitMillis);
+            reporter.incrCounter(COUNTER_GROUP, ROWS, rowsFetched);
+        }
+        if(log.isInfoEnabled())
+            log.info("Prefetched " + rowsFetched + " rows. Hive waited " + scanWaitMillis + " ms on the scan, " +
+                    "the scan waited " + hiveWaitMillis + " ms on Hive");
+    }
+
+    private static class Buffer {
+        private final Text key;
+        private final AccumuloHiveRow row;
+
+        private Buffer(Text key, AccumuloHiveRow row) {
+            this.key = key;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+import org.apache.accumulo.storagehandler.predicate.compare.RawBytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Running value of one aggregate, encoded as the partials described in {@link ColumnAggregateIterator}.
+ * COUNT counts rows with {@link #addRow} and is encoded like {@link RowCountIterator}.
+ */
+class Accumulator {
+
+    private final AggregateFunction function;
+    private final ValueType type;
+
+    private long count;
+    private long longValue;
+    private double doubleValue;
+
+    Accumulator(AggregateFunction function, ValueType type) {
+        this.function = function;
+        this.type = type;
+    }
+
+    void reset() {
+        count = 0;
+    }
+
+    /**
+     * Count a row, for COUNT.
+     */
+    void addRow() {
+        count++;
+    }
+
+    /**
+     * Fold in a column value in the Accumulo value encoding.
+     */
+    void add(byte[] value) {
+        switch (type) {
+            case INT:
+                addLong(RawBytes.readInt(value));
+                break;
+            case BIGINT:
+                addLong(RawBytes.readLong(value));
+                break;
+            default:
+                addDouble(RawBytes.readDouble(value));
+        }
+        count++;
+    }
+
+    private void addLong(long value) {
+        if(count == 0) {
+            longValue = value;
+        } else if (function == AggregateFunction.MIN) {
+            longValue = Math.min(longValue, value);
+        } else if (function == AggregateFunction.MAX) {
+            longValue = Math.max(longValue, value);
+        } else {
+            longValue += value;
+        }
+    }
+
+    private void addDouble(double value) {
+        if(count == 0) {
+            doubleValue = value;
+        } else if (function == AggregateFunction.MIN) {
+            doubleValue = Math.min(doubleValue, value);
+        } else if (function == AggregateFunction.MAX) {
+            doubleValue = Math.max(doubleValue, value);
+        } else {
+            doubleValue += value;
+        }
+    }
+
+    /**
+     *
+     * @return encoded partial, or null if no value was added.
+     */
+    byte[] partial() {
+        if(count == 0)
+            return null;
+        if(function == AggregateFunction.COUNT)
+            return RowCountIterator.encodeCount(count);
+        if(function == AggregateFunction.MIN || function == AggregateFunction.MAX) {
+            if(type == ValueType.INT)
+                return ByteBuffer.allocate(4).putInt((int) longValue).array();
+            if(type == ValueType.BIGINT)
+                return ByteBuffer.allocate(8).putLong(longValue).array();
+            return ByteBuffer.allocate(8).putDouble(doubleValue).array();
+        }
+        ByteBuffer partial = ByteBuffer.allocate(function == AggregateFunction.AVG ? 16 : 8);
+        if(type == ValueType.DOUBLE)
+            partial.putDouble(doubleValue);
+        else
+            partial.putLong(longValue);
+        if(function == AggregateFunction.AVG)
+            partial.putLong(count);
+        return partial.array();
+    }
+}
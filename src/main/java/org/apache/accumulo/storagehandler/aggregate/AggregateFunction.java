@@ -0,0 +1,21 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+/**
+ * Aggregates that can be computed as partials on the tablet servers.
+ */
+public enum AggregateFunction {
+    COUNT, MIN, MAX, SUM, AVG;
+
+    /**
+     *
+     * @return function for the name as written in {@link org.apache.accumulo.storagehandler.AccumuloSerde#AGGREGATE_PUSHDOWN},
+     * ignoring case, or null if not supported.
+     */
+    public static AggregateFunction forName(String name) {
+        for (AggregateFunction function : values()) {
+            if(function.name().equalsIgnoreCase(name))
+                return function;
+        }
+        return null;
+    }
+}
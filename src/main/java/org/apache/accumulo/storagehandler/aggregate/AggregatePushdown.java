@@ -0,0 +1,247 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan;
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+import org.apache.accumulo.storagehandler.AccumuloSerde;
+import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Aggregate requested for a scan with {@link AccumuloSerde#AGGREGATE_PUSHDOWN}.
+ *
+ * Hive 0.10 gives the storage handler no view of the query's aggregations, so pushdown
+ * is requested per query, for example set accumulo.pushdown.aggregate=count; before
+ * select count(rid) where rid is mapped to rowID, or accumulo.pushdown.aggregate=sum with accumulo.pushdown.aggregate.column=fid
+ * before select sum(fid). The iterator returns one partial result per range and the record
+ * reader turns each partial back into rows Hive aggregates to the same answer. Hive runs its
+ * own aggregate over those rows, so a COUNT of n is still n empty rows in the map task: the
+ * pushdown saves the tablet server reads and the transfer of cells, not Hive's row handling.
+ *
+ * Session properties outlive the query, so an aggregate is only pushed to scans of the Accumulo
+ * table named by {@link AccumuloSerde#AGGREGATE_TABLE}, e.g. set accumulo.pushdown.aggregate.table=acled;
+ * Scans of other tables return their rows as usual.
+ *
+ * With accumulo.pushdown.aggregate.groupby the iterator aggregates per value of that column
+ * and each rebuilt row also holds its group's value, for Hive's group by to combine.
+ *
+ * COUNT is only applied when the scan reads just the rowID column. Hive 0.10 reports the same
+ * empty projection for count(*) as for scans that read every column, such as select * answered
+ * by a fetch task, so an empty projection never gets rebuilt rows. A grouped COUNT reads just the
+ * group column.
+ * MIN, MAX, SUM and AVG are only applied when the scan reads exactly the aggregated column.
+ * AVG is only pushed over int and bigint columns, whose sum spreads exactly over count rows.
+ * A grouped aggregate also reads the group column. A query that needs other column values
+ * is never answered with rebuilt rows.
+ */
+public class AggregatePushdown {
+
+    //above the filter iterators, below the batch reader's row assembly iterator.
+    public static final int ITERATOR_PRIORITY = Integer.MAX_VALUE - 1;
+    public static final String ITERATOR_NAME = "hive.accumulo.aggregate";
+
+    private static final Logger log = Logger.getLogger(AggregatePushdown.class);
+
+    private final AggregateFunction function;
+    private final AccumuloColumnPlan.Column column;
+    private final AccumuloColumnPlan.Column groupColumn;
+    private final int maxGroups;
+
+    private AggregatePushdown(AggregateFunction function,
+                              AccumuloColumnPlan.Column column,
+                              AccumuloColumnPlan.Column groupColumn,
+                              int maxGroups) {
+        this.function = function;
+        this.column = column;
+        this.groupColumn = groupColumn;
+        this.maxGroups = maxGroups;
+    }
+
+    /**
+     *
+     * @return true if an aggregate was requested for this table and iterators are enabled for it.
+     */
+    public static boolean isRequested(JobConf conf) {
+        String table = conf.get(AccumuloSerde.AGGREGATE_TABLE);
+        return conf.get(AccumuloSerde.AGGREGATE_PUSHDOWN) != null &&
+               table != null && table.equals(conf.get(AccumuloSerde.TABLE_NAME)) &&
+               conf.get(AccumuloSerde.NO_ITERATOR_PUSHDOWN) == null;
+    }
+
+    /**
+     *
+     * @return aggregate to push for this scan, or null if the scan must return rows.
+     * @throws SerDeException if the requested aggregate or column is not supported.
+     */
+    public static AggregatePushdown fromConf(JobConf conf)
+            throws SerDeException {
+        if(!isRequested(conf)) {
+            if(conf.get(AccumuloSerde.AGGREGATE_PUSHDOWN) != null)
+                log.info("Not pushing " + AccumuloSerde.AGGREGATE_PUSHDOWN + " to " + conf.get(AccumuloSerde.TABLE_NAME) +
+                        ": " + AccumuloSerde.AGGREGATE_TABLE + " names another table or iterators are disabled");
+            return null;
+        }
+        String mode = conf.get(AccumuloSerde.AGGREGATE_PUSHDOWN);
+        AggregateFunction function = AggregateFunction.forName(mode);
+        if(function == null)
+            throw new SerDeException("Unsupported " + AccumuloSerde.AGGREGATE_PUSHDOWN + ": " + mode +
+                    " only count, min, max, sum, avg");
+        AccumuloColumnPlan plan = AccumuloColumnPlan.fromConf(conf);
+        AccumuloColumnPlan.Column column = null;
+        if(function != AggregateFunction.COUNT)
+            column = findColumn(conf, plan);
+        if(function == AggregateFunction.AVG && column.getValueType() == ValueType.DOUBLE) {
+            //Hive can only re-average rows, and a double mean repeated count times drifts when summed back.
+            log.info("AVG over double column " + column.getHiveName() + " is not pushed");
+            return null;
+        }
+        AccumuloColumnPlan.Column groupColumn = null;
+        String groupBy = conf.get(AccumuloSerde.AGGREGATE_GROUP_BY);
+        if(groupBy != null)
+            groupColumn = findGroupColumn(plan, groupBy);
+
+        Set<Integer> expected = Sets.newHashSet();
+        if(column != null)
+            expected.add(column.getIndex());
+        if(groupColumn != null)
+            expected.add(groupColumn.getIndex());
+        if(expected.isEmpty()) {
+            if(plan.getRowIdIndex() < 0) {
+                log.info("Table has no rowID column, not pushing " + mode);
+                return null;
+            }
+            expected.add(plan.getRowIdIndex());
+        }
+        Set<Integer> readColIds = Sets.newHashSet(ColumnProjectionUtils.getReadColumnIDs(conf));
+        if(!readColIds.equals(expected)) {
+            log.info("Scan reads columns " + readColIds + " instead of " + expected + ", not pushing " + mode);
+            return null;
+        }
+        int maxGroups = conf.getInt(AccumuloSerde.AGGREGATE_MAX_GROUPS, AccumuloSerde.DEFAULT_AGGREGATE_MAX_GROUPS);
+        if(maxGroups < 1)
+            throw new SerDeException(AccumuloSerde.AGGREGATE_MAX_GROUPS + " must be positive: " + maxGroups);
+        return new AggregatePushdown(function, column, groupColumn, maxGroups);
+    }
+
+    private static AccumuloColumnPlan.Column findColumn(JobConf conf, AccumuloColumnPlan plan)
+            throws SerDeException {
+        String name = conf.get(AccumuloSerde.AGGREGATE_COLUMN);
+        if(name == null)
+            throw new SerDeException(AccumuloSerde.AGGREGATE_COLUMN + " is required for " +
+                    conf.get(AccumuloSerde.AGGREGATE_PUSHDOWN));
+        for(AccumuloColumnPlan.Column column : plan.getColumns()) {
+            if(!column.getHiveName().equals(name))
+                continue;
+            ValueType type = column.getValueType();
+            if(column.isRowId() || type == null || type == ValueType.STRING)
+                throw new SerDeException("Cannot push aggregate over " + name +
+                        ", only int, bigint and double columns other than rowID");
+            return column;
+        }
+        throw new SerDeException(AccumuloSerde.AGGREGATE_COLUMN + " " + name + " is not a hive column");
+    }
+
+    private static AccumuloColumnPlan.Column findGroupColumn(AccumuloColumnPlan plan, String name)
+            throws SerDeException {
+        for(AccumuloColumnPlan.Column column : plan.getColumns()) {
+            if(!column.getHiveName().equals(name))
+                continue;
+            if(column.isRowId())
+                throw new SerDeException("Cannot group pushed aggregate by rowID " + name);
+            return column;
+        }
+        throw new SerDeException(AccumuloSerde.AGGREGATE_GROUP_BY + " " + name + " is not a hive column");
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    /**
+     *
+     * @return aggregated column, or null for COUNT.
+     */
+    public AccumuloColumnPlan.Column getColumn() {
+        return column;
+    }
+
+    /**
+     *
+     * @return group by column, or null if not grouped.
+     */
+    public AccumuloColumnPlan.Column getGroupColumn() {
+        return groupColumn;
+    }
+
+    /**
+     *
+     * @param encodingLevels number of WholeRowIterator encodings added by the filter iterators below.
+     */
+    public IteratorSetting toSetting(int encodingLevels) {
+        if(groupColumn != null) {
+            IteratorSetting is = new IteratorSetting(ITERATOR_PRIORITY, ITERATOR_NAME, GroupByAggregateIterator.class);
+            is.addOption(GroupByAggregateIterator.GROUP_COLUMN, groupColumn.getCf() + "|" + groupColumn.getQual());
+            if(column != null) {
+                is.addOption(GroupByAggregateIterator.COLUMN, column.getCf() + "|" + column.getQual());
+                is.addOption(GroupByAggregateIterator.VALUE_TYPE, column.getValueType().name());
+            }
+            is.addOption(GroupByAggregateIterator.FUNCTION, function.name());
+            is.addOption(GroupByAggregateIterator.ENCODING_LEVELS, Integer.toString(encodingLevels));
+            is.addOption(GroupByAggregateIterator.MAX_GROUPS, Integer.toString(maxGroups));
+            return is;
+        }
+        if(function == AggregateFunction.COUNT)
+            return new IteratorSetting(ITERATOR_PRIORITY, ITERATOR_NAME, RowCountIterator.class);
+        IteratorSetting is = new IteratorSetting(ITERATOR_PRIORITY, ITERATOR_NAME, ColumnAggregateIterator.class);
+        is.addOption(ColumnAggregateIterator.COLUMN, column.getCf() + "|" + column.getQual());
+        is.addOption(ColumnAggregateIterator.VALUE_TYPE, column.getValueType().name());
+        is.addOption(ColumnAggregateIterator.FUNCTION, function.name());
+        is.addOption(ColumnAggregateIterator.ENCODING_LEVELS, Integer.toString(encodingLevels));
+        return is;
+    }
+
+    /**
+     *
+     * @return rows that stand for the partial result, one PartialRows per group.
+     * @throws IOException if a grouped partial is malformed.
+     */
+    public List<PartialRows> rowsFor(byte[] partial) throws IOException {
+        if(groupColumn == null)
+            return Collections.singletonList(ungroupedRowsFor(partial));
+        List<GroupByAggregateIterator.Group> groups = GroupByAggregateIterator.decodeGroups(partial);
+        List<PartialRows> rows = Lists.newArrayListWithCapacity(groups.size());
+        for(GroupByAggregateIterator.Group group : groups) {
+            //a group whose rows had no value still has a row, so Hive outputs it with a null aggregate.
+            PartialRows groupRows = group.getPartial() == null ? PartialRows.empty(1) : ungroupedRowsFor(group.getPartial());
+            rows.add(groupRows.inGroup(group.getKey()));
+        }
+        return rows;
+    }
+
+    private PartialRows ungroupedRowsFor(byte[] partial) {
+        ValueType type = column == null ? null : column.getValueType();
+        switch (function) {
+            case COUNT:
+                return PartialRows.empty(RowCountIterator.decodeCount(partial));
+            case SUM:
+                if(type == ValueType.INT)
+                    return PartialRows.intSum(ByteBuffer.wrap(partial).getLong());
+                return PartialRows.repeat(partial, 1);
+            case AVG:
+                ByteBuffer buffer = ByteBuffer.wrap(partial);
+                return PartialRows.spread(type, buffer.getLong(0), buffer.getLong(8));
+            default:
+                return PartialRows.repeat(partial, 1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+
+/**
+ * Computes MIN, MAX, SUM or AVG of one int, bigint or double column over each seeked range.
+ *
+ * Like the filter iterators, only the first value of the column in each row is used, and rows
+ * without the column are skipped. Partials are big-endian:
+ * MIN and MAX in the column's encoding, SUM as a long (int and bigint) or double,
+ * AVG as the SUM followed by an 8 byte count.
+ *
+ * Rows wrapped by WholeRowIterator based filters below are decoded first, see {@link #ENCODING_LEVELS}.
+ */
+public class ColumnAggregateIterator extends PartialAggregateIterator {
+
+    public static final String COLUMN = "column";
+    public static final String VALUE_TYPE = "value.type";
+    public static final String FUNCTION = "function";
+    public static final String ENCODING_LEVELS = "encoding.levels";
+
+    private static final Pattern PIPE = Pattern.compile("[|]");
+
+    private Text cf;
+    private Text qual;
+    private ValueType type;
+    private AggregateFunction function;
+    private int encodingLevels;
+
+    private final Key lastRow = new Key();
+    private boolean seenRow;
+    private boolean matchedInRow;
+    private Accumulator accumulator;
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source,
+                     Map<String,String> options,
+                     IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        String column = options.get(COLUMN);
+        if(column == null)
+            throw new IOException("Missing " + COLUMN);
+        String[] famQual = PIPE.split(column);
+        if(famQual.length != 2)
+            throw new IOException("Malformed " + COLUMN + ": " + column);
+        cf = new Text(famQual[0]);
+        qual = new Text(famQual[1]);
+        try {
+            type = ValueType.valueOf(options.get(VALUE_TYPE));
+            function = AggregateFunction.valueOf(options.get(FUNCTION));
+        } catch (RuntimeException e) {
+            throw new IOException("Bad " + VALUE_TYPE + " or " + FUNCTION + " option", e);
+        }
+        if(type == ValueType.STRING || function == AggregateFunction.COUNT)
+            throw new IOException("Unsupported aggregate " + function + " over " + type);
+        String levels = options.get(ENCODING_LEVELS);
+        encodingLevels = levels == null ? 0 : Integer.parseInt(levels);
+        accumulator = new Accumulator(function, type);
+    }
+
+    @Override
+    protected void reset() {
+        seenRow = false;
+        accumulator.reset();
+    }
+
+    @Override
+    protected void add(Key k, Value v) throws IOException {
+        if(encodingLevels == 0) {
+            addCell(k, v);
+            return;
+        }
+        SortedMap<Key,Value> decoded = WholeRowIterator.decodeRow(k, v);
+        for(int i = 1; i < encodingLevels; i++) {
+            decoded = WholeRowIterator.decodeRow(decoded.firstKey(), decoded.get(decoded.firstKey()));
+        }
+        for(Map.Entry<Key,Value> entry : decoded.entrySet()) {
+            addCell(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void addCell(Key k, Value v) {
+        if(!seenRow || !k.equals(lastRow, PartialKey.ROW)) {
+            matchedInRow = false;
+            lastRow.set(k);
+            seenRow = true;
+        }
+        if(matchedInRow || k.compareColumnQualifier(qual) != 0 || k.compareColumnFamily(cf) != 0)
+            return;
+        matchedInRow = true;
+        accumulator.add(v.get());
+    }
+
+    @Override
+    protected byte[] partial() {
+        return accumulator.partial();
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        ColumnAggregateIterator copy = new ColumnAggregateIterator();
+        copy.setSource(getSource().deepCopy(env));
+        copy.cf = cf;
+        copy.qual = qual;
+        copy.type = type;
+        copy.function = function;
+        copy.encodingLevels = encodingLevels;
+        copy.accumulator = new Accumulator(function, type);
+        return copy;
+    }
+}
@@ -0,0 +1,294 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+import org.apache.hadoop.io.Text;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hash based partial aggregation on the tablet server, grouped by the value of one column.
+ *
+ * Each row is added to the group of the first value of {@link #GROUP_COLUMN}, or to the null group
+ * if the row does not have it. COUNT counts the rows of each group, other functions aggregate the first
+ * value of {@link #COLUMN} in the row as {@link ColumnAggregateIterator} does.
+ *
+ * At most {@link #MAX_GROUPS} groups are held in memory. Once the table is full, the groups are returned
+ * as one partial at the next row boundary and aggregation starts over, so a range can return several
+ * partials and the same group can appear in more than one. See {@link #decodeGroups} for the encoding.
+ */
+public class GroupByAggregateIterator extends PartialAggregateIterator {
+
+    public static final String GROUP_COLUMN = "group.column";
+    public static final String COLUMN = ColumnAggregateIterator.COLUMN;
+    public static final String VALUE_TYPE = ColumnAggregateIterator.VALUE_TYPE;
+    public static final String FUNCTION = ColumnAggregateIterator.FUNCTION;
+    public static final String ENCODING_LEVELS = ColumnAggregateIterator.ENCODING_LEVELS;
+    public static final String MAX_GROUPS = "max.groups";
+
+    private static final Pattern PIPE = Pattern.compile("[|]");
+
+    /**
+     * One group of a decoded partial.
+     */
+    public static class Group {
+        private final byte[] key;
+        private final byte[] partial;
+
+        public Group(byte[] key, byte[] partial) {
+            this.key = key;
+            this.partial = partial;
+        }
+
+        /**
+         *
+         * @return group column value, or null for rows without the column.
+         */
+        public byte[] getKey() {
+            return key;
+        }
+
+        /**
+         *
+         * @return partial aggregate, or null if no row in the group had a value.
+         */
+        public byte[] getPartial() {
+            return partial;
+        }
+    }
+
+    private Text groupCf;
+    private Text groupQual;
+    private Text cf;
+    private Text qual;
+    private ValueType type;
+    private AggregateFunction function;
+    private int encodingLevels;
+    private int maxGroups;
+
+    private final Map<ByteSequence, Accumulator> groups = Maps.newHashMap();
+    private Accumulator nullGroup;
+
+    //the row being read, added to its group once it is complete.
+    private final Key row = new Key();
+    private boolean inRow;
+    private byte[] rowGroup;
+    private byte[] rowValue;
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source,
+                     Map<String,String> options,
+                     IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        Text[] group = column(options, GROUP_COLUMN);
+        groupCf = group[0];
+        groupQual = group[1];
+        try {
+            function = AggregateFunction.valueOf(options.get(FUNCTION));
+        } catch (RuntimeException e) {
+            throw new IOException("Bad " + FUNCTION + " option", e);
+        }
+        if(function != AggregateFunction.COUNT) {
+            Text[] column = column(options, COLUMN);
+            cf = column[0];
+            qual = column[1];
+            try {
+                type = ValueType.valueOf(options.get(VALUE_TYPE));
+            } catch (RuntimeException e) {
+                throw new IOException("Bad " + VALUE_TYPE + " option", e);
+            }
+            if(type == ValueType.STRING)
+                throw new IOException("Unsupported aggregate " + function + " over " + type);
+        }
+        String levels = options.get(ENCODING_LEVELS);
+        encodingLevels = levels == null ? 0 : Integer.parseInt(levels);
+        String max = options.get(MAX_GROUPS);
+        if(max == null)
+            throw new IOException("Missing " + MAX_GROUPS);
+        maxGroups = Integer.parseInt(max);
+        if(maxGroups < 1)
+            throw new IOException(MAX_GROUPS + " must be positive: " + max);
+    }
+
+    private static Text[] column(Map<String,String> options, String option) throws IOException {
+        String column = options.get(option);
+        if(column == null)
+            throw new IOException("Missing " + option);
+        String[] famQual = PIPE.split(column);
+        if(famQual.length != 2)
+            throw new IOException("Malformed " + option + ": " + column);
+        return new Text[] {new Text(famQual[0]), new Text(famQual[1])};
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        inRow = false;
+        super.seek(range, columnFamilies, inclusive);
+    }
+
+    @Override
+    protected void reset() {
+        groups.clear();
+        nullGroup = null;
+    }
+
+    //only flush between rows, so no row is split across partials.
+    @Override
+    protected boolean flushBefore(Key k) {
+        if(!inRow || k.equals(row, PartialKey.ROW))
+            return false;
+        addRow();
+        return groups.size() >= maxGroups;
+    }
+
+    @Override
+    protected void finish() {
+        addRow();
+    }
+
+    @Override
+    protected void add(Key k, Value v) throws IOException {
+        if(encodingLevels == 0) {
+            addCell(k, v);
+            return;
+        }
+        SortedMap<Key,Value> decoded = WholeRowIterator.decodeRow(k, v);
+        for(int i = 1; i < encodingLevels; i++) {
+            decoded = WholeRowIterator.decodeRow(decoded.firstKey(), decoded.get(decoded.firstKey()));
+        }
+        for(Map.Entry<Key,Value> entry : decoded.entrySet()) {
+            addCell(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void addCell(Key k, Value v) {
+        if(!inRow || !k.equals(row, PartialKey.ROW)) {
+            addRow();
+            row.set(k);
+            inRow = true;
+        }
+        if(rowGroup == null && k.compareColumnQualifier(groupQual) == 0 && k.compareColumnFamily(groupCf) == 0) {
+            rowGroup = v.get().clone();
+        }
+        if(cf != null && rowValue == null && k.compareColumnQualifier(qual) == 0 && k.compareColumnFamily(cf) == 0) {
+            rowValue = v.get().clone();
+        }
+    }
+
+    private void addRow() {
+        if(!inRow)
+            return;
+        Accumulator accumulator;
+        if(rowGroup == null) {
+            if(nullGroup == null)
+                nullGroup = new Accumulator(function, type);
+            accumulator = nullGroup;
+        } else {
+            ByteSequence key = new ArrayByteSequence(rowGroup);
+            accumulator = groups.get(key);
+            if(accumulator == null) {
+                accumulator = new Accumulator(function, type);
+                groups.put(key, accumulator);
+            }
+        }
+        if(function == AggregateFunction.COUNT)
+            accumulator.addRow();
+        else if(rowValue != null)
+            accumulator.add(rowValue);
+        inRow = false;
+        rowGroup = null;
+        rowValue = null;
+    }
+
+    @Override
+    protected byte[] partial() {
+        if(groups.isEmpty() && nullGroup == null)
+            return null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(groups.size() + (nullGroup == null ? 0 : 1));
+            for(Map.Entry<ByteSequence, Accumulator> entry : groups.entrySet()) {
+                writeBytes(out, entry.getKey().toArray());
+                writeBytes(out, entry.getValue().partial());
+            }
+            if(nullGroup != null) {
+                writeBytes(out, null);
+                writeBytes(out, nullGroup.partial());
+            }
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e); //not thrown writing to memory.
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if(bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * A partial is the number of groups as an int, then each group's key and partial aggregate.
+     * Both are written as an int length followed by the bytes, with length -1 for null.
+     *
+     * @throws IOException if the partial is truncated.
+     */
+    public static List<Group> decodeGroups(byte[] partial) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(partial));
+        int numGroups = in.readInt();
+        List<Group> decoded = Lists.newArrayListWithCapacity(numGroups);
+        for(int i = 0; i < numGroups; i++) {
+            byte[] key = readBytes(in);
+            decoded.add(new Group(key, readBytes(in)));
+        }
+        return decoded;
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        GroupByAggregateIterator copy = new GroupByAggregateIterator();
+        copy.setSource(getSource().deepCopy(env));
+        copy.groupCf = groupCf;
+        copy.groupQual = groupQual;
+        copy.cf = cf;
+        copy.qual = qual;
+        copy.type = type;
+        copy.function = function;
+        copy.encodingLevels = encodingLevels;
+        copy.maxGroups = maxGroups;
+        return copy;
+    }
+}
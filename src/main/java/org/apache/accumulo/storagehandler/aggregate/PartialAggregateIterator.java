@@ -0,0 +1,111 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Reads each seeked range on the tablet server and returns partial aggregates in place
+ * of the data.
+ *
+ * Placed above any filter iterators, so only accepted rows are aggregated. Normally the
+ * whole range is folded into a single partial. Subclasses that must bound their memory can
+ * ask for a partial to be returned early with {@link #flushBefore}, and reading resumes
+ * when the scanner moves past it. Each partial is keyed by the last key read, so a scanner
+ * that re-seeks after it never reads a row twice. Nothing is returned for a range without any input.
+ */
+public abstract class PartialAggregateIterator extends WrappingIterator {
+
+    private final Key lastKey = new Key();
+    private Key topKey;
+    private Value topValue;
+
+    /**
+     * Start a new partial. Called on seek and after each partial is returned.
+     */
+    protected abstract void reset();
+
+    /**
+     * Fold one key/value from the source into the partial.
+     */
+    protected abstract void add(Key k, Value v) throws IOException;
+
+    /**
+     *
+     * @return encoded partial, or null if nothing was aggregated.
+     */
+    protected abstract byte[] partial();
+
+    /**
+     *
+     * @return true to return the partial built so far before k is read.
+     */
+    protected boolean flushBefore(Key k) {
+        return false;
+    }
+
+    /**
+     * Called once the source is exhausted, before the last partial is taken.
+     */
+    protected void finish() {}
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        super.seek(range, columnFamilies, inclusive);
+        reset();
+        advance();
+    }
+
+    private void advance() throws IOException {
+        SortedKeyValueIterator<Key,Value> source = getSource();
+        while (source.hasTop()) {
+            Key k = source.getTopKey();
+            if(flushBefore(k))
+                break;
+            add(k, source.getTopValue());
+            lastKey.set(k);
+            source.next();
+        }
+        if(!source.hasTop())
+            finish();
+        byte[] partial = partial();
+        if(partial != null) {
+            topKey = new Key(lastKey);
+            topValue = new Value(partial);
+        } else {
+            topKey = null;
+            topValue = null;
+        }
+        reset();
+    }
+
+    @Override
+    public boolean hasTop() {
+        return topKey != null;
+    }
+
+    @Override
+    public void next() throws IOException {
+        if(getSource().hasTop()) {
+            advance();
+        } else {
+            topKey = null;
+            topValue = null;
+        }
+    }
+    @Override
+    public Key getTopKey() {
+        return topKey;
+    }
+
+    @Override
+    public Value getTopValue() {
+        return topValue;
+    }
+}
@@ -0,0 +1,117 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Rows handed to Hive in place of one partial aggregate, chosen so that Hive's own
+ * aggregate over them gives the same answer as over the original rows.
+ *
+ * Each row holds one value for the aggregated column, or none for counts, plus the
+ * group column value when grouped. Values are shared between rows, nothing is allocated per row.
+ */
+public class PartialRows {
+
+    private long remaining;
+    private long high;
+    private final byte[] lowValue;
+    private final byte[] highValue;
+    private byte[] current;
+    private byte[] group;
+
+    private PartialRows(long count, long high, byte[] lowValue, byte[] highValue) {
+        this.remaining = count;
+        this.high = high;
+        this.lowValue = lowValue;
+        this.highValue = highValue;
+    }
+
+    /**
+     *
+     * @return count rows without values.
+     */
+    public static PartialRows empty(long count) {
+        return new PartialRows(count, 0, null, null);
+    }
+
+    /**
+     *
+     * @return count rows all holding value.
+     */
+    public static PartialRows repeat(byte[] value, long count) {
+        return new PartialRows(count, 0, value, value);
+    }
+
+    /**
+     * count int or bigint rows adding up to sum, with values differing by at most one.
+     * Preserves both SUM and AVG.
+     */
+    public static PartialRows spread(ValueType type, long sum, long count) {
+        long low = sum / count;
+        long high = sum % count;
+        if(high < 0) { //round towards negative infinity so the remainder is positive.
+            low--;
+            high += count;
+        }
+        return new PartialRows(count, high, encode(type, low), encode(type, low + 1));
+    }
+
+    /**
+     * An int SUM can exceed the int range, so spread it over as few rows as keep each value in range.
+     */
+    public static PartialRows intSum(long sum) {
+        long count = Math.max(1, (Math.abs(sum) + Integer.MAX_VALUE - 1) / Integer.MAX_VALUE);
+        return spread(ValueType.INT, sum, count);
+    }
+
+    /**
+     * Give every row the group column value group.
+     *
+     * @return this
+     */
+    public PartialRows inGroup(byte[] group) {
+        this.group = group;
+        return this;
+    }
+
+    /**
+     * Advance to the next row.
+     *
+     * @return false once every row has been handed out.
+     */
+    public boolean next() {
+        if(remaining == 0)
+            return false;
+        remaining--;
+        if(high > 0) {
+            high--;
+            current = highValue;
+        } else {
+            current = lowValue;
+        }
+        return true;
+    }
+
+    /**
+     *
+     * @return column value for the current row, or null if the row holds no value.
+     */
+    public byte[] value() {
+        return current;
+    }
+
+    /**
+     *
+     * @return group column value for every row, or null if ungrouped or in the null group.
+     */
+    public byte[] group() {
+        return group;
+    }
+
+    private static byte[] encode(ValueType type, long value) {
+        if(type == ValueType.INT)
+            return ByteBuffer.allocate(4).putInt((int) value).array();
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+}
@@ -0,0 +1,54 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.storagehandler.predicate.compare.RawBytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts the rows of each seeked range on the tablet server and returns the count
+ * instead of the rows themselves.
+ *
+ * The partial is the count as an 8 byte big-endian long, see {@link #decodeCount}.
+ */
+public class RowCountIterator extends PartialAggregateIterator {
+
+    private final Key lastRow = new Key();
+    private long count;
+
+    @Override
+    protected void reset() {
+        count = 0;
+    }
+
+    @Override
+    protected void add(Key k, Value v) {
+        if(count == 0 || !k.equals(lastRow, PartialKey.ROW))
+            count++;
+        lastRow.set(k);
+    }
+
+    @Override
+    protected byte[] partial() {
+        return count > 0 ? encodeCount(count) : null;
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        RowCountIterator copy = new RowCountIterator();
+        copy.setSource(getSource().deepCopy(env));
+        return copy;
+    }
+
+    public static byte[] encodeCount(long count) {
+        return ByteBuffer.allocate(8).putLong(count).array();
+    }
+
+    public static long decodeCount(byte[] value) {
+        return RawBytes.readLong(value);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Aggregate pushdown to Accumulo iterators that return partial results per range.
+ */
+package org.apache.accumulo.storagehandler.aggregate;
\ No newline at end of file
@@ -0,0 +1,160 @@
+package org.apache.accumulo.storagehandler.limit;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan;
+import org.apache.accumulo.storagehandler.AccumuloSerde;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.log4j.Logger;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Row limit requested for a scan with {@link AccumuloSerde#LIMIT_PUSHDOWN}.
+ *
+ * Hive 0.10 does not pass LIMIT to the storage handler, so like aggregates the limit is
+ * requested per query, for example set accumulo.pushdown.limit=100; and
+ * set accumulo.pushdown.limit.table=acled; before select pid from acled where pid != 1111 limit 100.
+ * Each split then stops after that many rows. Without WHERE filters every tablet has rows to give,
+ * so tablet ranges are packed into at most {@link AccumuloSerde#LIMIT_SPLITS} splits.
+ *
+ * Session properties outlive the query, so the limit only applies to scans of the Accumulo table
+ * named by {@link AccumuloSerde#LIMIT_TABLE}. Other tables, in later queries or on the other side
+ * of a join, are read in full. A scan cannot tell which alias it serves, so the limit is also
+ * dropped unless the running query names the Hive table exactly once.
+ *
+ * With {@link AccumuloSerde#LIMIT_ORDER_COLUMN} set, for ORDER BY col LIMIT n, splits are kept and
+ * a {@link TopNIterator} returns only the first n rows of each range in that order, leaving the final
+ * sort to Hive.
+ *
+ * Ignored when an aggregate is pushed, since the aggregate needs every row.
+ */
+public class LimitPushdown {
+
+    //above the filter iterators, below the batch reader's row assembly iterator.
+    public static final int ITERATOR_PRIORITY = AggregatePushdown.ITERATOR_PRIORITY;
+    public static final String ITERATOR_NAME = "hive.accumulo.topn";
+
+    private static final Logger log = Logger.getLogger(LimitPushdown.class);
+
+    private final int limit;
+    private final AccumuloColumnPlan.Column orderColumn;
+    private final boolean descending;
+
+    private LimitPushdown(int limit, AccumuloColumnPlan.Column orderColumn, boolean descending) {
+        this.limit = limit;
+        this.orderColumn = orderColumn;
+        this.descending = descending;
+    }
+
+    /**
+     *
+     * @return true if a limit was requested for this table, iterators are enabled and no aggregate is pushed.
+     */
+    public static boolean isRequested(JobConf conf) {
+        return conf.get(AccumuloSerde.LIMIT_PUSHDOWN) != null &&
+               forTable(conf) &&
+               conf.get(AccumuloSerde.NO_ITERATOR_PUSHDOWN) == null &&
+               !AggregatePushdown.isRequested(conf);
+    }
+
+    /**
+     *
+     * @return limit to push for this scan, or null if none.
+     * @throws SerDeException if the limit or order column is not supported.
+     */
+    public static LimitPushdown fromConf(JobConf conf)
+            throws SerDeException {
+        if(!isRequested(conf)) {
+            if(conf.get(AccumuloSerde.LIMIT_PUSHDOWN) != null)
+                log.info("Not pushing " + AccumuloSerde.LIMIT_PUSHDOWN + " to " + conf.get(AccumuloSerde.TABLE_NAME) +
+                        ": " + AccumuloSerde.LIMIT_TABLE + " names another table, iterators are disabled or an aggregate is pushed");
+            return null;
+        }
+        if(!namedOnce(conf)) {
+            log.info("Not pushing " + AccumuloSerde.LIMIT_PUSHDOWN + " to " + conf.get(AccumuloSerde.TABLE_NAME) +
+                    ": the query does not name " + conf.get(AccumuloSerde.HIVE_TABLE_NAME) + " exactly once");
+            return null;
+        }
+        String value = conf.get(AccumuloSerde.LIMIT_PUSHDOWN);
+        int limit;
+        try {
+            limit = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new SerDeException("Bad " + AccumuloSerde.LIMIT_PUSHDOWN + ": " + value, e);
+        }
+        if(limit < 1)
+            throw new SerDeException(AccumuloSerde.LIMIT_PUSHDOWN + " must be positive: " + value);
+        String name = conf.get(AccumuloSerde.LIMIT_ORDER_COLUMN);
+        if(name == null)
+            return new LimitPushdown(limit, null, false);
+        for(AccumuloColumnPlan.Column column : AccumuloColumnPlan.fromConf(conf).getColumns()) {
+            if(!column.getHiveName().equals(name))
+                continue;
+            if(column.isRowId() || column.getValueType() == null)
+                throw new SerDeException("Cannot push ORDER BY " + name +
+                        ", only string, int, bigint and double columns other than rowID");
+            return new LimitPushdown(limit, column, conf.getBoolean(AccumuloSerde.LIMIT_ORDER_DESCENDING, false));
+        }
+        throw new SerDeException(AccumuloSerde.LIMIT_ORDER_COLUMN + " " + name + " is not a hive column");
+    }
+
+    private static boolean forTable(JobConf conf) {
+        String table = conf.get(AccumuloSerde.LIMIT_TABLE);
+        return table != null && table.equals(conf.get(AccumuloSerde.TABLE_NAME));
+    }
+
+    /*
+      Hive sets the query string when the query runs, after predicates are decomposed, so this is
+      only checked by splits and readers. A self-join or a subquery on the same table names it twice.
+     */
+    private static boolean namedOnce(JobConf conf) {
+        String query = conf.get(HiveConf.ConfVars.HIVEQUERYSTRING.varname);
+        String table = conf.get(AccumuloSerde.HIVE_TABLE_NAME);
+        if(query == null || table == null)
+            return false;
+        table = table.substring(table.lastIndexOf('.') + 1);
+        Matcher matcher = Pattern.compile("\\b" + Pattern.quote(table) + "\\b", Pattern.CASE_INSENSITIVE).matcher(query);
+        int count = 0;
+        while(matcher.find())
+            count++;
+        return count == 1;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     *
+     * @return true for ORDER BY col LIMIT n, where rows past the limit of a split may still be needed.
+     */
+    public boolean isTopN() {
+        return orderColumn != null;
+    }
+
+    /**
+     *
+     * @return rows a record reader may return before stopping, or -1 for no cap.
+     */
+    public long getRowsPerSplit() {
+        return isTopN() ? -1 : limit;
+    }
+
+    /**
+     *
+     * @param encodingLevels number of WholeRowIterator encodings added by the filter iterators below.
+     */
+    public IteratorSetting toSetting(int encodingLevels) {
+        IteratorSetting is = new IteratorSetting(ITERATOR_PRIORITY, ITERATOR_NAME, TopNIterator.class);
+        is.addOption(TopNIterator.COLUMN, orderColumn.getCf() + "|" + orderColumn.getQual());
+        is.addOption(TopNIterator.VALUE_TYPE, orderColumn.getValueType().name());
+        is.addOption(TopNIterator.LIMIT, Integer.toString(limit));
+        is.addOption(TopNIterator.DESCENDING, Boolean.toString(descending));
+        is.addOption(TopNIterator.ENCODING_LEVELS, Integer.toString(encodingLevels));
+        return is;
+    }
+}
@@ -0,0 +1,260 @@
+package org.apache.accumulo.storagehandler.limit;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+import org.apache.accumulo.storagehandler.predicate.compare.RawBytes;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.regex.Pattern;
+
+/**
+ * Returns only the first {@link #LIMIT} rows of each seeked range in the order of one column,
+ * for ORDER BY col LIMIT n. Rows are held in a heap bounded at the limit and returned
+ * whole, in key order, once the range has been read.
+ *
+ * Rows are ordered by the first value of {@link #COLUMN}. Rows without it sort as the lowest
+ * value, as NULLs do in Hive. Ties keep the row read first.
+ *
+ * If the tablet server re-seeks after a returned key, the rest of that row is returned as is,
+ * since the row was already chosen, and the top rows of the remainder of the range follow.
+ * That is a superset of the top rows Hive still needs. Rows wrapped by WholeRowIterator based
+ * filters below are kept encoded, see {@link #ENCODING_LEVELS}.
+ */
+public class TopNIterator extends WrappingIterator {
+
+    public static final String COLUMN = "column";
+    public static final String VALUE_TYPE = "value.type";
+    public static final String LIMIT = "limit";
+    public static final String DESCENDING = "descending";
+    public static final String ENCODING_LEVELS = "encoding.levels";
+
+    private static final Pattern PIPE = Pattern.compile("[|]");
+
+    private static class BufferedRow {
+        private final long sequence;
+        private final byte[] orderValue;
+        private final List<Key> keys;
+        private final List<Value> values;
+
+        private BufferedRow(long sequence, byte[] orderValue, List<Key> keys, List<Value> values) {
+            this.sequence = sequence;
+            this.orderValue = orderValue;
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    private Text cf;
+    private Text qual;
+    private ValueType type;
+    private int limit;
+    private boolean descending;
+    private int encodingLevels;
+
+    private PriorityQueue<BufferedRow> heap;
+    private final List<Key> topKeys = Lists.newArrayList();
+    private final List<Value> topValues = Lists.newArrayList();
+    private int position;
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source,
+                     Map<String,String> options,
+                     IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        String column = options.get(COLUMN);
+        if(column == null)
+            throw new IOException("Missing " + COLUMN);
+        String[] famQual = PIPE.split(column);
+        if(famQual.length != 2)
+            throw new IOException("Malformed " + COLUMN + ": " + column);
+        cf = new Text(famQual[0]);
+        qual = new Text(famQual[1]);
+        try {
+            type = ValueType.valueOf(options.get(VALUE_TYPE));
+            limit = Integer.parseInt(options.get(LIMIT));
+        } catch (RuntimeException e) {
+            throw new IOException("Bad " + VALUE_TYPE + " or " + LIMIT + " option", e);
+        }
+        if(limit < 1)
+            throw new IOException(LIMIT + " must be positive: " + limit);
+        descending = Boolean.parseBoolean(options.get(DESCENDING));
+        String levels = options.get(ENCODING_LEVELS);
+        encodingLevels = levels == null ? 0 : Integer.parseInt(levels);
+    }
+
+    //head of the heap is the row that goes first once a better row arrives.
+    private PriorityQueue<BufferedRow> newHeap() {
+        return new PriorityQueue<BufferedRow>(limit + 1, new Comparator<BufferedRow>() {
+            @Override
+            public int compare(BufferedRow left, BufferedRow right) {
+                int cmp = compareOrder(right.orderValue, left.orderValue);
+                if(cmp != 0)
+                    return cmp;
+                return left.sequence < right.sequence ? 1 : left.sequence > right.sequence ? -1 : 0;
+            }
+        });
+    }
+
+    /*
+     Negative if left comes before right in the requested order.
+     */
+    private int compareOrder(byte[] left, byte[] right) {
+        int cmp;
+        if(left == null || right == null) {
+            cmp = left == null ? (right == null ? 0 : -1) : 1;
+        } else {
+            cmp = compareValues(left, right);
+        }
+        return descending ? -cmp : cmp;
+    }
+
+    private int compareValues(byte[] left, byte[] right) {
+        switch (type) {
+            case INT:
+                return compare(RawBytes.readInt(left), RawBytes.readInt(right));
+            case BIGINT:
+                return compare(RawBytes.readLong(left), RawBytes.readLong(right));
+            case DOUBLE:
+                return Double.compare(RawBytes.readDouble(left), RawBytes.readDouble(right));
+            default:
+                return RawBytes.compareUnsigned(left, right);
+        }
+    }
+
+    private static int compare(long left, long right) {
+        return left < right ? -1 : left > right ? 1 : 0;
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+        super.seek(range, columnFamilies, inclusive);
+        topKeys.clear();
+        topValues.clear();
+        position = 0;
+        if(heap == null)
+            heap = newHeap();
+        heap.clear();
+
+        SortedKeyValueIterator<Key,Value> source = getSource();
+        Key start = range.getStartKey();
+        if(encodingLevels == 0 && start != null && !range.isStartKeyInclusive()) {
+            //re-seek inside a row that was already returned, finish it.
+            while(source.hasTop() && source.getTopKey().equals(start, PartialKey.ROW)) {
+                topKeys.add(new Key(source.getTopKey()));
+                topValues.add(new Value(source.getTopValue().get().clone()));
+                source.next();
+            }
+        }
+        long sequence = 0;
+        while(source.hasTop()) {
+            BufferedRow row = encodingLevels == 0 ? readRow(sequence++) : readEncodedRow(sequence++);
+            if(heap.size() < limit) {
+                heap.add(row);
+            } else if (compareOrder(row.orderValue, heap.peek().orderValue) < 0) {
+                heap.poll();
+                heap.add(row);
+            }
+        }
+
+        List<BufferedRow> kept = Lists.newArrayList(heap);
+        heap.clear();
+        Collections.sort(kept, new Comparator<BufferedRow>() {
+            @Override
+            public int compare(BufferedRow left, BufferedRow right) {
+                return left.keys.get(0).compareRow(right.keys.get(0).getRow());
+            }
+        });
+        for(BufferedRow row : kept) {
+            topKeys.addAll(row.keys);
+            topValues.addAll(row.values);
+        }
+    }
+
+    private BufferedRow readRow(long sequence) throws IOException {
+        SortedKeyValueIterator<Key,Value> source = getSource();
+        List<Key> keys = Lists.newArrayList();
+        List<Value> values = Lists.newArrayList();
+        byte[] orderValue = null;
+        Key first = new Key(source.getTopKey());
+        while(source.hasTop() && source.getTopKey().equals(first, PartialKey.ROW)) {
+            Key k = source.getTopKey();
+            byte[] value = source.getTopValue().get().clone();
+            if(orderValue == null && k.compareColumnQualifier(qual) == 0 && k.compareColumnFamily(cf) == 0)
+                orderValue = value;
+            keys.add(new Key(k));
+            values.add(new Value(value));
+            source.next();
+        }
+        return new BufferedRow(sequence, orderValue, keys, values);
+    }
+
+    private BufferedRow readEncodedRow(long sequence) throws IOException {
+        SortedKeyValueIterator<Key,Value> source = getSource();
+        Key k = new Key(source.getTopKey());
+        Value v = new Value(source.getTopValue().get().clone());
+        source.next();
+        SortedMap<Key,Value> decoded = WholeRowIterator.decodeRow(k, v);
+        for(int i = 1; i < encodingLevels; i++) {
+            decoded = WholeRowIterator.decodeRow(decoded.firstKey(), decoded.get(decoded.firstKey()));
+        }
+        byte[] orderValue = null;
+        for(Map.Entry<Key,Value> entry : decoded.entrySet()) {
+            Key cell = entry.getKey();
+            if(cell.compareColumnQualifier(qual) == 0 && cell.compareColumnFamily(cf) == 0) {
+                orderValue = entry.getValue().get();
+                break;
+            }
+        }
+        return new BufferedRow(sequence, orderValue, Collections.singletonList(k), Collections.singletonList(v));
+    }
+
+    @Override
+    public boolean hasTop() {
+        return position < topKeys.size();
+    }
+
+    @Override
+    public void next() throws IOException {
+        position++;
+    }
+
+    @Override
+    public Key getTopKey() {
+        return topKeys.get(position);
+    }
+
+    @Override
+    public Value getTopValue() {
+        return topValues.get(position);
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+        TopNIterator copy = new TopNIterator();
+        copy.setSource(getSource().deepCopy(env));
+        copy.cf = cf;
+        copy.qual = qual;
+        copy.type = type;
+        copy.limit = limit;
+        copy.descending = descending;
+        copy.encodingLevels = encodingLevels;
+        return copy;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * LIMIT and ORDER BY ... LIMIT pushdown to the record reader and a Top-N iterator.
+ */
+package org.apache.accumulo.storagehandler.limit;
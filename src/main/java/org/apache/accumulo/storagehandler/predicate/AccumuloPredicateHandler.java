@@ -5,6 +5,7 @@ import com.google.common.collect.Maps;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.storagehandler.AccumuloHiveUtils;
+import org.apache.accumulo.storagehandler.AccumuloRowIdShards;
 import org.apache.accumulo.storagehandler.AccumuloSerde;
 import org.apache.accumulo.storagehandler.predicate.compare.*;
 import org.apache.commons.codec.binary.Base64;
@@ -14,12 +15,16 @@ import org.apache.hadoop.hive.serde2.io.DoubleWritable;
 import org.apache.hadoop.hive.ql.index.IndexPredicateAnalyzer;
 import org.apache.hadoop.hive.ql.index.IndexSearchCondition;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
 import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
 import org.apache.hadoop.hive.ql.plan.TableScanDesc;
 import org.apache.hadoop.hive.ql.udf.UDFLike;
 import org.apache.hadoop.hive.ql.udf.generic.*;
 import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.apache.hadoop.io.*;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.hive.ql.metadata.HiveStoragePredicateHandler.*;
@@ -34,7 +39,7 @@ import java.util.*;
  *
  * Supporting operations dealing with Hive Predicate pushdown to iterators and ranges.
  *
- * See {@link PrimitiveComparisonFilter}
+ * See {@link ConjunctiveComparisonFilter}
  *
  */
 public class AccumuloPredicateHandler {
@@ -42,6 +47,7 @@ public class AccumuloPredicateHandler {
     private static AccumuloPredicateHandler handler = new AccumuloPredicateHandler();
     private static Map<String, Class<? extends CompareOp>> compareOps = Maps.newHashMap();
     private static Map<String, Class<? extends PrimitiveCompare>> pComparisons = Maps.newHashMap();
+    private static Map<String, String> flippedOps = Maps.newHashMap();
     private static int iteratorCount = 0;
 
     private static final Logger log = Logger.getLogger(AccumuloPredicateHandler.class);
@@ -55,6 +61,13 @@ public class AccumuloPredicateHandler {
         compareOps.put(GenericUDFOPLessThan.class.getName(), LessThan.class);
         compareOps.put(UDFLike.class.getName(), Like.class);
 
+        flippedOps.put(GenericUDFOPEqual.class.getName(), GenericUDFOPEqual.class.getName());
+        flippedOps.put(GenericUDFOPNotEqual.class.getName(), GenericUDFOPNotEqual.class.getName());
+        flippedOps.put(GenericUDFOPGreaterThan.class.getName(), GenericUDFOPLessThan.class.getName());
+        flippedOps.put(GenericUDFOPEqualOrGreaterThan.class.getName(), GenericUDFOPEqualOrLessThan.class.getName());
+        flippedOps.put(GenericUDFOPEqualOrLessThan.class.getName(), GenericUDFOPEqualOrGreaterThan.class.getName());
+        flippedOps.put(GenericUDFOPLessThan.class.getName(), GenericUDFOPGreaterThan.class.getName());
+
         pComparisons.put("bigint", LongCompare.class);
         pComparisons.put("int", IntCompare.class);
         pComparisons.put("double", DoubleCompare.class);
@@ -107,26 +120,97 @@ public class AccumuloPredicateHandler {
     private AccumuloPredicateHandler(){}
 
     /**
-     * Loop through search conditions and build ranges
-     * for predicates involving rowID column, if any.
+     * Combine predicates involving the rowID column into sorted, disjoint ranges.
+     *
+     * AND intersects, OR and IN union, != becomes the two ranges either side of the constant.
+     * Predicates that do not restrict rowID leave the rows unrestricted. When rowID is sharded,
+     * see {@link AccumuloRowIdShards}, each range is expanded to the same range in every shard
+     * and a single rowID to the one shard it hashes to.
      *
+     * @return ranges to scan, null if rowID is unrestricted, or an empty list if no row can match.
      */
-    public Collection<Range> getRanges(JobConf conf)
+    public List<Range> getRanges(JobConf conf)
         throws SerDeException {
-        List<Range> ranges = Lists.newArrayList();
         String rowIdCol = AccumuloHiveUtils.hiveColForRowID(conf);
         if(rowIdCol == null)
+            return null;
+        String filteredExprSerialized = conf.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+        if(filteredExprSerialized == null)
+            return null;
+        ExprNodeDesc filterExpr = Utilities.deserializeExpression(filteredExprSerialized, conf);
+        List<Range> ranges = getRanges(conf, rowIdCol, filterExpr);
+        AccumuloRowIdShards shards = AccumuloRowIdShards.fromConf(conf);
+        if(shards != null)
+            ranges = shards.expand(ranges);
+        if(log.isInfoEnabled() && ranges != null)
+            log.info("rowID predicates reduced to " + ranges.size() + " ranges");
+        return ranges;
+    }
+
+    private List<Range> getRanges(JobConf conf, String rowIdCol, ExprNodeDesc expr)
+            throws SerDeException {
+        if(!(expr instanceof ExprNodeGenericFuncDesc))
+            return null;
+        ExprNodeGenericFuncDesc func = (ExprNodeGenericFuncDesc) expr;
+        GenericUDF udf = func.getGenericUDF();
+        List<ExprNodeDesc> children = func.getChildren();
+        if(udf instanceof GenericUDFOPAnd) {
+            List<Range> ranges = null;
+            for(ExprNodeDesc child : children) {
+                ranges = RowRanges.intersect(ranges, getRanges(conf, rowIdCol, child));
+                if(ranges != null && ranges.isEmpty())
+                    break;
+            }
             return ranges;
-        for(IndexSearchCondition sc : getSearchConditions(conf)) {
-            if(rowIdCol.equals(sc.getColumnDesc().getColumn()))
+        } else if (udf instanceof GenericUDFOPOr) {
+            List<Range> ranges = Lists.newArrayList();
+            for(ExprNodeDesc child : children) {
+                ranges = RowRanges.union(ranges, getRanges(conf, rowIdCol, child));
+                if(ranges == null)
+                    break;
+            }
+            return ranges;
+        } else if (udf instanceof GenericUDFIn) {
+            List<IndexSearchCondition> conditions = inConditions(func);
+            if(conditions == null || !isColumn(children.get(0), rowIdCol))
+                return null;
+            List<Range> ranges = Lists.newArrayList();
+            for(IndexSearchCondition sc : conditions) {
+                if(sc.getConstantDesc().getValue() == null)
+                    return null;
                 ranges.add(toRange(sc));
+            }
+            return RowRanges.merge(ranges);
         }
-        return ranges;
+        IndexSearchCondition sc = toCondition(conf, func);
+        if(sc == null || !isColumn(sc.getColumnDesc(), rowIdCol) ||
+                sc.getConstantDesc().getValue() == null || !rangeable(sc))
+            return null;
+        return toRanges(sc);
+    }
+
+    private boolean isColumn(ExprNodeDesc desc, String column) {
+        return desc instanceof ExprNodeColumnDesc && ((ExprNodeColumnDesc) desc).getColumn().equals(column);
+    }
+
+    //every comparison becomes ranges, LIKE only for exact and prefix patterns.
+    private boolean rangeable(IndexSearchCondition sc) {
+        if(!UDFLike.class.getName().equals(sc.getComparisonOp()))
+            return true;
+        LikeMatcher.Kind kind = new LikeMatcher((String) sc.getConstantDesc().getValue()).getKind();
+        return kind == LikeMatcher.Kind.EXACT || kind == LikeMatcher.Kind.PREFIX;
     }
 
     /**
-     * Loop through search conditions and build iterator settings
-     * for predicates involving columns other than rowID, if any.
+     * Build an iterator setting for the pushed predicates not already answered by rowID ranges, if any.
+     *
+     * All predicates go to a single filter iterator. By default {@link ConjunctiveComparisonFilter}
+     * encodes each accepted row once. Setting {@link AccumuloSerde#ITERATOR_FILTER_MODE} to
+     * {@link AccumuloSerde#STREAMING_FILTER} uses {@link StreamingComparisonFilter} instead,
+     * which seeks to the predicate columns and passes rows through unencoded.
+     *
+     * A conjunction of comparisons is passed as a plain list of conditions. OR, NOT and IN are
+     * encoded as a {@link PredicateExpression} over the conditions, with IN as an OR of equalities.
      *
      * @param conf JobConf
      * @throws SerDeException
@@ -138,18 +222,102 @@ public class AccumuloPredicateHandler {
             log.info("Iterator pushdown is disabled for this table");
             return itrs;
         }
+        String filteredExprSerialized = conf.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+        if(filteredExprSerialized == null)
+            return itrs;
+        ExprNodeDesc filterExpr = Utilities.deserializeExpression(filteredExprSerialized, conf);
 
         String rowIdCol = AccumuloHiveUtils.hiveColForRowID(conf);
-        for(IndexSearchCondition sc : getSearchConditions(conf)) {
-            String col = sc.getColumnDesc().getColumn();
-            if(rowIdCol == null || !rowIdCol.equals(col))
-                itrs.add(toSetting(conf, col, sc));
+        List<ExprNodeDesc> filtered = Lists.newArrayList();
+        List<IndexSearchCondition> columnConditions = Lists.newArrayList();
+        boolean comparisonsOnly = true;
+        for(ExprNodeDesc conjunct : conjuncts(filterExpr)) {
+            if(rangeExact(conf, rowIdCol, conjunct))
+                continue;
+            filtered.add(conjunct);
+            IndexSearchCondition sc = toCondition(conf, conjunct);
+            if(sc == null)
+                comparisonsOnly = false;
+            else
+                columnConditions.add(sc);
+        }
+        if(filtered.size() == 0)
+            return itrs;
+        if(comparisonsOnly) {
+            itrs.add(toSetting(conf, columnConditions));
+        } else {
+            IteratorSetting is = newSetting(conf);
+            List<PredicateExpression> parts = Lists.newArrayList();
+            for(ExprNodeDesc conjunct : filtered)
+                parts.add(toExpression(conf, is, conjunct));
+            ComparisonCondition.setExpression(is, ConjunctiveComparisonFilter.OPTION_PREFIX, PredicateExpression.and(parts));
+            itrs.add(is);
         }
         if(log.isInfoEnabled())
-            log.info("num iterators = " + itrs.size());
+            log.info("num pushed predicates = " + filtered.size());
         return itrs;
     }
 
+    /*
+     Add a condition for each comparison under expr and return the expression combining them.
+     */
+    private PredicateExpression toExpression(JobConf conf, IteratorSetting is, ExprNodeDesc expr)
+            throws SerDeException {
+        if(expr instanceof ExprNodeGenericFuncDesc) {
+            ExprNodeGenericFuncDesc func = (ExprNodeGenericFuncDesc) expr;
+            GenericUDF udf = func.getGenericUDF();
+            List<ExprNodeDesc> children = func.getChildren();
+            if(udf instanceof GenericUDFOPAnd || udf instanceof GenericUDFOPOr) {
+                List<PredicateExpression> parts = Lists.newArrayList();
+                for(ExprNodeDesc child : children)
+                    parts.add(toExpression(conf, is, child));
+                return udf instanceof GenericUDFOPAnd ? PredicateExpression.and(parts) : PredicateExpression.or(parts);
+            } else if (udf instanceof GenericUDFOPNot) {
+                return PredicateExpression.not(toExpression(conf, is, children.get(0)));
+            } else if (udf instanceof GenericUDFIn) {
+                List<PredicateExpression> parts = Lists.newArrayList();
+                for(IndexSearchCondition sc : inConditions(func))
+                    parts.add(PredicateExpression.condition(addCondition(conf, is, sc)));
+                return PredicateExpression.or(parts);
+            }
+            IndexSearchCondition sc = toCondition(conf, func);
+            if(sc != null)
+                return PredicateExpression.condition(addCondition(conf, is, sc));
+        }
+        throw new SerDeException("Unsupported predicate for iterator pushdown: " + expr.getExprString());
+    }
+
+    /*
+     column IN (constants) as one equality condition per constant, or null if any value is not a constant.
+     */
+    private List<IndexSearchCondition> inConditions(ExprNodeGenericFuncDesc func) {
+        List<ExprNodeDesc> children = func.getChildren();
+        if(!(children.get(0) instanceof ExprNodeColumnDesc))
+            return null;
+        List<IndexSearchCondition> conditions = Lists.newArrayList();
+        for(ExprNodeDesc child : children.subList(1, children.size())) {
+            if(!(child instanceof ExprNodeConstantDesc))
+                return null;
+            conditions.add(new IndexSearchCondition((ExprNodeColumnDesc) children.get(0),
+                    GenericUDFOPEqual.class.getName(), (ExprNodeConstantDesc) child, func));
+        }
+        return conditions;
+    }
+
+    /**
+     * Convert search condition to ranges. Same as {@link #toRange} except != becomes
+     * the two ranges either side of the constant.
+     *
+     * @param sc IndexSearchCondition to build into ranges.
+     * @throws SerDeException
+     */
+    public List<Range> toRanges(IndexSearchCondition sc)
+        throws SerDeException {
+        if(NotEqual.class.equals(compareOps.get(sc.getComparisonOp())))
+            return RowRanges.notEqual(new Text(new PushdownTuple(sc).getConstVal()));
+        return Lists.newArrayList(toRange(sc));
+    }
+
     /**
      * Convert search condition to start/stop range.
      *
@@ -171,39 +339,77 @@ public class AccumuloPredicateHandler {
             range = new Range(null, true, constText, true); //neg-infinity to start inclusive
         } else if (tuple.getcOpt() instanceof LessThan) {
             range = new Range(null, true, constText, false); //neg-infinity to start exclusive
+        } else if (tuple.getcOpt() instanceof Like) {
+            range = likeToRange(new String(tuple.getConstVal()));
         } else {
             throw new SerDeException("Unsupported comparison operator involving rowid: " +
-                    tuple.getcOpt().getClass().getName() + " only =, !=, <, <=, >, >=");
+                    tuple.getcOpt().getClass().getName() + " only =, <, <=, >, >=, like. See toRanges() for !=");
         }
         return range;
     }
 
+    /*
+     'abc' becomes a single row range, 'abc%' the range of rows starting with abc.
+     */
+    private Range likeToRange(String pattern)
+            throws SerDeException {
+        LikeMatcher matcher = new LikeMatcher(pattern);
+        if(matcher.getKind() == LikeMatcher.Kind.EXACT) {
+            return Range.exact(matcher.getLiteral());
+        } else if (matcher.getKind() == LikeMatcher.Kind.PREFIX) {
+            return Range.prefix(matcher.getLiteral());
+        }
+        throw new SerDeException("Only exact or prefix like patterns can be used with rowid: " + pattern);
+    }
+
     /**
-     * Create an IteratorSetting for the right qualifier, constant, CompareOpt, and
-     * PrimitiveCompare type.
+     * Create a single IteratorSetting holding the qualifier, constant, CompareOpt, and
+     * PrimitiveCompare type for each search condition. Conditions on rowID are compared against the row.
      *
      * @param conf JobConf.
-     * @param hiveCol to lookup matching accumulo qualifier
-     * @param sc IndexSearchCondition
+     * @param conditions IndexSearchConditions that must all hold.
      * @return IteratorSetting
      * @throws SerDeException
      */
     public IteratorSetting toSetting(JobConf conf,
-                                     String hiveCol,
-                                     IndexSearchCondition sc)
+                                     List<IndexSearchCondition> conditions)
             throws SerDeException{
+        IteratorSetting is = newSetting(conf);
+        for(IndexSearchCondition sc : conditions)
+            addCondition(conf, is, sc);
+        return is;
+    }
+
+    /*
+     Empty filter iterator setting of the type chosen by ITERATOR_FILTER_MODE.
+     */
+    private IteratorSetting newSetting(JobConf conf)
+            throws SerDeException {
         iteratorCount++;
-        IteratorSetting is = new IteratorSetting(iteratorCount,
-                PrimitiveComparisonFilter.FILTER_PREFIX + iteratorCount,
-                PrimitiveComparisonFilter.class);
+        String mode = conf.get(AccumuloSerde.ITERATOR_FILTER_MODE, AccumuloSerde.WHOLE_ROW_FILTER);
+        if(mode.equals(AccumuloSerde.STREAMING_FILTER)) {
+            return new IteratorSetting(iteratorCount,
+                    StreamingComparisonFilter.FILTER_NAME + iteratorCount,
+                    StreamingComparisonFilter.class);
+        } else if (mode.equals(AccumuloSerde.WHOLE_ROW_FILTER)) {
+            return new IteratorSetting(iteratorCount,
+                    ConjunctiveComparisonFilter.FILTER_NAME + iteratorCount,
+                    ConjunctiveComparisonFilter.class);
+        }
+        throw new SerDeException("Unsupported " + AccumuloSerde.ITERATOR_FILTER_MODE + ": " + mode +
+                " only " + AccumuloSerde.STREAMING_FILTER + ", " + AccumuloSerde.WHOLE_ROW_FILTER);
+    }
 
+    private int addCondition(JobConf conf, IteratorSetting is, IndexSearchCondition sc)
+            throws SerDeException {
         PushdownTuple tuple = new PushdownTuple(sc);
-        is.addOption(PrimitiveComparisonFilter.P_COMPARE_CLASS, tuple.getpCompare().getClass().getName());
-        is.addOption(PrimitiveComparisonFilter.COMPARE_OPT_CLASS, tuple.getcOpt().getClass().getName());
-        is.addOption(PrimitiveComparisonFilter.CONST_VAL,  new String(Base64.encodeBase64(tuple.getConstVal())));
-        is.addOption(PrimitiveComparisonFilter.COLUMN, AccumuloHiveUtils.hiveToAccumulo(hiveCol, conf));
-
-        return is;
+        String column = sc.getColumnDesc().getColumn();
+        return ComparisonCondition.addCondition(is, ConjunctiveComparisonFilter.OPTION_PREFIX,
+                column.equals(AccumuloHiveUtils.hiveColForRowID(conf)) ?
+                        ComparisonCondition.ROW_ID : AccumuloHiveUtils.hiveToAccumulo(column, conf),
+                tuple.getpCompare().getClass(),
+                tuple.getcOpt().getClass(),
+                tuple.getConstVal());
     }
 
     /**
@@ -217,37 +423,249 @@ public class AccumuloPredicateHandler {
         if(filteredExprSerialized == null)
             return sConditions;
         ExprNodeDesc filterExpr = Utilities.deserializeExpression(filteredExprSerialized, conf);
-        IndexPredicateAnalyzer analyzer = newAnalyzer(conf);
-        ExprNodeDesc residual = analyzer.analyzePredicate(filterExpr, sConditions);
-        if(residual != null)
-            throw new RuntimeException("Unexpected residual predicate: " + residual.getExprString());
+        List<IndexSearchCondition> likeConditions = Lists.newArrayList();
+        filterExpr = extractLikeConditions(conf, filterExpr, likeConditions);
+        if(filterExpr != null) {
+            IndexPredicateAnalyzer analyzer = newAnalyzer(conf);
+            ExprNodeDesc residual = analyzer.analyzePredicate(filterExpr, sConditions);
+            if(residual != null)
+                throw new RuntimeException("Unexpected residual predicate: " + residual.getExprString());
+        }
+        sConditions.addAll(likeConditions);
         return sConditions;
     }
 
     /**
      *
+     * @param conf JobConf
+     * @return names of the hive columns the pushed filter expression refers to, empty if there is none.
+     */
+    public Set<String> getFilterColumns(JobConf conf) {
+        Set<String> columns = new HashSet<String>();
+        String filteredExprSerialized = conf.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+        if(filteredExprSerialized == null)
+            return columns;
+        List<String> referenced = Utilities.deserializeExpression(filteredExprSerialized, conf).getCols();
+        if(referenced != null)
+            columns.addAll(referenced);
+        return columns;
+    }
+
+    /**
+     * Split the predicate into top level conjuncts and push each one the iterators or rowID ranges
+     * can answer exactly. Conjuncts may combine comparisons with AND, OR, NOT and IN. With iterator
+     * pushdown disabled, only conjuncts fully answered by rowID ranges are pushed.
      *
      * @param conf JobConf
      * @param desc predicate expression node.
-     * @return DecomposedPredicate containing translated search conditions the analyzer can support.
+     * @return DecomposedPredicate with the pushed and residual conjuncts, or null if nothing can be pushed.
      */
     public DecomposedPredicate decompose(JobConf conf, ExprNodeDesc desc) {
-
-
-        IndexPredicateAnalyzer analyzer = newAnalyzer(conf);
-        List<IndexSearchCondition> sConditions = new ArrayList<IndexSearchCondition>();
-        ExprNodeDesc residualPredicate = analyzer.analyzePredicate(desc, sConditions);
-        if(sConditions.size() == 0){
+        String rowIdCol = AccumuloHiveUtils.hiveColForRowID(conf);
+        boolean iterators = conf.get(AccumuloSerde.NO_ITERATOR_PUSHDOWN) == null;
+        List<ExprNodeDesc> pushed = Lists.newArrayList();
+        List<ExprNodeDesc> residual = Lists.newArrayList();
+        for(ExprNodeDesc conjunct : conjuncts(desc)) {
+            if(rangeExact(conf, rowIdCol, conjunct) || (iterators && pushable(conf, rowIdCol, conjunct)))
+                pushed.add(conjunct);
+            else
+                residual.add(conjunct);
+        }
+        if(pushed.size() == 0){
             if(log.isInfoEnabled())
                 log.info("nothing to decompose. Returning");
             return null;
         }
         DecomposedPredicate decomposedPredicate  = new DecomposedPredicate();
-        decomposedPredicate.pushedPredicate = analyzer.translateSearchConditions(sConditions);
-        decomposedPredicate.residualPredicate = residualPredicate;
+        decomposedPredicate.pushedPredicate = conjunction(pushed);
+        decomposedPredicate.residualPredicate = conjunction(residual);
         return decomposedPredicate;
     }
 
+    private List<ExprNodeDesc> conjuncts(ExprNodeDesc expr) {
+        List<ExprNodeDesc> conjuncts = Lists.newArrayList();
+        if(expr instanceof ExprNodeGenericFuncDesc &&
+                ((ExprNodeGenericFuncDesc) expr).getGenericUDF() instanceof GenericUDFOPAnd) {
+            for(ExprNodeDesc child : expr.getChildren())
+                conjuncts.addAll(conjuncts(child));
+        } else {
+            conjuncts.add(expr);
+        }
+        return conjuncts;
+    }
+
+    /*
+     GenericUDFOPAnd takes two arguments, so chain the conjuncts left deep. null if there are none.
+     */
+    private ExprNodeDesc conjunction(List<ExprNodeDesc> conjuncts) {
+        ExprNodeDesc result = null;
+        for(ExprNodeDesc conjunct : conjuncts) {
+            if(result == null) {
+                result = conjunct;
+            } else {
+                List<ExprNodeDesc> children = Lists.newArrayList();
+                children.add(result);
+                children.add(conjunct);
+                result = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), children);
+            }
+        }
+        return result;
+    }
+
+    /*
+     True if a filter iterator can evaluate expr. rowID comparisons are evaluated against the row,
+     so they need a string rowID that is not sharded.
+     */
+    private boolean pushable(JobConf conf, String rowIdCol, ExprNodeDesc expr) {
+        if(!(expr instanceof ExprNodeGenericFuncDesc))
+            return false;
+        ExprNodeGenericFuncDesc func = (ExprNodeGenericFuncDesc) expr;
+        GenericUDF udf = func.getGenericUDF();
+        if(udf instanceof GenericUDFOPAnd || udf instanceof GenericUDFOPOr || udf instanceof GenericUDFOPNot) {
+            for(ExprNodeDesc child : func.getChildren()) {
+                if(!pushable(conf, rowIdCol, child))
+                    return false;
+            }
+            return true;
+        } else if (udf instanceof GenericUDFIn) {
+            List<IndexSearchCondition> conditions = inConditions(func);
+            if(conditions == null)
+                return false;
+            for(IndexSearchCondition sc : conditions) {
+                if(!supported(conf, rowIdCol, sc))
+                    return false;
+            }
+            return true;
+        }
+        IndexSearchCondition sc = toCondition(conf, func);
+        return sc != null && supported(conf, rowIdCol, sc);
+    }
+
+    private boolean supported(JobConf conf, String rowIdCol, IndexSearchCondition sc) {
+        String column = sc.getColumnDesc().getColumn();
+        if(!AccumuloHiveUtils.parseColumnMapping(conf.get(serdeConstants.LIST_COLUMNS)).contains(column))
+            return false;
+        if(column.equals(rowIdCol) && (!serdeConstants.STRING_TYPE_NAME.equals(sc.getColumnDesc().getTypeString()) ||
+                AccumuloRowIdShards.fromConf(conf) != null))
+            return false;
+        if(sc.getConstantDesc().getValue() == null)
+            return false;
+        try {
+            new PushdownTuple(sc);
+            return true;
+        } catch (SerDeException e) {
+            if(log.isInfoEnabled())
+                log.info("Not pushing " + sc.getComparisonExpr().getExprString() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+     True if the rowID ranges from expr select exactly the rows matching it, so no filter is needed.
+     */
+    private boolean rangeExact(JobConf conf, String rowIdCol, ExprNodeDesc expr) {
+        if(rowIdCol == null || !(expr instanceof ExprNodeGenericFuncDesc))
+            return false;
+        ExprNodeGenericFuncDesc func = (ExprNodeGenericFuncDesc) expr;
+        GenericUDF udf = func.getGenericUDF();
+        if(udf instanceof GenericUDFOPAnd || udf instanceof GenericUDFOPOr) {
+            for(ExprNodeDesc child : func.getChildren()) {
+                if(!rangeExact(conf, rowIdCol, child))
+                    return false;
+            }
+            return true;
+        } else if (udf instanceof GenericUDFIn) {
+            List<IndexSearchCondition> conditions = inConditions(func);
+            if(conditions == null || !isColumn(func.getChildren().get(0), rowIdCol))
+                return false;
+            for(IndexSearchCondition sc : conditions) {
+                if(sc.getConstantDesc().getValue() == null)
+                    return false;
+            }
+            return true;
+        }
+        IndexSearchCondition sc = toCondition(conf, func);
+        return sc != null && isColumn(sc.getColumnDesc(), rowIdCol) &&
+               sc.getConstantDesc().getValue() != null && rangeable(sc);
+    }
+
+    /*
+     column op constant or constant op column, flipping the operator for the latter, or a LIKE.
+     null for anything else.
+     */
+    private IndexSearchCondition toCondition(JobConf conf, ExprNodeDesc expr) {
+        if(!(expr instanceof ExprNodeGenericFuncDesc))
+            return null;
+        ExprNodeGenericFuncDesc func = (ExprNodeGenericFuncDesc) expr;
+        IndexSearchCondition like = toLikeCondition(conf, func);
+        if(like != null)
+            return like;
+        String op = func.getGenericUDF().getClass().getName();
+        List<ExprNodeDesc> children = func.getChildren();
+        if(!flippedOps.containsKey(op) || children == null || children.size() != 2)
+            return null;
+        if(children.get(0) instanceof ExprNodeColumnDesc && children.get(1) instanceof ExprNodeConstantDesc)
+            return new IndexSearchCondition((ExprNodeColumnDesc) children.get(0), op,
+                    (ExprNodeConstantDesc) children.get(1), func);
+        if(children.get(0) instanceof ExprNodeConstantDesc && children.get(1) instanceof ExprNodeColumnDesc)
+            return new IndexSearchCondition((ExprNodeColumnDesc) children.get(1), flippedOps.get(op),
+                    (ExprNodeConstantDesc) children.get(0), func);
+        return null;
+    }
+
+    /*
+     IndexPredicateAnalyzer only matches GenericUDF class names, so it never picks up
+     UDFLike, which Hive wraps in a GenericUDFBridge. Pull pushable LIKE conjuncts out
+     ourselves and return what is left for the analyzer, or null if nothing is left.
+     */
+    private ExprNodeDesc extractLikeConditions(JobConf conf,
+                                               ExprNodeDesc expr,
+                                               List<IndexSearchCondition> likeConditions) {
+        if(!(expr instanceof ExprNodeGenericFuncDesc))
+            return expr;
+        ExprNodeGenericFuncDesc func = (ExprNodeGenericFuncDesc) expr;
+        if(func.getGenericUDF() instanceof GenericUDFOPAnd) {
+            List<ExprNodeDesc> remaining = Lists.newArrayList();
+            for(ExprNodeDesc child : func.getChildren()) {
+                ExprNodeDesc left = extractLikeConditions(conf, child, likeConditions);
+                if(left != null)
+                    remaining.add(left);
+            }
+            if(remaining.size() == 0)
+                return null;
+            if(remaining.size() == 1)
+                return remaining.get(0);
+            return new ExprNodeGenericFuncDesc(func.getTypeInfo(), func.getGenericUDF(), remaining);
+        }
+        IndexSearchCondition sc = toLikeCondition(conf, func);
+        if(sc == null)
+            return expr;
+        likeConditions.add(sc);
+        return null;
+    }
+
+    /*
+     column LIKE 'constant' over a string column. On rowID only exact and prefix patterns
+     become ranges, the rest are evaluated against the row by the filter iterator.
+     */
+    private IndexSearchCondition toLikeCondition(JobConf conf, ExprNodeGenericFuncDesc func) {
+        if(!(func.getGenericUDF() instanceof GenericUDFBridge) ||
+           !UDFLike.class.equals(((GenericUDFBridge) func.getGenericUDF()).getUdfClass()))
+            return null;
+        List<ExprNodeDesc> children = func.getChildren();
+        if(children.size() != 2 ||
+           !(children.get(0) instanceof ExprNodeColumnDesc) ||
+           !(children.get(1) instanceof ExprNodeConstantDesc))
+            return null;
+        ExprNodeColumnDesc column = (ExprNodeColumnDesc) children.get(0);
+        ExprNodeConstantDesc constant = (ExprNodeConstantDesc) children.get(1);
+        if(!serdeConstants.STRING_TYPE_NAME.equals(column.getTypeString()) || !(constant.getValue() instanceof String))
+            return null;
+        if(!AccumuloHiveUtils.parseColumnMapping(conf.get(serdeConstants.LIST_COLUMNS)).contains(column.getColumn()))
+            return null;
+        return new IndexSearchCondition(column, UDFLike.class.getName(), constant, func);
+    }
+
     /*
      Build an analyzer that allows comparison opts from compareOpts map, and all
      columns from table definition.
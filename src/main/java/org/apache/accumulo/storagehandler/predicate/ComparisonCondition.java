@@ -0,0 +1,180 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.storagehandler.predicate.compare.CompareOp;
+import org.apache.accumulo.storagehandler.predicate.compare.PrimitiveCompare;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One pushed predicate: a column family and qualifier plus the CompareOp
+ * that accepts or rejects its value.
+ *
+ * Conditions are passed to filter iterators as indexed options under a common prefix,
+ * so a single iterator can evaluate all of them. A condition on the rowID column
+ * compares the row itself. An optional {@link PredicateExpression} combines the
+ * conditions, otherwise all of them must hold.
+ */
+public class ComparisonCondition {
+
+    public static final String CONDITION_COUNT = "count";
+    public static final String COLUMN = "qual";
+    public static final String P_COMPARE_CLASS = "p.compare.class";
+    public static final String COMPARE_OPT_CLASS = "compare.opt.class";
+    public static final String CONST_VAL = "const.val";
+    public static final String EXPRESSION = "expr";
+    public static final String ROW_ID = "rowID";
+
+    private static final Pattern PIPE_PATTERN = Pattern.compile("[|]");
+
+    private final Text cf;
+    private final Text qual;
+    private final CompareOp compareOp;
+
+    public ComparisonCondition(String cf, String qual, CompareOp compareOp) {
+        this.cf = new Text(cf);
+        this.qual = new Text(qual);
+        this.compareOp = compareOp;
+    }
+
+    private ComparisonCondition(CompareOp compareOp) {
+        this.cf = null;
+        this.qual = null;
+        this.compareOp = compareOp;
+    }
+
+    /**
+     *
+     * @return condition evaluated against the row rather than a column value.
+     */
+    public static ComparisonCondition forRowId(CompareOp compareOp) {
+        return new ComparisonCondition(compareOp);
+    }
+
+    public boolean isRowId() {
+        return cf == null;
+    }
+
+    /**
+     *
+     * @return true if the key is in this condition's column family and qualifier. Always false for rowID.
+     */
+    public boolean matches(Key k) {
+        return cf != null &&
+               k.compareColumnQualifier(qual) == 0 &&
+               k.compareColumnFamily(cf) == 0;
+    }
+
+    public boolean accept(byte[] value) {
+        return compareOp.accept(value);
+    }
+
+    public Text getCf() {
+        return cf;
+    }
+
+    public Text getQual() {
+        return qual;
+    }
+
+    public CompareOp getCompareOp() {
+        return compareOp;
+    }
+
+    /**
+     * Append a condition to the setting. Conditions are numbered in the order added.
+     *
+     * @param is IteratorSetting to add options to.
+     * @param prefix option prefix for the iterator.
+     * @param column accumulo column as family|qualifier, or rowID
+     * @param pCompare PrimitiveCompare class for the value type.
+     * @param compareOp CompareOp class for the comparison.
+     * @param constant constant to compare values against, already in the Accumulo value encoding.
+     * @return number of the added condition, for use in a {@link PredicateExpression}.
+     */
+    public static int addCondition(IteratorSetting is,
+                                    String prefix,
+                                    String column,
+                                    Class<? extends PrimitiveCompare> pCompare,
+                                    Class<? extends CompareOp> compareOp,
+                                    byte[] constant) {
+        String countOpt = prefix + CONDITION_COUNT;
+        String count = is.getOptions().get(countOpt);
+        int index = count == null ? 0 : Integer.parseInt(count);
+        String condPrefix = prefix + index + ".";
+        is.addOption(condPrefix + COLUMN, column);
+        is.addOption(condPrefix + P_COMPARE_CLASS, pCompare.getName());
+        is.addOption(condPrefix + COMPARE_OPT_CLASS, compareOp.getName());
+        is.addOption(condPrefix + CONST_VAL, new String(Base64.encodeBase64(constant)));
+        is.addOption(countOpt, Integer.toString(index + 1));
+        return index;
+    }
+
+    /**
+     * Combine the conditions with expr instead of requiring all of them.
+     */
+    public static void setExpression(IteratorSetting is, String prefix, PredicateExpression expr) {
+        is.addOption(prefix + EXPRESSION, expr.toString());
+    }
+
+    /**
+     *
+     * @return expression set with {@link #setExpression}, or the conjunction of all conditions if none was set.
+     * @throws IOException if the expression is malformed.
+     */
+    public static PredicateExpression expressionFromOptions(Map<String, String> options, String prefix, int numConditions)
+            throws IOException {
+        String expr = options.get(prefix + EXPRESSION);
+        if(expr == null)
+            return PredicateExpression.allOf(numConditions);
+        return PredicateExpression.parse(expr, numConditions);
+    }
+
+    /**
+     * Read back the conditions written by {@link #addCondition}.
+     *
+     * @throws IOException if an option is missing or malformed.
+     */
+    public static List<ComparisonCondition> fromOptions(Map<String, String> options, String prefix)
+            throws IOException {
+        String count = options.get(prefix + CONDITION_COUNT);
+        if(count == null)
+            throw new IOException("Missing " + prefix + CONDITION_COUNT);
+        int numConditions = Integer.parseInt(count);
+        List<ComparisonCondition> conditions = Lists.newArrayListWithCapacity(numConditions);
+        for (int i = 0; i < numConditions; i++) {
+            String condPrefix = prefix + i + ".";
+            String col = options.get(condPrefix + COLUMN);
+            if(col == null)
+                throw new IOException("Missing " + condPrefix + COLUMN);
+            boolean rowId = col.equals(ROW_ID);
+            String[] splits = PIPE_PATTERN.split(col);
+            if(!rowId && splits.length !=2)
+                throw new IOException("Malformed " + condPrefix + COLUMN + ": " + col);
+            try {
+                Class<?> pClass = Class.forName(options.get(condPrefix + P_COMPARE_CLASS));
+                Class<?> cClazz = Class.forName(options.get(condPrefix + COMPARE_OPT_CLASS));
+                PrimitiveCompare pCompare = pClass.asSubclass(PrimitiveCompare.class).newInstance();
+                CompareOp compOpt = cClazz.asSubclass(CompareOp.class).newInstance();
+                //keep the decoded bytes as is. Round tripping through String corrupts binary constants.
+                pCompare.init(Base64.decodeBase64(options.get(condPrefix + CONST_VAL).getBytes()));
+                compOpt.setPrimitiveCompare(pCompare);
+                conditions.add(rowId ? forRowId(compOpt) : new ComparisonCondition(splits[0], splits[1], compOpt));
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            } catch (InstantiationException e) {
+                throw new IOException(e);
+            } catch (IllegalAccessException e) {
+                throw new IOException(e);
+            }
+        }
+        return conditions;
+    }
+}
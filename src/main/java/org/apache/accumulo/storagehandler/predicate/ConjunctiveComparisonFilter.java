@@ -0,0 +1,118 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates every pushed predicate in one pass over the row.
+ *
+ * By default a row is accepted only if each condition finds its column and the first value for
+ * that column passes. If a {@link PredicateExpression} is configured, conditions are combined by the
+ * expression instead, a missing column counts as UNKNOWN, and the row is accepted only if the
+ * expression is TRUE. Replaces a stack of {@link PrimitiveComparisonFilter} instances,
+ * so the row is encoded once on the tablet server and decoded once by the record reader.
+ *
+ * Conditions are configured with {@link ComparisonCondition#addCondition} using {@link #OPTION_PREFIX}.
+ */
+public class ConjunctiveComparisonFilter extends WholeRowIterator {
+
+    public static final String FILTER_NAME = "accumulo.filter.conjunction.iterator";
+    public static final String OPTION_PREFIX = "accumulo.filter.conjunction.";
+
+    private ComparisonCondition[] conditions;
+    private PredicateExpression expression;
+    private boolean hasRowIdConditions;
+    private boolean[] evaluated;
+    private byte[] results;
+
+    private final PredicateExpression.ConditionResults lookup = new PredicateExpression.ConditionResults() {
+        @Override
+        public byte get(int condition) {
+            return results[condition];
+        }
+    };
+
+    @Override
+    protected boolean filter(Text currentRow, List<Key> keys, List<Value> values) {
+        byte[] row = hasRowIdConditions ? Arrays.copyOf(currentRow.getBytes(), currentRow.getLength()) : null;
+        if(expression == null)
+            return acceptAll(row, keys, values);
+        Arrays.fill(results, PredicateExpression.UNKNOWN);
+        int remaining = conditions.length;
+        for (int c = 0; c < conditions.length; c++) {
+            if(conditions[c].isRowId()) {
+                results[c] = toResult(conditions[c].accept(row));
+                remaining--;
+            }
+        }
+        for (int i = 0; i < keys.size() && remaining > 0; i++) {
+            Key k = keys.get(i);
+            for (int c = 0; c < conditions.length; c++) {
+                if(results[c] == PredicateExpression.UNKNOWN && conditions[c].matches(k)) {
+                    results[c] = toResult(conditions[c].accept(values.get(i).get()));
+                    remaining--;
+                }
+            }
+        }
+        try {
+            return expression.evaluate(lookup) == PredicateExpression.TRUE;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //conjunction of every condition, rejecting as soon as one fails.
+    private boolean acceptAll(byte[] row, List<Key> keys, List<Value> values) {
+        Arrays.fill(evaluated, false);
+        int remaining = conditions.length;
+        for (int c = 0; c < conditions.length; c++) {
+            if(conditions[c].isRowId()) {
+                if(!conditions[c].accept(row))
+                    return false;
+                evaluated[c] = true;
+                remaining--;
+            }
+        }
+        for (int i = 0; i < keys.size() && remaining > 0; i++) {
+            Key k = keys.get(i);
+            for (int c = 0; c < conditions.length; c++) {
+                if(!evaluated[c] && conditions[c].matches(k)) {
+                    if(!conditions[c].accept(values.get(i).get()))
+                        return false;
+                    evaluated[c] = true;
+                    remaining--;
+                }
+            }
+        }
+        return remaining == 0;
+    }
+
+    private static byte toResult(boolean accepted) {
+        return accepted ? PredicateExpression.TRUE : PredicateExpression.FALSE;
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source,
+                     Map<String,String> options,
+                     IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        List<ComparisonCondition> conds = ComparisonCondition.fromOptions(options, OPTION_PREFIX);
+        conditions = conds.toArray(new ComparisonCondition[conds.size()]);
+        for (ComparisonCondition condition : conditions) {
+            hasRowIdConditions |= condition.isRowId();
+        }
+        if(options.containsKey(OPTION_PREFIX + ComparisonCondition.EXPRESSION))
+            expression = ComparisonCondition.expressionFromOptions(options, OPTION_PREFIX, conditions.length);
+        evaluated = new boolean[conditions.length];
+        results = new byte[conditions.length];
+    }
+}
@@ -0,0 +1,195 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Boolean expression over numbered {@link ComparisonCondition}s, evaluated by the
+ * filter iterators with SQL three valued logic. A condition whose column is missing
+ * from the row is UNKNOWN, and a row is accepted only if the expression is TRUE.
+ *
+ * Serialized as nested calls over condition numbers, for example and(0,or(1,not(2))).
+ */
+public abstract class PredicateExpression {
+
+    public static final byte FALSE = 0;
+    public static final byte TRUE = 1;
+    public static final byte UNKNOWN = 2;
+
+    /**
+     * Supplies the result of each condition for the current row. Filters can compute
+     * results on demand, so conditions skipped by short circuiting are never evaluated.
+     */
+    public interface ConditionResults {
+        byte get(int condition) throws IOException;
+    }
+
+    /**
+     *
+     * @return TRUE, FALSE or UNKNOWN.
+     */
+    public abstract byte evaluate(ConditionResults results) throws IOException;
+
+    public static PredicateExpression condition(int index) {
+        return new Condition(index);
+    }
+
+    public static PredicateExpression and(List<PredicateExpression> children) {
+        return children.size() == 1 ? children.get(0) : new Junction(true, children);
+    }
+
+    public static PredicateExpression or(List<PredicateExpression> children) {
+        return children.size() == 1 ? children.get(0) : new Junction(false, children);
+    }
+
+    public static PredicateExpression not(PredicateExpression child) {
+        return new Not(child);
+    }
+
+    /**
+     *
+     * @return conjunction of conditions 0 through numConditions - 1.
+     */
+    public static PredicateExpression allOf(int numConditions) {
+        List<PredicateExpression> children = Lists.newArrayListWithCapacity(numConditions);
+        for (int i = 0; i < numConditions; i++) {
+            children.add(condition(i));
+        }
+        return and(children);
+    }
+
+    /**
+     *
+     * @throws IOException if the expression is malformed or refers to a condition outside [0, numConditions).
+     */
+    public static PredicateExpression parse(String expression, int numConditions) throws IOException {
+        Parser parser = new Parser(expression, numConditions);
+        PredicateExpression parsed = parser.parse();
+        if(parser.pos != expression.length())
+            throw new IOException("Malformed predicate expression: " + expression);
+        return parsed;
+    }
+
+    private static class Condition extends PredicateExpression {
+        private final int index;
+
+        private Condition(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public byte evaluate(ConditionResults results) throws IOException {
+            return results.get(index);
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(index);
+        }
+    }
+
+    private static class Junction extends PredicateExpression {
+        private final boolean and;
+        private final PredicateExpression[] children;
+
+        private Junction(boolean and, List<PredicateExpression> children) {
+            this.and = and;
+            this.children = children.toArray(new PredicateExpression[children.size()]);
+        }
+
+        //FALSE decides an AND and TRUE decides an OR. Otherwise any UNKNOWN makes the result UNKNOWN.
+        @Override
+        public byte evaluate(ConditionResults results) throws IOException {
+            byte decisive = and ? FALSE : TRUE;
+            byte result = and ? TRUE : FALSE;
+            for (PredicateExpression child : children) {
+                byte childResult = child.evaluate(results);
+                if(childResult == decisive)
+                    return decisive;
+                if(childResult == UNKNOWN)
+                    result = UNKNOWN;
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(and ? "and(" : "or(");
+            for (int i = 0; i < children.length; i++) {
+                if(i > 0)
+                    builder.append(',');
+                builder.append(children[i]);
+            }
+            return builder.append(')').toString();
+        }
+    }
+
+    private static class Not extends PredicateExpression {
+        private final PredicateExpression child;
+
+        private Not(PredicateExpression child) {
+            this.child = child;
+        }
+
+        @Override
+        public byte evaluate(ConditionResults results) throws IOException {
+            byte childResult = child.evaluate(results);
+            if(childResult == UNKNOWN)
+                return UNKNOWN;
+            return childResult == TRUE ? FALSE : TRUE;
+        }
+
+        @Override
+        public String toString() {
+            return "not(" + child + ")";
+        }
+    }
+
+    private static class Parser {
+        private final String expression;
+        private final int numConditions;
+        private int pos;
+
+        private Parser(String expression, int numConditions) {
+            this.expression = expression;
+            this.numConditions = numConditions;
+        }
+
+        private PredicateExpression parse() throws IOException {
+            if(pos < expression.length() && Character.isDigit(expression.charAt(pos))) {
+                int start = pos;
+                while (pos < expression.length() && Character.isDigit(expression.charAt(pos)))
+                    pos++;
+                int index = Integer.parseInt(expression.substring(start, pos));
+                if(index >= numConditions)
+                    throw new IOException("Predicate expression refers to condition " + index +
+                            " but only " + numConditions + " conditions are configured");
+                return condition(index);
+            }
+            int open = expression.indexOf('(', pos);
+            if(open < 0)
+                throw new IOException("Malformed predicate expression: " + expression);
+            String op = expression.substring(pos, open);
+            pos = open + 1;
+            List<PredicateExpression> children = Lists.newArrayList();
+            children.add(parse());
+            while (pos < expression.length() && expression.charAt(pos) == ',') {
+                pos++;
+                children.add(parse());
+            }
+            if(pos >= expression.length() || expression.charAt(pos) != ')')
+                throw new IOException("Malformed predicate expression: " + expression);
+            pos++;
+            if(op.equals("and")) {
+                return new Junction(true, children);
+            } else if (op.equals("or")) {
+                return new Junction(false, children);
+            } else if (op.equals("not") && children.size() == 1) {
+                return not(children.get(0));
+            }
+            throw new IOException("Unsupported operator " + op + " in predicate expression: " + expression);
+        }
+    }
+}
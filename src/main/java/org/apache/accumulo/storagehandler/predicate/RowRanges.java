@@ -0,0 +1,73 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set operations over rowID ranges.
+ *
+ * A range set is a sorted list of disjoint ranges. null stands for every row
+ * (no restriction) and an empty list for no rows at all.
+ */
+public final class RowRanges {
+
+    private RowRanges() {}
+
+    /**
+     *
+     * @return sorted, disjoint ranges covering the same rows as the input.
+     */
+    public static List<Range> merge(Collection<Range> ranges) {
+        if(ranges.size() == 0)
+            return Collections.emptyList();
+        return Range.mergeOverlapping(ranges);
+    }
+
+    /**
+     *
+     * @return rows in both left and right.
+     */
+    public static List<Range> intersect(List<Range> left, List<Range> right) {
+        if(left == null)
+            return right;
+        if(right == null)
+            return left;
+        List<Range> result = Lists.newArrayList();
+        for(Range l : left) {
+            for(Range r : right) {
+                Range clipped = l.clip(r, true);
+                if(clipped != null)
+                    result.add(clipped);
+            }
+        }
+        return merge(result);
+    }
+
+    /**
+     *
+     * @return rows in either left or right.
+     */
+    public static List<Range> union(List<Range> left, List<Range> right) {
+        if(left == null || right == null)
+            return null;
+        List<Range> all = Lists.newArrayList(left);
+        all.addAll(right);
+        return merge(all);
+    }
+
+    /**
+     *
+     * @return every row except row.
+     */
+    public static List<Range> notEqual(Text row) {
+        List<Range> ranges = Lists.newArrayList();
+        ranges.add(new Range(null, true, row, false));
+        ranges.add(new Range(row, false, null, true));
+        return ranges;
+    }
+}
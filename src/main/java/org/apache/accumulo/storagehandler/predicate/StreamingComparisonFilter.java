@@ -0,0 +1,147 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.RowFilter;
+import org.apache.hadoop.io.Text;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates pushed predicates without buffering the row.
+ *
+ * For each row, seeks straight to each condition's column and checks the first value found.
+ * Accepted rows are passed through cell by cell, unencoded, so memory use does not grow with
+ * row width. Same acceptance rules as {@link ConjunctiveComparisonFilter}. When a
+ * {@link PredicateExpression} is configured, conditions are evaluated on demand, so a branch
+ * decided by short circuiting costs no seeks. Each condition keeps one seek range whose keys
+ * are pointed at the current row, so a row costs one copy of its row bytes rather than new
+ * keys and ranges per condition.
+ *
+ * Conditions are configured with {@link ComparisonCondition#addCondition} using
+ * {@link ConjunctiveComparisonFilter#OPTION_PREFIX}.
+ */
+public class StreamingComparisonFilter extends RowFilter {
+
+    public static final String FILTER_NAME = "accumulo.filter.streaming.iterator";
+
+    private static final Collection<ByteSequence> EMPTY_COLS = Collections.emptyList();
+    private static final byte NOT_EVALUATED = -1;
+
+    private ComparisonCondition[] conditions;
+    private RowKey[] seekStarts;
+    private RowKey[] seekEnds;
+    private Range[] seekRanges;
+    private PredicateExpression expression;
+    private final Text row = new Text();
+    private byte[] rowBytes;
+    private SortedKeyValueIterator<Key, Value> current;
+    private byte[] results;
+
+    private final PredicateExpression.ConditionResults lookup = new PredicateExpression.ConditionResults() {
+        @Override
+        public byte get(int condition) throws IOException {
+            if(results[condition] == NOT_EVALUATED)
+                results[condition] = evaluate(condition);
+            return results[condition];
+        }
+    };
+
+    @Override
+    public boolean acceptRow(SortedKeyValueIterator<Key, Value> rowIterator) throws IOException {
+        if(!rowIterator.hasTop())
+            return false;
+        rowIterator.getTopKey().getRow(row);
+        rowBytes = null;
+        current = rowIterator;
+        if(expression == null) {
+            for (int c = 0; c < conditions.length; c++) {
+                if(evaluate(c) != PredicateExpression.TRUE)
+                    return false;
+            }
+            return true;
+        }
+        Arrays.fill(results, NOT_EVALUATED);
+        return expression.evaluate(lookup) == PredicateExpression.TRUE;
+    }
+
+    //TRUE or FALSE from the condition's value, UNKNOWN if the row does not have the column.
+    private byte evaluate(int c) throws IOException {
+        ComparisonCondition condition = conditions[c];
+        byte[] value;
+        if(rowBytes == null)
+            rowBytes = Arrays.copyOf(row.getBytes(), row.getLength());
+        if(condition.isRowId()) {
+            value = rowBytes;
+        } else {
+            seekStarts[c].setRow(rowBytes);
+            seekEnds[c].setRow(rowBytes);
+            current.seek(seekRanges[c], EMPTY_COLS, false);
+            if(!current.hasTop())
+                return PredicateExpression.UNKNOWN;
+            value = current.getTopValue().get();
+        }
+        return condition.accept(value) ? PredicateExpression.TRUE : PredicateExpression.FALSE;
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source,
+                     Map<String,String> options,
+                     IteratorEnvironment env) throws IOException {
+        super.init(source, options, env);
+        List<ComparisonCondition> conds = ComparisonCondition.fromOptions(options, ConjunctiveComparisonFilter.OPTION_PREFIX);
+        conditions = conds.toArray(new ComparisonCondition[conds.size()]);
+        if(options.containsKey(ConjunctiveComparisonFilter.OPTION_PREFIX + ComparisonCondition.EXPRESSION))
+            expression = ComparisonCondition.expressionFromOptions(options,
+                    ConjunctiveComparisonFilter.OPTION_PREFIX, conditions.length);
+        results = new byte[conditions.length];
+        initSeekRanges();
+    }
+
+    private void initSeekRanges() {
+        seekStarts = new RowKey[conditions.length];
+        seekEnds = new RowKey[conditions.length];
+        seekRanges = new Range[conditions.length];
+        for (int c = 0; c < conditions.length; c++) {
+            if(conditions[c].isRowId())
+                continue;
+            Key start = new Key(new Text(), conditions[c].getCf(), conditions[c].getQual());
+            seekStarts[c] = new RowKey(start);
+            seekEnds[c] = new RowKey(start.followingKey(PartialKey.ROW_COLFAM_COLQUAL));
+            seekRanges[c] = new Range(seekStarts[c], true, seekEnds[c], false);
+        }
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+        StreamingComparisonFilter copy = (StreamingComparisonFilter) super.deepCopy(env);
+        copy.conditions = conditions;
+        copy.expression = expression;
+        copy.results = new byte[conditions.length];
+        copy.initSeekRanges();
+        return copy;
+    }
+
+    /*
+      Key whose row is replaced in place, so a condition's seek range is reused for every row.
+     */
+    private static class RowKey extends Key {
+        private RowKey(Key key) {
+            super(key);
+        }
+
+        private void setRow(byte[] rowBytes) {
+            row = rowBytes;
+        }
+    }
+}
@@ -13,16 +13,18 @@ import java.nio.ByteBuffer;
  */
 public class DoubleCompare implements PrimitiveCompare {
 
-    private BigDecimal constant;
+    private double constant;
 
     /**
      *
      */
     public void init(byte[] constant) {
-        this.constant = serialize(constant);
+        this.constant = RawBytes.readDouble(constant);
     }
 
     /**
+     * Comparisons read the double in place with {@link RawBytes}. Primitive comparison
+     * treats 0.0 and -0.0 as equal, as BigDecimal did.
      *
      * @return BigDecimal holding double byte [] value
      */
@@ -41,7 +43,7 @@ public class DoubleCompare implements PrimitiveCompare {
      */
     @Override
     public boolean isEqual(byte[] value) {
-        return serialize(value).compareTo(constant) == 0;
+        return RawBytes.readDouble(value) == constant;
     }
 
     /**
@@ -50,7 +52,7 @@ public class DoubleCompare implements PrimitiveCompare {
      */
     @Override
     public boolean isNotEqual(byte[] value) {
-        return serialize(value).compareTo(constant) != 0;
+        return RawBytes.readDouble(value) != constant;
     }
 
     /**
@@ -59,7 +61,7 @@ public class DoubleCompare implements PrimitiveCompare {
      */
     @Override
     public boolean greaterThanOrEqual(byte[] value) {
-        return serialize(value).compareTo(constant) >= 0;
+        return RawBytes.readDouble(value) >= constant;
     }
 
     /**
@@ -69,7 +71,7 @@ public class DoubleCompare implements PrimitiveCompare {
      */
     @Override
     public boolean greaterThan(byte[] value) {
-        return serialize(value).compareTo(constant) > 0;
+        return RawBytes.readDouble(value) > constant;
     }
 
     /**
@@ -79,7 +81,7 @@ public class DoubleCompare implements PrimitiveCompare {
      */
     @Override
     public boolean lessThanOrEqual(byte[] value) {
-        return serialize(value).compareTo(constant) <= 0;
+        return RawBytes.readDouble(value) <= constant;
     }
 
     /**
@@ -89,7 +91,7 @@ public class DoubleCompare implements PrimitiveCompare {
      */
     @Override
     public boolean lessThan(byte[] value) {
-        return serialize(value).compareTo(constant) < 0;
+        return RawBytes.readDouble(value) < constant;
     }
 
     /**
@@ -16,37 +16,37 @@ public class IntCompare implements PrimitiveCompare {
 
     @Override
     public void init(byte[] constant) {
-       this.constant = serialize(constant);
+       this.constant = RawBytes.readInt(constant);
     }
 
     @Override
     public boolean isEqual(byte[] value) {
-        return  serialize(value) == constant;
+        return RawBytes.readInt(value) == constant;
     }
 
     @Override
     public boolean isNotEqual(byte[] value) {
-        return serialize(value) != constant;
+        return RawBytes.readInt(value) != constant;
     }
 
     @Override
     public boolean greaterThanOrEqual(byte[] value) {
-        return serialize(value) >= constant;
+        return RawBytes.readInt(value) >= constant;
     }
 
     @Override
     public boolean greaterThan(byte[] value) {
-        return serialize(value) > constant;
+        return RawBytes.readInt(value) > constant;
     }
 
     @Override
     public boolean lessThanOrEqual(byte[] value) {
-        return serialize(value) <= constant;
+        return RawBytes.readInt(value) <= constant;
     }
 
     @Override
     public boolean lessThan(byte[] value) {
-        return serialize(value) < constant;
+        return RawBytes.readInt(value) < constant;
     }
 
     @Override
@@ -54,6 +54,9 @@ public class IntCompare implements PrimitiveCompare {
         throw new UnsupportedOperationException("Like not supported for " + getClass().getName());
     }
 
+    /**
+     * Boxes the value. Comparisons read the int in place with {@link RawBytes}.
+     */
     public Integer serialize(byte[] value) {
         try {
             return ByteBuffer.wrap(value).asIntBuffer().get();
@@ -0,0 +1,169 @@
+package org.apache.accumulo.storagehandler.predicate.compare;
+
+import com.google.common.collect.Lists;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Hive LIKE pattern compiled once and matched against UTF8 value bytes.
+ *
+ * '%' matches any sequence and '_' any single character. A backslash escapes either.
+ * Patterns using only '%' are matched directly on the bytes, with exact, prefix, suffix
+ * and contains as special cases. Patterns using '_' fall back to a regular expression.
+ */
+public class LikeMatcher {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    public static enum Kind { EXACT, PREFIX, SUFFIX, CONTAINS, SEGMENTS, REGEX }
+
+    private final Kind kind;
+    private final byte[][] segments;
+    private final String literal;
+    private final Pattern regex;
+
+    public LikeMatcher(String likePattern) {
+        List<String> literals = Lists.newArrayList();
+        StringBuilder current = new StringBuilder();
+        StringBuilder regexBuilder = new StringBuilder();
+        boolean singleChar = false;
+        boolean lastWasPercent = false;
+        for (int i = 0; i < likePattern.length(); i++) {
+            char c = likePattern.charAt(i);
+            if(c == '\\' && i + 1 < likePattern.length() &&
+                    (likePattern.charAt(i + 1) == '%' || likePattern.charAt(i + 1) == '_')) {
+                c = likePattern.charAt(++i);
+                current.append(c);
+                regexBuilder.append(Pattern.quote(Character.toString(c)));
+                lastWasPercent = false;
+            } else if (c == '%') {
+                if(!lastWasPercent) {
+                    literals.add(current.toString());
+                    current.setLength(0);
+                    regexBuilder.append(".*");
+                }
+                lastWasPercent = true;
+            } else if (c == '_') {
+                singleChar = true;
+                regexBuilder.append('.');
+                lastWasPercent = false;
+            } else {
+                current.append(c);
+                regexBuilder.append(Pattern.quote(Character.toString(c)));
+                lastWasPercent = false;
+            }
+        }
+        literals.add(current.toString());
+
+        segments = new byte[literals.size()][];
+        for (int i = 0; i < literals.size(); i++) {
+            segments[i] = literals.get(i).getBytes(UTF8);
+        }
+        int last = segments.length - 1;
+        if(singleChar) {
+            kind = Kind.REGEX;
+        } else if (segments.length == 1) {
+            kind = Kind.EXACT;
+        } else if (segments.length == 2 && segments[last].length == 0) {
+            kind = Kind.PREFIX;
+        } else if (segments.length == 2 && segments[0].length == 0) {
+            kind = Kind.SUFFIX;
+        } else if (segments.length == 3 && segments[0].length == 0 && segments[last].length == 0) {
+            kind = Kind.CONTAINS;
+        } else {
+            kind = Kind.SEGMENTS;
+        }
+        literal = kind == Kind.EXACT || kind == Kind.PREFIX ? literals.get(0) : null;
+        regex = kind == Kind.REGEX ? Pattern.compile(regexBuilder.toString(), Pattern.DOTALL) : null;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     *
+     * @return unescaped literal for EXACT and PREFIX patterns, null otherwise.
+     */
+    public String getLiteral() {
+        return literal;
+    }
+
+    /**
+     *
+     * @return true if the UTF8 value matches the pattern.
+     */
+    public boolean matches(byte[] value) {
+        switch (kind) {
+            case EXACT:
+                return Arrays.equals(value, segments[0]);
+            case PREFIX:
+                return startsWith(value, segments[0]);
+            case SUFFIX:
+                return endsWith(value, segments[1]);
+            case CONTAINS:
+                return indexOf(value, segments[1], 0, value.length) >= 0;
+            case SEGMENTS:
+                return matchSegments(value);
+            default:
+                return regex.matcher(new String(value, UTF8)).matches();
+        }
+    }
+
+    /*
+      First segment anchors the start, last anchors the end, middle segments
+      must appear in order between them. Leftmost matching is enough when the only wildcard is '%'.
+     */
+    private boolean matchSegments(byte[] value) {
+        byte[] first = segments[0];
+        byte[] last = segments[segments.length - 1];
+        if(value.length < first.length + last.length || !startsWith(value, first) || !endsWith(value, last))
+            return false;
+        int pos = first.length;
+        int end = value.length - last.length;
+        for (int i = 1; i < segments.length - 1; i++) {
+            int found = indexOf(value, segments[i], pos, end);
+            if(found < 0)
+                return false;
+            pos = found + segments[i].length;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] value, byte[] prefix) {
+        if(value.length < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if(value[i] != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean endsWith(byte[] value, byte[] suffix) {
+        int offset = value.length - suffix.length;
+        if(offset < 0)
+            return false;
+        for (int i = 0; i < suffix.length; i++) {
+            if(value[offset + i] != suffix[i])
+                return false;
+        }
+        return true;
+    }
+
+    //index of target within value[from, to), or -1.
+    private static int indexOf(byte[] value, byte[] target, int from, int to) {
+        outer:
+        for (int i = from; i <= to - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if(value[i + j] != target[j])
+                    continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -16,38 +16,37 @@ public class LongCompare implements PrimitiveCompare {
 
     @Override
     public void init(byte[] constant) {
-        this.constant = serialize(constant);
+        this.constant = RawBytes.readLong(constant);
     }
 
     @Override
     public boolean isEqual(byte[] value) {
-        long lonVal = serialize(value);
-        return lonVal == constant;
+        return RawBytes.readLong(value) == constant;
     }
 
     @Override
     public boolean isNotEqual(byte[] value) {
-        return serialize(value) != constant;
+        return RawBytes.readLong(value) != constant;
     }
 
     @Override
     public boolean greaterThanOrEqual(byte[] value) {
-        return serialize(value) >= constant;
+        return RawBytes.readLong(value) >= constant;
     }
 
     @Override
     public boolean greaterThan(byte[] value) {
-        return serialize(value) > constant;
+        return RawBytes.readLong(value) > constant;
     }
 
     @Override
     public boolean lessThanOrEqual(byte[] value) {
-        return serialize(value) <= constant;
+        return RawBytes.readLong(value) <= constant;
     }
 
     @Override
     public boolean lessThan(byte[] value) {
-        return serialize(value) < constant;
+        return RawBytes.readLong(value) < constant;
     }
 
     @Override
@@ -55,6 +54,9 @@ public class LongCompare implements PrimitiveCompare {
         throw new UnsupportedOperationException("Like not supported for " + getClass().getName());
     }
 
+    /**
+     * Boxes the value. Comparisons read the long in place with {@link RawBytes}.
+     */
     public Long serialize(byte[] value) {
         try {
             return ByteBuffer.wrap(value).asLongBuffer().get();
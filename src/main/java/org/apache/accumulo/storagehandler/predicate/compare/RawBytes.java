@@ -0,0 +1,84 @@
+package org.apache.accumulo.storagehandler.predicate.compare;
+
+/**
+ * Reads primitive values straight from big-endian Accumulo value bytes and compares
+ * UTF8 bytes, without allocating.
+ *
+ * Used by the PrimitiveCompare implementations, which run once per row per predicate
+ * inside the tablet server, and by the binary lazy objects that hand the values to Hive.
+ */
+public final class RawBytes {
+
+    private RawBytes() {}
+
+    public static int readInt(byte[] value) {
+        checkWidth(value, 4, "int");
+        return readInt(value, 0);
+    }
+
+    public static long readLong(byte[] value) {
+        checkWidth(value, 8, "long");
+        return readLong(value, 0);
+    }
+
+    public static double readDouble(byte[] value) {
+        checkWidth(value, 8, "double");
+        return readDouble(value, 0);
+    }
+
+    /**
+     *
+     * @return big-endian int starting at offset. The caller checks there are 4 bytes.
+     */
+    public static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) |
+               ((bytes[offset + 1] & 0xff) << 16) |
+               ((bytes[offset + 2] & 0xff) << 8) |
+               (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     *
+     * @return big-endian long starting at offset. The caller checks there are 8 bytes.
+     */
+    public static long readLong(byte[] bytes, int offset) {
+        return ((long)(bytes[offset] & 0xff) << 56) |
+               ((long)(bytes[offset + 1] & 0xff) << 48) |
+               ((long)(bytes[offset + 2] & 0xff) << 40) |
+               ((long)(bytes[offset + 3] & 0xff) << 32) |
+               ((long)(bytes[offset + 4] & 0xff) << 24) |
+               ((long)(bytes[offset + 5] & 0xff) << 16) |
+               ((long)(bytes[offset + 6] & 0xff) << 8) |
+               ((long)(bytes[offset + 7] & 0xff));
+    }
+
+    /**
+     *
+     * @return big-endian double starting at offset. The caller checks there are 8 bytes.
+     */
+    public static double readDouble(byte[] bytes, int offset) {
+        return Double.longBitsToDouble(readLong(bytes, offset));
+    }
+
+    /**
+     * Lexicographic comparison treating each byte as unsigned. For UTF8 this
+     * orders strings by code point.
+     *
+     * @return negative, zero or positive as left is less than, equal to or greater than right.
+     */
+    public static int compareUnsigned(byte[] left, byte[] right) {
+        int len = Math.min(left.length, right.length);
+        for (int i = 0; i < len; i++) {
+            int diff = (left[i] & 0xff) - (right[i] & 0xff);
+            if(diff != 0)
+                return diff;
+        }
+        return left.length - right.length;
+    }
+
+    private static void checkWidth(byte[] value, int width, String type) {
+        if(value.length < width)
+            throw new RuntimeException("Value with " + value.length + " bytes occurred trying to build " + type + " value. " +
+                    "Make sure the value type for the byte[] is " + type + " ");
+    }
+}
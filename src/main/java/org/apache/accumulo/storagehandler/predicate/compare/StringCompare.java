@@ -3,29 +3,32 @@ package org.apache.accumulo.storagehandler.predicate.compare;
 import org.apache.accumulo.storagehandler.predicate.AccumuloPredicateHandler;
 import org.apache.log4j.Logger;
 
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
 /**
  *
  * Set of comparison operations over a string constant. Used for Hive
- * predicates involving string comparison.
+ * predicates involving string comparison. Values are compared as unsigned
+ * UTF8 bytes, which orders by code point.
  *
  * Used by {@link org.apache.accumulo.storagehandler.predicate.PrimitiveComparisonFilter}
  *
  */
 public class StringCompare implements PrimitiveCompare {
 
-    private String constant;
+    private byte[] constant;
+    private LikeMatcher likeMatcher;
     private static final Logger log = Logger.getLogger(StringCompare.class);
 
     @Override
     public void init(byte[] constant) {
-        this.constant = serialize(constant);
+        this.constant = constant;
+        this.likeMatcher = null;
     }
 
     @Override
     public boolean isEqual(byte[] value) {
-        return serialize(value).equals(constant);
+        return Arrays.equals(value, constant);
     }
 
     @Override
@@ -35,30 +38,35 @@ public class StringCompare implements PrimitiveCompare {
 
     @Override
     public boolean greaterThanOrEqual(byte[] value) {
-        return serialize(value).compareTo(constant) >= 0;
+        return RawBytes.compareUnsigned(value, constant) >= 0;
     }
 
     @Override
     public boolean greaterThan(byte[] value) {
-        return serialize(value).compareTo(constant) > 0;
+        return RawBytes.compareUnsigned(value, constant) > 0;
     }
 
     @Override
     public boolean lessThanOrEqual(byte[] value) {
-        return serialize(value).compareTo(constant) <= 0;
+        return RawBytes.compareUnsigned(value, constant) <= 0;
     }
 
     @Override
     public boolean lessThan(byte[] value) {
-        return serialize(value).compareTo(constant) < 0;
+        return RawBytes.compareUnsigned(value, constant) < 0;
     }
 
+    /**
+     * The constant is the LIKE pattern, compiled on the first call. Other comparisons never
+     * compile it, even when their constant holds '%' or '_'.
+     *
+     * @return true if value matches the pattern, false otherwise.
+     */
     @Override
     public boolean like(byte[] value) {
-        String temp = new String(value).replaceAll("%", "[\\\\\\w]+?");
-        Pattern pattern = Pattern.compile(temp);
-        boolean match = pattern.matcher(constant).matches();
-        return match;
+        if(likeMatcher == null)
+            likeMatcher = new LikeMatcher(serialize(constant));
+        return likeMatcher.matches(value);
     }
 
     public String serialize(byte[] value) {
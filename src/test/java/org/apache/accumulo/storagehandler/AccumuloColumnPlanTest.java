@@ -0,0 +1,74 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+import static org.testng.Assert.*;
+
+public class AccumuloColumnPlanTest {
+
+    private AccumuloColumnPlan plan;
+
+    @BeforeClass
+    public void setup() {
+        JobConf conf = new JobConf();
+        conf.set(serdeConstants.LIST_COLUMNS, "event_date,source,lat,event_millis,id");
+        conf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string,double,bigint,int");
+        conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf|dt,cf|src,cf|lat,cf|dtm,rowID");
+        plan = AccumuloColumnPlan.fromConf(conf);
+    }
+
+    @Test
+    public void lookupByFamilyAndQualifier() {
+        Key key = new Key(new Text("r1"), new Text("cf"), new Text("lat"));
+        AccumuloColumnPlan.Column column = plan.getColumn(key.getColumnFamilyData(), key.getColumnQualifierData());
+        assertNotNull(column);
+        assertEquals(column.getIndex(), 2);
+        assertEquals(column.getHiveName(), "lat");
+        assertEquals(column.getValueType(), AccumuloColumnPlan.ValueType.DOUBLE);
+
+        assertNull(plan.getColumn(new ArrayByteSequence("cf"), new ArrayByteSequence("blah")));
+        assertNull(plan.getColumn(new ArrayByteSequence("blah"), new ArrayByteSequence("lat")));
+    }
+
+    @Test
+    public void rowId() {
+        assertEquals(plan.getRowIdIndex(), 4);
+        assertTrue(plan.getColumn(4).isRowId());
+        assertFalse(plan.getColumn(0).isRowId());
+    }
+
+    @Test
+    public void malformedPair() {
+        try {
+            JobConf conf = new JobConf();
+            conf.set(serdeConstants.LIST_COLUMNS, "f1,f2");
+            conf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string");
+            conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf,cf|f2");
+            AccumuloColumnPlan.fromConf(conf);
+            fail("Should fail for malformed fam/qual pair");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Malformed famQualPair"));
+        }
+    }
+
+    @Test
+    public void typeMismatch() {
+        try {
+            JobConf conf = new JobConf();
+            conf.set(serdeConstants.LIST_COLUMNS, "f1,f2");
+            conf.set(serdeConstants.LIST_COLUMN_TYPES, "string");
+            conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf|f1,cf|f2");
+            AccumuloColumnPlan.fromConf(conf);
+            fail("Should fail for mismatched number of types");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("does not match number of types"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Instance;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.util.StringUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class AccumuloConnectionCacheTest {
+
+    private static final String USER = "user";
+    private static final String PASS = "password";
+
+    private Instance instance = new MockInstance("connection_cache_instance");
+
+    @BeforeMethod
+    public void clearCache() {
+        AccumuloConnectionCache.clear();
+    }
+
+    @Test
+    public void instances() {
+        Instance first = AccumuloConnectionCache.getInstance("inst", "localhost:2181");
+        assertSame(AccumuloConnectionCache.getInstance("inst", "localhost:2181"), first);
+        assertNotSame(AccumuloConnectionCache.getInstance("inst", "otherhost:2181"), first);
+    }
+
+    @Test
+    public void connectors() {
+        try {
+            Connector first = AccumuloConnectionCache.getConnector(instance, USER, PASS);
+            assertSame(AccumuloConnectionCache.getConnector(instance, USER, PASS), first);
+            assertNotSame(AccumuloConnectionCache.getConnector(instance, "other", PASS), first);
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void authorizationsExpire() {
+        try {
+            Connector connector = AccumuloConnectionCache.getConnector(instance, USER, PASS);
+            connector.securityOperations().changeUserAuthorizations(USER, new Authorizations("a"));
+            assertEquals(AccumuloConnectionCache.getAuthorizations(connector, USER, 60000), new Authorizations("a"));
+
+            connector.securityOperations().changeUserAuthorizations(USER, new Authorizations("b"));
+            assertEquals(AccumuloConnectionCache.getAuthorizations(connector, USER, 60000), new Authorizations("a"));
+
+            //a shorter TTL than the one the entry was cached with still applies to this caller.
+            Thread.sleep(20);
+            assertEquals(AccumuloConnectionCache.getAuthorizations(connector, USER, 10), new Authorizations("b"));
+            assertEquals(AccumuloConnectionCache.getAuthorizations(connector, USER, 60000), new Authorizations("b"));
+
+            connector.securityOperations().changeUserAuthorizations(USER, new Authorizations("c"));
+            assertEquals(AccumuloConnectionCache.getAuthorizations(connector, USER, 0), new Authorizations("c"));
+            assertEquals(AccumuloConnectionCache.getAuthorizations(connector, USER, 60000), new Authorizations("c"));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.apache.accumulo.storagehandler;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every column of a row, as LazyAccumuloRow does for select *, with the
+ * indexed lookup and with the linear tuple scan it replaced.
+ *
+ * Run with main() from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AccumuloHiveRowBenchmark {
+
+    private static final String CF = "cf";
+
+    @Param({"10", "100", "1000"})
+    public int columns;
+
+    private String[] quals;
+    private byte[] value = "value".getBytes();
+    private AccumuloHiveRow row;
+
+    @Setup
+    public void setup() {
+        quals = new String[columns];
+        row = new AccumuloHiveRow("r1");
+        for (int i = 0; i < columns; i++) {
+            quals[i] = "q" + i;
+            row.add(CF, quals[i], value);
+        }
+    }
+
+    @Benchmark
+    public void indexedLookup(Blackhole bh) {
+        for (String qual : quals) {
+            bh.consume(row.getValue(CF, qual));
+        }
+    }
+
+    @Benchmark
+    public void linearLookup(Blackhole bh) {
+        for (String qual : quals) {
+            bh.consume(linearGetValue(CF, qual));
+        }
+    }
+
+    //includes the cost of building the index for each row.
+    @Benchmark
+    public void fillAndIndexedLookup(Blackhole bh) {
+        row.clear();
+        row.setRowId("r1");
+        for (String qual : quals) {
+            row.add(CF, qual, value);
+        }
+        indexedLookup(bh);
+    }
+
+    private byte[] linearGetValue(String fam, String qual) {
+        for (AccumuloHiveRow.ColumnTuple tuple : row.tuples) {
+            if(tuple.getCf().equals(fam) && tuple.getQual().equals(qual)){
+                return tuple.getValue();
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AccumuloHiveRowBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
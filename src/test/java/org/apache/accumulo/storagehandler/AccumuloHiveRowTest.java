@@ -0,0 +1,62 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.testng.Assert.*;
+
+public class AccumuloHiveRowTest {
+
+    @Test
+    public void wideRowLookup() {
+        AccumuloHiveRow row = new AccumuloHiveRow("r1");
+        for (int i = 0; i < 1000; i++) {
+            row.add("cf", "q" + i, ("v" + i).getBytes());
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(row.hasFamAndQual("cf", "q" + i));
+            assertEquals(row.getValue("cf", "q" + i), ("v" + i).getBytes());
+        }
+        assertFalse(row.hasFamAndQual("cf", "q1000"));
+        assertFalse(row.hasFamAndQual("cf2", "q1"));
+        assertNull(row.getValue("cf2", "q1"));
+    }
+
+    @Test
+    public void firstTupleWins() {
+        AccumuloHiveRow row = new AccumuloHiveRow("r1");
+        row.add("cf", "q", "first".getBytes());
+        row.add("cf", "q", "second".getBytes());
+        assertEquals(row.getValue("cf", "q"), "first".getBytes());
+    }
+
+    @Test
+    public void clear() {
+        AccumuloHiveRow row = new AccumuloHiveRow("r1");
+        row.add("cf", "q", "v".getBytes());
+        row.clear();
+        assertNull(row.getRowId());
+        assertFalse(row.hasFamAndQual("cf", "q"));
+        row.add("cf", "q2", "v2".getBytes());
+        assertEquals(row.getValue("cf", "q2"), "v2".getBytes());
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        AccumuloHiveRow row = new AccumuloHiveRow("r1");
+        row.add("cf", "f1", "v1".getBytes());
+        row.add("cf", "f2", "value2".getBytes());
+        DataOutputBuffer out = new DataOutputBuffer();
+        row.write(out);
+
+        DataInputBuffer in = new DataInputBuffer();
+        in.reset(out.getData(), out.getLength());
+        AccumuloHiveRow copy = new AccumuloHiveRow();
+        copy.readFields(in);
+        assertEquals(copy.getValue("cf", "f1"), "v1".getBytes());
+        assertEquals(copy.getValue("cf", "f2"), "value2".getBytes());
+    }
+}
@@ -1,13 +1,24 @@
 package org.apache.accumulo.storagehandler;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.JobConf;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import static org.testng.Assert.*;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
 
 public class AccumuloHiveUtilsTest {
 
@@ -73,4 +84,96 @@ public class AccumuloHiveUtilsTest {
         }
 
     }
+
+    @Test
+    public void localityGroups() {
+        Map<String, Set<Text>> groups = AccumuloHiveUtils.parseLocalityGroups("hot:cf,meta; blob:raw");
+        assertEquals(groups.keySet(), Sets.newHashSet("hot", "blob"));
+        assertEquals(groups.get("hot"), Sets.newHashSet(new Text("cf"), new Text("meta")));
+        assertEquals(groups.get("blob"), Sets.newHashSet(new Text("raw")));
+
+        String[] bad = {"hot", ":cf", "hot:", "hot:cf;hot:meta", "hot:cf;blob:cf"};
+        for (String groupSpec : bad) {
+            try {
+                AccumuloHiveUtils.parseLocalityGroups(groupSpec);
+                fail("Should reject " + groupSpec);
+            } catch (IllegalArgumentException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void explicitAndUniformSplits() throws IOException {
+        Map<String, String> params = Maps.newHashMap();
+        assertTrue(AccumuloHiveUtils.getSplitPoints(params, conf).isEmpty());
+
+        params.put(AccumuloSerde.SPLITS, "m, c,,t");
+        assertEquals(Lists.newArrayList(AccumuloHiveUtils.getSplitPoints(params, conf)),
+                Lists.newArrayList(new Text("c"), new Text("m"), new Text("t")));
+
+        params.put(AccumuloSerde.SPLITS_UNIFORM, "4");
+        try {
+            AccumuloHiveUtils.getSplitPoints(params, conf);
+            fail("Should reject more than one split scheme");
+        } catch (IllegalArgumentException e) {
+            assertNotNull(e.getMessage());
+        }
+
+        params.remove(AccumuloSerde.SPLITS);
+        assertEquals(Lists.newArrayList(AccumuloHiveUtils.getSplitPoints(params, conf)),
+                Lists.newArrayList(new Text("4"), new Text("8"), new Text("c")));
+        assertTrue(AccumuloHiveUtils.uniformHexSplits(1).isEmpty());
+        SortedSet<Text> wide = AccumuloHiveUtils.uniformHexSplits(20);
+        assertEquals(wide.size(), 19);
+        for (Text split : wide)
+            assertEquals(split.getLength(), 2);
+        assertEquals(wide.first(), new Text("0c"));
+    }
+
+    @Test
+    public void sampledSplits() throws IOException {
+        File dir = File.createTempFile("sample", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        try {
+            writeLines(new File(dir, "000000_0"), 0, 50);
+            writeLines(new File(dir, "000001_0"), 50, 100);
+            writeLines(new File(dir, "_SUCCESS"), 900, 1000);
+
+            Map<String, String> params = Maps.newHashMap();
+            params.put(AccumuloSerde.SPLITS_SAMPLE, dir.getAbsolutePath());
+            params.put(AccumuloSerde.SPLITS_SAMPLE_TABLETS, "4");
+            assertEquals(Lists.newArrayList(AccumuloHiveUtils.getSplitPoints(params, conf)),
+                    Lists.newArrayList(new Text("r025"), new Text("r050"), new Text("r075")));
+
+            params.put(AccumuloSerde.SPLITS_SAMPLE, new File(dir, "000000_0").getAbsolutePath());
+            params.put(AccumuloSerde.SPLITS_SAMPLE_TABLETS, "2");
+            assertEquals(Lists.newArrayList(AccumuloHiveUtils.getSplitPoints(params, conf)),
+                    Lists.newArrayList(new Text("r025")));
+
+            //larger samples are cut down to maxRows rows from the data files.
+            List<Text> rows = AccumuloHiveUtils.readSample(new Path(dir.getAbsolutePath()), conf, 10);
+            assertEquals(rows.size(), 10);
+            assertEquals(Sets.newHashSet(rows).size(), 10);
+            for (Text row : rows)
+                assertTrue(row.compareTo(new Text("r100")) < 0);
+            assertEquals(AccumuloHiveUtils.readSample(new Path(dir.getAbsolutePath()), conf, 10), rows);
+        } finally {
+            for (File file : dir.listFiles())
+                file.delete();
+            dir.delete();
+        }
+        assertTrue(AccumuloHiveUtils.sampledSplits(Lists.<Text>newArrayList(), 4).isEmpty());
+    }
+
+    private void writeLines(File file, int from, int to) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            //written in reverse, the sample does not need to be sorted.
+            for (int i = to - 1; i >= from; i--)
+                writer.write(String.format("r%03d%n", i));
+        } finally {
+            writer.close();
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.Text;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SortedSet;
+
+import static org.testng.Assert.*;
+
+public class AccumuloRowIdShardsTest {
+
+    @Test
+    public void parseFromMapping() {
+        assertNull(AccumuloRowIdShards.fromMapping("rowID"));
+        assertNull(AccumuloRowIdShards.fromMapping("cf|q#1"));
+        assertEquals(AccumuloRowIdShards.fromMapping("rowID#16").getCount(), 16);
+        assertEquals(AccumuloRowIdShards.fromColumnMapping("cf|a,rowID#4,cf|b").getCount(), 4);
+        assertNull(AccumuloRowIdShards.fromColumnMapping("cf|a,rowID"));
+
+        String[] bad = {"rowID#", "rowID#x", "rowID#0"};
+        for (String mapping : bad) {
+            try {
+                AccumuloRowIdShards.fromMapping(mapping);
+                fail("Should reject " + mapping);
+            } catch (IllegalArgumentException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void prefixRoundTrip() throws IOException {
+        AccumuloRowIdShards shards = new AccumuloRowIdShards(16);
+        Text row = new Text();
+        boolean[] used = new boolean[16];
+        for (int i = 0; i < 1000; i++) {
+            Text rowId = new Text(String.format("%012d", 1381000000000l + i));
+            shards.toRow(rowId, row);
+            assertEquals(row.getLength(), rowId.getLength() + 2);
+            assertEquals(row.toString().charAt(1), '_');
+            assertEquals(shards.toRowId(row), rowId.toString());
+            used[Integer.parseInt(row.toString().substring(0, 1), 16)] = true;
+        }
+        //consecutive rowIDs are spread over every shard.
+        for (boolean shard : used)
+            assertTrue(shard);
+
+        try {
+            shards.toRowId(new Text("r1"));
+            fail("Should reject a row without shard prefix");
+        } catch (IOException e) {
+            assertNotNull(e.getMessage());
+        }
+
+        SortedSet<Text> splits = new AccumuloRowIdShards(20).splitPoints();
+        assertEquals(splits.size(), 19);
+        assertEquals(splits.first(), new Text("01_"));
+        assertEquals(splits.last(), new Text("13_"));
+    }
+
+    @Test
+    public void expandRanges() {
+        AccumuloRowIdShards shards = new AccumuloRowIdShards(4);
+        assertNull(shards.expand(null));
+        assertTrue(shards.expand(Lists.<Range>newArrayList()).isEmpty());
+
+        //a single rowID only needs its own shard.
+        Text rowId = new Text("r5");
+        Text row = new Text();
+        shards.toRow(rowId, row);
+        List<Range> ranges = shards.expand(Lists.newArrayList(new Range(rowId)));
+        assertEquals(ranges, Lists.newArrayList(new Range(row)));
+
+        ranges = shards.expand(Lists.newArrayList(new Range(new Text("a"), false, new Text("m"), false)));
+        assertEquals(ranges.size(), 4);
+        for (int i = 0; i < 4; i++) {
+            Range range = ranges.get(i);
+            String prefix = i + "_";
+            assertTrue(range.contains(new Key(new Text(prefix + "b"))));
+            assertFalse(range.contains(new Key(new Text(prefix + "a"))));
+            assertFalse(range.contains(new Key(new Text(prefix + "m"))));
+        }
+
+        //unbounded ends stop at the shard boundaries.
+        ranges = shards.expand(Lists.newArrayList(new Range(new Text("m"), null)));
+        assertEquals(ranges.size(), 4);
+        assertTrue(ranges.get(0).contains(new Key(new Text("0_zzz"))));
+        assertFalse(ranges.get(0).contains(new Key(new Text("1_"))));
+        ranges = shards.expand(Lists.newArrayList(new Range(null, true, new Text("m"), false)));
+        assertTrue(ranges.get(1).contains(new Key(new Text("1_"))));
+        assertFalse(ranges.get(1).contains(new Key(new Text("0_a"))));
+    }
+
+    @Test
+    public void serializerWritesShardedRows() throws SerDeException, IOException {
+        AccumuloColumnPlan plan = new AccumuloColumnPlan(
+                Lists.newArrayList("rowID#8", "cf|name"),
+                Lists.newArrayList("id", "name"),
+                Lists.newArrayList("string", "string"));
+        List<ObjectInspector> inspectors = Lists.newArrayList();
+        inspectors.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        StructObjectInspector oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                Lists.newArrayList("id", "name"), inspectors);
+        Mutation mutation = new AccumuloRowSerializer(plan).serialize(
+                Lists.<Object>newArrayList(new Text("r1"), new Text("brian")), oi);
+        Text row = new Text(mutation.getRow());
+        assertEquals(plan.getRowIdShards().toRowId(row), "r1");
+        Text expected = new Text();
+        plan.getRowIdShards().toRow(new Text("r1"), expected);
+        assertEquals(row, expected);
+    }
+}
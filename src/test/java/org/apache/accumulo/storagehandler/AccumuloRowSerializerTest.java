@@ -0,0 +1,84 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.storagehandler.predicate.compare.DoubleCompare;
+import org.apache.accumulo.storagehandler.predicate.compare.IntCompare;
+import org.apache.accumulo.storagehandler.predicate.compare.LongCompare;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class AccumuloRowSerializerTest {
+
+    private final AccumuloColumnPlan plan = new AccumuloColumnPlan(
+            Lists.newArrayList("rowID", "cf|name", "cf|sid", "cf|millis", "cf|dgrs"),
+            Lists.newArrayList("id", "name", "sid", "millis", "dgrs"),
+            Lists.newArrayList("string", "string", "int", "bigint", "double"));
+
+    @Test
+    public void binaryLayoutAndReuse() throws SerDeException {
+        List<ObjectInspector> inspectors = Lists.newArrayList();
+        inspectors.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableIntObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+        StructObjectInspector oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                Lists.newArrayList("id", "name", "sid", "millis", "dgrs"), inspectors);
+        AccumuloRowSerializer serializer = new AccumuloRowSerializer(plan);
+
+        //Hive reuses a Text whose buffer can be longer than its value.
+        Text name = new Text("a much longer name");
+        name.set("brian");
+        Mutation first = serializer.serialize(Lists.<Object>newArrayList(new Text("r1"), name,
+                new IntWritable(-7), new LongWritable(1234567890123l), new DoubleWritable(-2.5)), oi);
+        Mutation second = serializer.serialize(Lists.<Object>newArrayList(new Text("r2"), null,
+                new IntWritable(9), null, null), oi);
+
+        assertEquals(new String(first.getRow()), "r1");
+        List<ColumnUpdate> updates = first.getUpdates();
+        assertEquals(updates.size(), 4);
+        assertEquals(new String(updates.get(0).getValue()), "brian");
+        assertEquals(new IntCompare().serialize(updates.get(1).getValue()).intValue(), -7);
+        assertEquals(new LongCompare().serialize(updates.get(2).getValue()).longValue(), 1234567890123l);
+        assertEquals(new DoubleCompare().serialize(updates.get(3).getValue()).doubleValue(), -2.5);
+
+        assertEquals(new String(second.getRow()), "r2");
+        updates = second.getUpdates();
+        assertEquals(updates.size(), 1);
+        assertEquals(new String(updates.get(0).getColumnQualifier()), "sid");
+        assertEquals(new IntCompare().serialize(updates.get(0).getValue()).intValue(), 9);
+    }
+
+    @Test
+    public void convertsJavaObjects() throws SerDeException {
+        List<ObjectInspector> inspectors = Lists.newArrayList();
+        inspectors.add(PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+        StructObjectInspector oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                Lists.newArrayList("id", "name", "sid", "millis", "dgrs"), inspectors);
+        Mutation m = new AccumuloRowSerializer(plan).serialize(Lists.<Object>newArrayList(1, 2, 3, 4, 5), oi);
+        assertEquals(new String(m.getRow()), "1");
+        List<ColumnUpdate> updates = m.getUpdates();
+        assertEquals(new String(updates.get(0).getValue()), "2");
+        assertEquals(new IntCompare().serialize(updates.get(1).getValue()).intValue(), 3);
+        assertEquals(new LongCompare().serialize(updates.get(2).getValue()).longValue(), 4l);
+        assertEquals(new DoubleCompare().serialize(updates.get(3).getValue()).doubleValue(), 5.0);
+    }
+}
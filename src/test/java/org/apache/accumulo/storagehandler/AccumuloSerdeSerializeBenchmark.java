@@ -0,0 +1,95 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows serialized per second by AccumuloSerde for INSERT, with the writable
+ * objects Hive hands to the file sink. Run with -prof gc to see allocation per row.
+ *
+ * Run with main() from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AccumuloSerdeSerializeBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private AccumuloSerde serde;
+    private StructObjectInspector oi;
+    private List<List<Object>> rows;
+    private List<List<Object>> sparseRows;
+
+    @Setup
+    public void setup() throws SerDeException {
+        Properties properties = new Properties();
+        properties.setProperty(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name,cf|sid,cf|millis,cf|dgrs");
+        properties.setProperty(serdeConstants.LIST_COLUMNS, "id,name,sid,millis,dgrs");
+        properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "string:string:int:bigint:double");
+        serde = new AccumuloSerde();
+        serde.initialize(new Configuration(), properties);
+
+        List<ObjectInspector> inspectors = Lists.newArrayList();
+        inspectors.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableIntObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.writableDoubleObjectInspector);
+        oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                Lists.newArrayList("id", "name", "sid", "millis", "dgrs"), inspectors);
+
+        rows = Lists.newArrayListWithCapacity(ROWS);
+        sparseRows = Lists.newArrayListWithCapacity(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(Lists.<Object>newArrayList(new Text(String.format("r%05d", i)), new Text("name" + i),
+                    new IntWritable(i), new LongWritable(i * 1000l), new DoubleWritable(i + 0.5)));
+            sparseRows.add(Lists.<Object>newArrayList(new Text(String.format("r%05d", i)), null,
+                    new IntWritable(i), null, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void serialize(Blackhole bh) throws SerDeException {
+        for (List<Object> row : rows)
+            bh.consume(serde.serialize(row, oi));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void serializeMostlyNull(Blackhole bh) throws SerDeException {
+        for (List<Object> row : sparseRows)
+            bh.consume(serde.serialize(row, oi));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AccumuloSerdeSerializeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
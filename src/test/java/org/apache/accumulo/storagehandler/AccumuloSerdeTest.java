@@ -1,13 +1,23 @@
 package org.apache.accumulo.storagehandler;
 
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.Mutation;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.lazy.LazyDouble;
+import org.apache.hadoop.hive.serde2.lazy.LazyInteger;
+import org.apache.hadoop.hive.serde2.lazy.LazyLong;
 import org.apache.hadoop.hive.serde2.lazy.LazyString;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Properties;
 
 import static org.testng.Assert.*;
@@ -181,4 +191,62 @@ public class AccumuloSerdeTest {
             fail();
         }
     }
+
+    @Test
+    public void deserializeBinaryNumeric() {
+        Properties properties = new Properties();
+        Configuration conf = new Configuration();
+        properties.setProperty(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|sid,cf|millis,cf|degrees");
+        properties.setProperty(serdeConstants.LIST_COLUMNS, "id,sid,millis,degrees");
+        properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "string:int:bigint:double");
+
+        try {
+            serde.initialize(conf, properties);
+            AccumuloHiveRow row = new AccumuloHiveRow();
+            row.setRowId("r1");
+            row.add("cf", "sid", ByteBuffer.allocate(4).putInt(-42).array());
+            row.add("cf", "millis", ByteBuffer.allocate(8).putLong(1234567890123l).array());
+            row.add("cf", "degrees", ByteBuffer.allocate(8).putDouble(44.5).array());
+
+            LazyAccumuloRow lazyRow = (LazyAccumuloRow)serde.deserialize(row);
+            assertEquals(((LazyInteger)lazyRow.getField(1)).getWritableObject().get(), -42);
+            assertEquals(((LazyLong)lazyRow.getField(2)).getWritableObject().get(), 1234567890123l);
+            assertEquals(((LazyDouble)lazyRow.getField(3)).getWritableObject().get(), 44.5);
+        } catch (SerDeException e){
+            log.error(e);
+            fail();
+        }
+    }
+
+    @Test
+    public void serializeRequiresRowID() {
+        Properties properties = new Properties();
+        Configuration conf = new Configuration();
+        properties.setProperty(AccumuloSerde.COLUMN_MAPPINGS, "cf|f1,cf|f2");
+        properties.setProperty(serdeConstants.LIST_COLUMNS, "field1,field2");
+        List<ObjectInspector> inspectors = Lists.newArrayList();
+        inspectors.add(PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+        inspectors.add(PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+        ObjectInspector oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                Lists.newArrayList("field1", "field2"), inspectors);
+        try {
+            serde.initialize(conf, properties);
+            serde.serialize(Lists.<Object>newArrayList("v1", "v2"), oi);
+            fail("Should fail without rowID");
+        } catch (SerDeException e) {
+            assertTrue(e.getMessage().contains("rowID"));
+        }
+
+        properties.setProperty(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|f2");
+        try {
+            serde.initialize(conf, properties);
+            Mutation m = (Mutation) serde.serialize(Lists.<Object>newArrayList("r1", "v2"), oi);
+            assertEquals(new String(m.getRow()), "r1");
+            assertEquals(m.size(), 1);
+            serde.serialize(Lists.<Object>newArrayList(null, "v2"), oi);
+            fail("Should fail with null rowID");
+        } catch (SerDeException e) {
+            assertTrue(e.getMessage().contains("null rowID"));
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.client.mapreduce.InputFormatBase.RangeInputSplit;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class AccumuloSplitPlannerTest {
+
+    @Test
+    public void splitRowsBetweenBounds() {
+        Text lower = new Text("r00000");
+        Text upper = new Text("r09999");
+        List<Text> rows = AccumuloSplitPlanner.splitRows(lower, upper, 4);
+        assertEquals(rows.size(), 3);
+        Text previous = lower;
+        for (Text row : rows) {
+            assertTrue(row.compareTo(previous) > 0);
+            assertTrue(row.compareTo(upper) < 0);
+            previous = row;
+        }
+        assertTrue(rows.get(1).toString().startsWith("r04"));
+
+        //rows that differ in their last byte still leave room for a cut.
+        assertEquals(AccumuloSplitPlanner.splitRows(new Text("a"), new Text("b"), 2).size(), 1);
+        assertTrue(AccumuloSplitPlanner.splitRows(upper, lower, 4).isEmpty());
+    }
+
+    @Test
+    public void subdivideCoversRange() {
+        Range range = new Range(new Text("a"), false, new Text("z"), true);
+        List<Text> rows = Lists.newArrayList(new Text("h"), new Text("p"));
+        List<Range> pieces = AccumuloSplitPlanner.subdivide(range, rows);
+        assertEquals(pieces.size(), 3);
+        assertEquals(pieces.get(0).getStartKey(), range.getStartKey());
+        assertEquals(pieces.get(0).isStartKeyInclusive(), range.isStartKeyInclusive());
+        assertEquals(pieces.get(2).getEndKey(), range.getEndKey());
+        for (int i = 1; i < pieces.size(); i++)
+            assertEquals(pieces.get(i).getStartKey(), pieces.get(i - 1).getEndKey());
+        assertTrue(pieces.get(0).contains(new Key(new Text("g"))));
+        assertTrue(pieces.get(1).contains(new Key(new Text("h"))));
+        assertFalse(pieces.get(0).contains(new Key(new Text("h"))));
+
+        //cuts outside the range are dropped.
+        rows = Lists.newArrayList(new Text("0"), new Text("zz"));
+        assertEquals(AccumuloSplitPlanner.subdivide(range, rows), Lists.newArrayList(range));
+    }
+
+    @Test
+    public void packAdjacentUpToTarget() {
+        RangeInputSplit ris = new RangeInputSplit();
+        List<AccumuloSplitPlanner.Piece> pieces = Lists.newArrayList();
+        long[] sizes = {10, 20, 30, 90, 5, 5};
+        for (int i = 0; i < sizes.length; i++)
+            pieces.add(new AccumuloSplitPlanner.Piece(ris, new Range(Integer.toString(i)), sizes[i]));
+        List<List<AccumuloSplitPlanner.Piece>> packs = AccumuloSplitPlanner.pack(pieces, 60);
+        assertEquals(packs.size(), 3);
+        assertEquals(packs.get(0).size(), 3);
+        assertEquals(packs.get(1).size(), 1);
+        assertEquals(packs.get(1).get(0).getSize(), 90);
+        assertEquals(packs.get(2).size(), 2);
+    }
+}
@@ -1,17 +1,41 @@
 package org.apache.accumulo.storagehandler;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.accumulo.core.client.*;
 import org.apache.accumulo.core.client.mock.MockInstance;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.storagehandler.aggregate.AggregatePushdown;
+import org.apache.accumulo.storagehandler.aggregate.RowCountIterator;
+import org.apache.accumulo.storagehandler.limit.TopNIterator;
+import org.apache.accumulo.storagehandler.predicate.ComparisonCondition;
+import org.apache.accumulo.storagehandler.predicate.ConjunctiveComparisonFilter;
+import org.apache.accumulo.storagehandler.predicate.PredicateExpression;
 import org.apache.accumulo.storagehandler.predicate.PrimitiveComparisonFilter;
+import org.apache.accumulo.storagehandler.predicate.StreamingComparisonFilter;
 import org.apache.accumulo.storagehandler.predicate.compare.*;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.plan.*;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPAnd;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPOr;
 import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.InputSplit;
@@ -25,6 +49,8 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
 import java.util.SortedMap;
 
 import static org.testng.Assert.*;
@@ -147,11 +173,11 @@ public class HiveAccumuloInputFormatTest {
             assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), NAME.toString()));
             assertEquals(row.getValue(COLUMN_FAMILY.toString(), NAME.toString()), "brian".getBytes());
             assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), SID.toString()));
-            assertEquals(row.getValue(COLUMN_FAMILY.toString(), SID.toString()), "1".getBytes());
+            assertEquals(row.getValue(COLUMN_FAMILY.toString(), SID.toString()), parseIntBytes("1"));
             assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), DEGREES.toString()));
-            assertEquals(row.getValue(COLUMN_FAMILY.toString(), DEGREES.toString()), "44.5".getBytes());
+            assertEquals(row.getValue(COLUMN_FAMILY.toString(), DEGREES.toString()), parseDoubleBytes("44.5"));
             assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), MILLIS.toString()));
-            assertEquals(row.getValue(COLUMN_FAMILY.toString(), MILLIS.toString()), "555".getBytes());
+            assertEquals(row.getValue(COLUMN_FAMILY.toString(), MILLIS.toString()), parseLongBytes("555"));
 
         } catch (IOException e) {
             log.error(e);
@@ -259,6 +285,136 @@ public class HiveAccumuloInputFormatTest {
         }
     }
 
+    @Test
+    public void conjunctiveDegreesAndMillis() {
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            Scanner scan = con.createScanner(TEST_TABLE, new Authorizations("blah"));
+            IteratorSetting is = new IteratorSetting(1, ConjunctiveComparisonFilter.FILTER_NAME,
+                    ConjunctiveComparisonFilter.class);
+            ComparisonCondition.addCondition(is, ConjunctiveComparisonFilter.OPTION_PREFIX, "cf|dgrs",
+                    DoubleCompare.class, GreaterThanOrEqual.class, parseDoubleBytes("55.6"));
+            ComparisonCondition.addCondition(is, ConjunctiveComparisonFilter.OPTION_PREFIX, "cf|mills",
+                    LongCompare.class, LessThan.class, parseLongBytes("778"));
+            scan.addScanIterator(is);
+
+            boolean foundDennis = false;
+            int totalCount = 0;
+            for(Map.Entry<Key,Value> kv : scan) {
+                boolean foundName = false;
+                boolean foundSid = false;
+                boolean foundDegrees = false;
+                boolean foundMillis = false;
+                SortedMap<Key,Value> items = ConjunctiveComparisonFilter.decodeRow(kv.getKey(), kv.getValue());
+                for(Map.Entry<Key, Value> item: items.entrySet()) {
+                    if(item.getKey().getRow().toString().equals("r3")) {
+                        foundDennis = true;
+                    }
+                    if(item.getKey().getColumnQualifier().equals(NAME)){
+                        foundName = true;
+                    } else if (item.getKey().getColumnQualifier().equals(SID)) {
+                        foundSid = true;
+                    } else if (item.getKey().getColumnQualifier().equals(DEGREES)) {
+                        foundDegrees = true;
+                    } else if (item.getKey().getColumnQualifier().equals(MILLIS)) {
+                        foundMillis = true;
+                    }
+                }
+                totalCount++;
+                assertTrue(foundDegrees & foundMillis & foundName & foundSid);
+            }
+            assertTrue(foundDennis);
+            assertEquals(totalCount, 1);
+        }  catch (AccumuloSecurityException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (AccumuloException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (TableNotFoundException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void streamingDegreesAndMillis() {
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            Scanner scan = con.createScanner(TEST_TABLE, new Authorizations("blah"));
+            IteratorSetting is = new IteratorSetting(1, StreamingComparisonFilter.FILTER_NAME,
+                    StreamingComparisonFilter.class);
+            ComparisonCondition.addCondition(is, ConjunctiveComparisonFilter.OPTION_PREFIX, "cf|dgrs",
+                    DoubleCompare.class, GreaterThanOrEqual.class, parseDoubleBytes("55.6"));
+            ComparisonCondition.addCondition(is, ConjunctiveComparisonFilter.OPTION_PREFIX, "cf|mills",
+                    LongCompare.class, LessThan.class, parseLongBytes("778"));
+            scan.addScanIterator(is);
+
+            boolean foundName = false;
+            boolean foundSid = false;
+            boolean foundDegrees = false;
+            boolean foundMillis = false;
+            int totalCount = 0;
+            for(Map.Entry<Key,Value> kv : scan) { //cells come back unencoded.
+                assertEquals(kv.getKey().getRow().toString(), "r3");
+                if(kv.getKey().getColumnQualifier().equals(NAME)){
+                    foundName = true;
+                    assertEquals(kv.getValue().get(), "dennis".getBytes());
+                } else if (kv.getKey().getColumnQualifier().equals(SID)) {
+                    foundSid = true;
+                } else if (kv.getKey().getColumnQualifier().equals(DEGREES)) {
+                    foundDegrees = true;
+                } else if (kv.getKey().getColumnQualifier().equals(MILLIS)) {
+                    foundMillis = true;
+                }
+                totalCount++;
+            }
+            assertTrue(foundDegrees & foundMillis & foundName & foundSid);
+            assertEquals(totalCount, 4);
+        }  catch (AccumuloSecurityException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (AccumuloException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (TableNotFoundException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void orExpressionBothFilters() {
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            for (Class<? extends SortedKeyValueIterator<Key,Value>> filter : filterClasses()) {
+                Scanner scan = con.createScanner(TEST_TABLE, new Authorizations("blah"));
+                IteratorSetting is = new IteratorSetting(1, "or.expression", filter);
+                String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX;
+                ComparisonCondition.addCondition(is, prefix, "cf|name",
+                        StringCompare.class, Equal.class, "brian".getBytes());
+                ComparisonCondition.addCondition(is, prefix, ComparisonCondition.ROW_ID,
+                        StringCompare.class, Like.class, "%3".getBytes());
+                ComparisonCondition.addCondition(is, prefix, "cf|mills",
+                        LongCompare.class, LessThan.class, parseLongBytes("700"));
+                ComparisonCondition.setExpression(is, prefix, PredicateExpression.parse("or(0,and(1,not(2)))", 3));
+                scan.addScanIterator(is);
+
+                Set<String> rows = Sets.newTreeSet();
+                for(Map.Entry<Key,Value> kv : scan) {
+                    rows.add(kv.getKey().getRow().toString());
+                }
+                assertEquals(rows, Sets.newTreeSet(Lists.newArrayList("r1", "r3")), filter.getName());
+            }
+        }  catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Class<? extends SortedKeyValueIterator<Key,Value>>> filterClasses() {
+        List<Class<? extends SortedKeyValueIterator<Key,Value>>> classes = Lists.newArrayList();
+        classes.add(ConjunctiveComparisonFilter.class);
+        classes.add(StreamingComparisonFilter.class);
+        return classes;
+    }
+
     @Test
     public void greaterThan1Sid() {
         try {
@@ -382,4 +538,544 @@ public class HiveAccumuloInputFormatTest {
         conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf|name,cf|sid,cf|dgrs,cf|mills");
     }
 
+    @Test
+    public void noSplitsForDisjointRowRanges() {
+        JobConf rowConf = new JobConf(conf);
+        FileInputFormat.addInputPath(rowConf, new Path("unused"));
+        rowConf.set(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name");
+        rowConf.set(serdeConstants.LIST_COLUMNS, "rid,name");
+        rowConf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string");
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(rowIdCompare(new GenericUDFOPLessThan(), "r1"));
+        children.add(rowIdCompare(new GenericUDFOPGreaterThan(), "r3"));
+        ExprNodeDesc both = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), children);
+        rowConf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(both));
+        try {
+            assertEquals(inputformat.getSplits(rowConf, 0).length, 0);
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void projectionPushdown() {
+        JobConf projConf = new JobConf(conf);
+        FileInputFormat.addInputPath(projConf, new Path("unused"));
+        ColumnProjectionUtils.setReadColumnIDs(projConf, Lists.newArrayList(0));
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(new ExprNodeColumnDesc(TypeInfoFactory.intTypeInfo, "sid", null, false));
+        children.add(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 1));
+        ExprNodeDesc sidGreaterThan1 = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                new GenericUDFOPGreaterThan(), children);
+        projConf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(sidGreaterThan1));
+        try {
+            int count = 0;
+            for (InputSplit split : inputformat.getSplits(projConf, 0)) {
+                RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, projConf, null);
+                Text rowId = reader.createKey();
+                AccumuloHiveRow row = reader.createValue();
+                while (reader.next(rowId, row)) {
+                    assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), NAME.toString()));
+                    assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), SID.toString())); //needed by the filter.
+                    assertFalse(row.hasFamAndQual(COLUMN_FAMILY.toString(), DEGREES.toString()));
+                    assertFalse(row.hasFamAndQual(COLUMN_FAMILY.toString(), MILLIS.toString()));
+                    count++;
+                }
+                reader.close();
+            }
+            assertEquals(count, 2);
+
+            projConf.set(AccumuloSerde.NO_PROJECTION_PUSHDOWN, "true");
+            assertEquals(readAll(projConf), 2);
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void localityGroupFetch() {
+        JobConf groupConf = new JobConf(conf);
+        FileInputFormat.addInputPath(groupConf, new Path("unused"));
+        ColumnProjectionUtils.setReadColumnIDs(groupConf, Lists.newArrayList(0));
+        groupConf.set(AccumuloSerde.LOCALITY_GROUPS, "blob:raw;hot:cf");
+        try {
+            assertEquals(readAll(groupConf), 3); //mills comes back with the rest of the group.
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void directPointLookup() {
+        JobConf rowConf = new JobConf(conf);
+        FileInputFormat.addInputPath(rowConf, new Path("unused"));
+        rowConf.set(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name");
+        rowConf.set(serdeConstants.LIST_COLUMNS, "rid,name");
+        rowConf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string");
+        JobConf scanConf = new JobConf(rowConf);
+        rowConf.set(TableScanDesc.FILTER_EXPR_CONF_STR,
+                Utilities.serializeExpression(rowIdCompare(new GenericUDFOPEqual(), "r2")));
+        try {
+            long start = System.currentTimeMillis();
+            InputSplit[] splits = inputformat.getSplits(rowConf, 0);
+            assertEquals(splits.length, 1);
+            assertTrue(((AccumuloSplit)splits[0]).isDirect());
+            RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(splits[0], rowConf, null);
+            Text rowId = reader.createKey();
+            AccumuloHiveRow row = reader.createValue();
+            assertTrue(reader.next(rowId, row));
+            assertEquals(row.getRowId(), "r2");
+            assertEquals(new String(row.getValue(COLUMN_FAMILY.toString(), NAME.toString())), "mark");
+            assertFalse(reader.next(rowId, row));
+            reader.close();
+            log.info("direct point lookup in " + (System.currentTimeMillis() - start) + " ms");
+
+            assertFalse(((AccumuloSplit)inputformat.getSplits(scanConf, 0)[0]).isDirect());
+            scanConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.DIRECT_READER);
+            splits = inputformat.getSplits(scanConf, 0);
+            assertTrue(((AccumuloSplit)splits[0]).isDirect());
+            reader = inputformat.getRecordReader(splits[0], scanConf, null);
+            int count = 0;
+            while (reader.next(rowId, row))
+                count++;
+            reader.close();
+            assertEquals(count, 3);
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void batchSplitsCapRanges() {
+        JobConf rowConf = new JobConf(conf);
+        FileInputFormat.addInputPath(rowConf, new Path("unused"));
+        rowConf.set(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name");
+        rowConf.set(serdeConstants.LIST_COLUMNS, "rid,name");
+        rowConf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string");
+        rowConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(rowIdCompare(new GenericUDFOPEqual(), "r1"));
+        children.add(rowIdCompare(new GenericUDFOPEqual(), "r2"));
+        ExprNodeDesc either = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(), children);
+        children = Lists.newArrayList();
+        children.add(either);
+        children.add(rowIdCompare(new GenericUDFOPEqual(), "r3"));
+        ExprNodeDesc any = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(), children);
+        rowConf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(any));
+        try {
+            //every range is on the same mock tablet server.
+            assertEquals(inputformat.getSplits(rowConf, 0).length, 1);
+            rowConf.setInt(AccumuloSerde.BATCH_SPLIT_RANGES, 2);
+            InputSplit[] splits = inputformat.getSplits(rowConf, 0);
+            assertEquals(splits.length, 2);
+            assertEquals(((AccumuloSplit)splits[0]).getRanges().size(), 2);
+            assertEquals(((AccumuloSplit)splits[1]).getRanges().size(), 1);
+            int count = 0;
+            for (InputSplit split : splits) {
+                RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, rowConf, null);
+                Text rowId = reader.createKey();
+                AccumuloHiveRow row = reader.createValue();
+                while (reader.next(rowId, row))
+                    count++;
+                reader.close();
+            }
+            assertEquals(count, 3);
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    private ExprNodeDesc rowIdCompare(GenericUDF op, String constant) {
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "rid", null, false));
+        children.add(new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, constant));
+        return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, op, children);
+    }
+
+    @Test
+    public void rowCountIterator() {
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            Scanner scan = con.createScanner(TEST_TABLE, new Authorizations("blah"));
+            scan.addScanIterator(new IteratorSetting(1, "count", RowCountIterator.class));
+            int entries = 0;
+            for(Map.Entry<Key,Value> kv : scan) {
+                assertEquals(RowCountIterator.decodeCount(kv.getValue().get()), 3);
+                entries++;
+            }
+            assertEquals(entries, 1);
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void countPushdown() {
+        JobConf countConf = new JobConf(conf);
+        FileInputFormat.addInputPath(countConf, new Path("unused"));
+        countConf.set(AccumuloSerde.AGGREGATE_PUSHDOWN, AccumuloSerde.COUNT_AGGREGATE);
+        countConf.set(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name,cf|sid,cf|dgrs,cf|mills");
+        countConf.set(serdeConstants.LIST_COLUMNS, "rid,name,sid,dgrs,mills");
+        countConf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string,int,double,bigint");
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(new ExprNodeColumnDesc(TypeInfoFactory.intTypeInfo, "sid", null, false));
+        children.add(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 1));
+        ExprNodeDesc sidGreaterThan1 = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                new GenericUDFOPGreaterThan(), children);
+        try {
+            //only the table named for the aggregate is answered with counts.
+            ColumnProjectionUtils.setReadColumnIDs(countConf, Lists.newArrayList(0));
+            assertNull(AggregatePushdown.fromConf(countConf));
+            countConf.set(AccumuloSerde.AGGREGATE_TABLE, "other_table");
+            assertNull(AggregatePushdown.fromConf(countConf));
+            countConf.set(AccumuloSerde.AGGREGATE_TABLE, TEST_TABLE);
+            assertNotNull(AggregatePushdown.fromConf(countConf));
+
+            //an empty projection may be a scan of every column, so it is never answered with counts.
+            JobConf allColumns = new JobConf(countConf);
+            ColumnProjectionUtils.setReadColumnIDs(allColumns, Lists.<Integer>newArrayList());
+            assertNull(AggregatePushdown.fromConf(allColumns));
+
+            assertEquals(countRows(countConf), 3);
+            countConf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(sidGreaterThan1));
+            assertEquals(countRows(countConf), 2);
+            countConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+            assertEquals(countRows(countConf), 2);
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (SerDeException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void columnAggregatePushdown() {
+        JobConf aggConf = new JobConf(conf);
+        FileInputFormat.addInputPath(aggConf, new Path("unused"));
+        try {
+            assertEquals(aggregate(aggConf, "sum", "sid", 1), 6.0);
+            assertEquals(aggregate(aggConf, "min", "sid", 1), 1.0);
+            assertEquals(aggregate(aggConf, "max", "sid", 1), 3.0);
+            assertEquals(aggregate(aggConf, "avg", "sid", 1), 2.0);
+            assertEquals(aggregate(aggConf, "avg", "mills", 3), 666.0);
+            //not pushed, the rows are read as they are.
+            assertEquals(aggregate(aggConf, "avg", "dgrs", 2), (44.5 + 55.5 + 65.5) / 3, 0.0001);
+            JobConf avgConf = new JobConf(aggConf);
+            avgConf.set(AccumuloSerde.AGGREGATE_PUSHDOWN, "avg");
+            avgConf.set(AccumuloSerde.AGGREGATE_TABLE, TEST_TABLE);
+            avgConf.set(AccumuloSerde.AGGREGATE_COLUMN, "dgrs");
+            ColumnProjectionUtils.setReadColumnIDs(avgConf, Lists.newArrayList(2));
+            assertNull(AggregatePushdown.fromConf(avgConf));
+            avgConf.set(AccumuloSerde.AGGREGATE_COLUMN, "mills");
+            ColumnProjectionUtils.setReadColumnIDs(avgConf, Lists.newArrayList(3));
+            assertNotNull(AggregatePushdown.fromConf(avgConf));
+            aggConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+            assertEquals(aggregate(aggConf, "sum", "dgrs", 2), 44.5 + 55.5 + 65.5, 0.0001);
+            assertEquals(aggregate(aggConf, "max", "mills", 3), 777.0);
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (SerDeException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    /*
+     Read the rebuilt rows for one column and aggregate them the way Hive would.
+     */
+    private double aggregate(JobConf base, String function, String column, int columnId) throws IOException {
+        JobConf jobConf = new JobConf(base);
+        jobConf.set(AccumuloSerde.AGGREGATE_PUSHDOWN, function);
+        jobConf.set(AccumuloSerde.AGGREGATE_TABLE, base.get(AccumuloSerde.TABLE_NAME));
+        jobConf.set(AccumuloSerde.AGGREGATE_COLUMN, column);
+        ColumnProjectionUtils.setReadColumnIDs(jobConf, Lists.newArrayList(columnId));
+        String qual = column.equals("dgrs") ? DEGREES.toString() : column.equals("mills") ? MILLIS.toString() : SID.toString();
+        double sum = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        int count = 0;
+        for (InputSplit split : inputformat.getSplits(jobConf, 0)) {
+            RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, jobConf, null);
+            Text rowId = reader.createKey();
+            AccumuloHiveRow row = reader.createValue();
+            while (reader.next(rowId, row)) {
+                byte[] value = row.getValue(COLUMN_FAMILY.toString(), qual);
+                double v = column.equals("dgrs") ? ByteBuffer.wrap(value).getDouble() :
+                           column.equals("mills") ? ByteBuffer.wrap(value).getLong() : ByteBuffer.wrap(value).getInt();
+                sum += v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                count++;
+            }
+            reader.close();
+        }
+        if(function.equals("sum"))
+            return sum;
+        if(function.equals("min"))
+            return min;
+        if(function.equals("max"))
+            return max;
+        return sum / count;
+    }
+
+    @Test
+    public void groupByPushdown() {
+        String groupedTable = "grouped";
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            con.tableOperations().create(groupedTable);
+            BatchWriter writer = con.createBatchWriter(groupedTable, new BatchWriterConfig());
+            for (int i = 0; i < 10; i++) {
+                Mutation m = new Mutation(new Text("r" + i));
+                if(i < 9)
+                    m.put(COLUMN_FAMILY, NAME, new Value(("g" + (i % 3)).getBytes()));
+                m.put(COLUMN_FAMILY, SID, new Value(parseIntBytes(Integer.toString(i))));
+                writer.addMutation(m);
+            }
+            writer.close();
+
+            JobConf groupConf = new JobConf(conf);
+            groupConf.set(AccumuloSerde.TABLE_NAME, groupedTable);
+            groupConf.set(AccumuloSerde.AGGREGATE_GROUP_BY, "name");
+            FileInputFormat.addInputPath(groupConf, new Path("unused"));
+
+            Map<String,Double> expectedSums = Maps.newHashMap();
+            expectedSums.put("g0", 9.0);
+            expectedSums.put("g1", 12.0);
+            expectedSums.put("g2", 15.0);
+            expectedSums.put(null, 9.0);
+            Map<String,Double> expectedCounts = Maps.newHashMap();
+            expectedCounts.put("g0", 3.0);
+            expectedCounts.put("g1", 3.0);
+            expectedCounts.put("g2", 3.0);
+            expectedCounts.put(null, 1.0);
+
+            assertEquals(groupBy(groupConf, "sum"), expectedSums);
+            assertEquals(groupBy(groupConf, "count"), expectedCounts);
+
+            //one group per partial, so every row boundary flushes.
+            groupConf.setInt(AccumuloSerde.AGGREGATE_MAX_GROUPS, 1);
+            assertEquals(groupBy(groupConf, "sum"), expectedSums);
+            groupConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+            assertEquals(groupBy(groupConf, "count"), expectedCounts);
+        } catch (AccumuloException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (AccumuloSecurityException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (TableNotFoundException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (TableExistsException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    /*
+     Combine the rebuilt rows per name the way Hive's group by would, for count(*) or sum(sid).
+     */
+    private Map<String,Double> groupBy(JobConf base, String function) throws IOException {
+        JobConf jobConf = new JobConf(base);
+        jobConf.set(AccumuloSerde.AGGREGATE_PUSHDOWN, function);
+        jobConf.set(AccumuloSerde.AGGREGATE_TABLE, base.get(AccumuloSerde.TABLE_NAME));
+        if(function.equals("count")) {
+            ColumnProjectionUtils.setReadColumnIDs(jobConf, Lists.newArrayList(0));
+        } else {
+            jobConf.set(AccumuloSerde.AGGREGATE_COLUMN, "sid");
+            ColumnProjectionUtils.setReadColumnIDs(jobConf, Lists.newArrayList(0, 1));
+        }
+        Map<String,Double> results = Maps.newHashMap();
+        for (InputSplit split : inputformat.getSplits(jobConf, 0)) {
+            RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, jobConf, null);
+            Text rowId = reader.createKey();
+            AccumuloHiveRow row = reader.createValue();
+            while (reader.next(rowId, row)) {
+                String group = null;
+                if(row.hasFamAndQual(COLUMN_FAMILY.toString(), NAME.toString()))
+                    group = new String(row.getValue(COLUMN_FAMILY.toString(), NAME.toString()));
+                double v = 1;
+                if(!function.equals("count"))
+                    v = ByteBuffer.wrap(row.getValue(COLUMN_FAMILY.toString(), SID.toString())).getInt();
+                Double previous = results.get(group);
+                results.put(group, previous == null ? v : previous + v);
+            }
+            reader.close();
+        }
+        return results;
+    }
+
+    @Test
+    public void topNIterator() {
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            assertEquals(topRows(con, SID, "INT", 1, true), Lists.newArrayList("r3"));
+            assertEquals(topRows(con, SID, "INT", 2, false), Lists.newArrayList("r1", "r2"));
+            assertEquals(topRows(con, NAME, "STRING", 2, false), Lists.newArrayList("r1", "r3"));
+            assertEquals(topRows(con, MILLIS, "BIGINT", 5, true), Lists.newArrayList("r1", "r2", "r3"));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    //rows the TopNIterator keeps, in key order.
+    private List<String> topRows(Connector con, Text qual, String type, int limit, boolean descending)
+            throws TableNotFoundException {
+        Scanner scan = con.createScanner(TEST_TABLE, new Authorizations("blah"));
+        IteratorSetting is = new IteratorSetting(1, "topn", TopNIterator.class);
+        is.addOption(TopNIterator.COLUMN, COLUMN_FAMILY + "|" + qual);
+        is.addOption(TopNIterator.VALUE_TYPE, type);
+        is.addOption(TopNIterator.LIMIT, Integer.toString(limit));
+        is.addOption(TopNIterator.DESCENDING, Boolean.toString(descending));
+        scan.addScanIterator(is);
+        List<String> rows = Lists.newArrayList();
+        int cells = 0;
+        for(Map.Entry<Key,Value> kv : scan) {
+            String row = kv.getKey().getRow().toString();
+            if(rows.isEmpty() || !rows.get(rows.size() - 1).equals(row))
+                rows.add(row);
+            cells++;
+        }
+        assertEquals(cells, rows.size() * 4); //rows are returned whole.
+        return rows;
+    }
+
+    @Test
+    public void limitPushdown() {
+        JobConf limitConf = new JobConf(conf);
+        FileInputFormat.addInputPath(limitConf, new Path("unused"));
+        limitConf.set(AccumuloSerde.LIMIT_PUSHDOWN, "2");
+        limitConf.set(AccumuloSerde.HIVE_TABLE_NAME, "default.acled");
+        limitConf.set(HiveConf.ConfVars.HIVEQUERYSTRING.varname, "select * from acled limit 2");
+        try {
+            //a limit not set for this table may be left over from another query, so it is ignored.
+            assertEquals(readAll(limitConf), 3);
+            limitConf.set(AccumuloSerde.LIMIT_TABLE, "other_table");
+            assertEquals(readAll(limitConf), 3);
+            limitConf.set(AccumuloSerde.LIMIT_TABLE, TEST_TABLE);
+            assertEquals(readAll(limitConf), 2);
+            limitConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+            assertEquals(readAll(limitConf), 2);
+
+            //either side of a self-join may be the one Hive limits, so neither scan is cut.
+            limitConf.set(HiveConf.ConfVars.HIVEQUERYSTRING.varname,
+                    "select a.pid from acled a join ACLED b on (a.pid = b.pid) limit 2");
+            assertEquals(readAll(limitConf), 3);
+
+            JobConf topConf = new JobConf(conf);
+            FileInputFormat.addInputPath(topConf, new Path("unused"));
+            topConf.set(AccumuloSerde.LIMIT_PUSHDOWN, "2");
+            topConf.set(AccumuloSerde.LIMIT_TABLE, TEST_TABLE);
+            topConf.set(AccumuloSerde.HIVE_TABLE_NAME, "default.acled");
+            topConf.set(HiveConf.ConfVars.HIVEQUERYSTRING.varname, "select * from acled order by dgrs desc limit 2");
+            topConf.set(AccumuloSerde.LIMIT_ORDER_COLUMN, "dgrs");
+            topConf.setBoolean(AccumuloSerde.LIMIT_ORDER_DESCENDING, true);
+            List<String> rows = Lists.newArrayList();
+            for (InputSplit split : inputformat.getSplits(topConf, 0)) {
+                RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, topConf, null);
+                Text rowId = reader.createKey();
+                AccumuloHiveRow row = reader.createValue();
+                while (reader.next(rowId, row))
+                    rows.add(row.getRowId());
+                reader.close();
+            }
+            assertEquals(rows, Lists.newArrayList("r2", "r3"));
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    //rows rebuilt from partial counts carry no cells.
+    private int countRows(JobConf jobConf) throws IOException {
+        int count = 0;
+        for (InputSplit split : inputformat.getSplits(jobConf, 0)) {
+            RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, jobConf, null);
+            Text rowId = reader.createKey();
+            AccumuloHiveRow row = reader.createValue();
+            while (reader.next(rowId, row)) {
+                assertFalse(row.hasFamAndQual(COLUMN_FAMILY.toString(), NAME.toString()));
+                count++;
+            }
+            reader.close();
+        }
+        return count;
+    }
+
+    @Test
+    public void readerModesReturnEveryRow() {
+        String manyRowsTable = "many_rows";
+        int numRows = 2000;
+        try {
+            Connector con = mockInstance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            con.tableOperations().create(manyRowsTable);
+            BatchWriter writer = con.createBatchWriter(manyRowsTable, new BatchWriterConfig());
+            for (int i = 0; i < numRows; i++) {
+                Mutation m = new Mutation(new Text(String.format("r%05d", i)));
+                m.put(COLUMN_FAMILY, NAME, new Value(("name" + i).getBytes()));
+                m.put(COLUMN_FAMILY, SID, new Value(parseIntBytes(Integer.toString(i))));
+                m.put(COLUMN_FAMILY, DEGREES, new Value(parseDoubleBytes(i + ".5")));
+                m.put(COLUMN_FAMILY, MILLIS, new Value(parseLongBytes(Integer.toString(i * 10))));
+                writer.addMutation(m);
+            }
+            writer.close();
+
+            JobConf scanConf = new JobConf(conf);
+            scanConf.set(AccumuloSerde.TABLE_NAME, manyRowsTable);
+            FileInputFormat.addInputPath(scanConf, new Path("unused"));
+            JobConf batchConf = new JobConf(scanConf);
+            batchConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+            batchConf.setInt(AccumuloSerde.BATCH_READER_THREADS, 4);
+            JobConf prefetchConf = new JobConf(scanConf);
+            prefetchConf.setInt(AccumuloSerde.PREFETCH_DEPTH, 64);
+
+            //rows per second for each reader are compared by HiveAccumuloRecordReaderBenchmark.
+            assertEquals(readAll(scanConf), numRows);
+            assertEquals(readAll(batchConf), numRows);
+            assertEquals(readAll(prefetchConf), numRows);
+        } catch (AccumuloException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (AccumuloSecurityException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (TableNotFoundException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (TableExistsException e) {
+            fail(StringUtils.stringifyException(e));
+        } catch (IOException e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    private int readAll(JobConf jobConf) throws IOException {
+        int count = 0;
+        for (InputSplit split : inputformat.getSplits(jobConf, 0)) {
+            RecordReader<Text,AccumuloHiveRow> reader = inputformat.getRecordReader(split, jobConf, null);
+            Text rowId = reader.createKey();
+            AccumuloHiveRow row = reader.createValue();
+            float progress = reader.getProgress();
+            while (reader.next(rowId, row)) {
+                assertTrue(row.hasFamAndQual(COLUMN_FAMILY.toString(), MILLIS.toString()));
+                assertEquals(rowId.toString(), row.getRowId()); //also carried through the prefetch reader.
+                assertTrue(reader.getProgress() >= progress);
+                progress = reader.getProgress();
+                assertTrue(progress <= 1.0F);
+                count++;
+            }
+            reader.close();
+        }
+        return count;
+    }
+
+    @Test
+    public void batchReaderProgress() {
+        Range range = new Range(new Text("r00000"), new Text("r20000"));
+        assertEquals(HiveAccumuloBatchRecordReader.position(range, new Text("r00000")), 0.0F);
+        assertEquals(HiveAccumuloBatchRecordReader.position(range, new Text("r10000")), 0.5F, 0.01F);
+        assertEquals(HiveAccumuloBatchRecordReader.position(range, new Text("r20000")), 1.0F);
+
+        //unbounded ends count as the lowest and highest rows.
+        Range all = new Range();
+        assertEquals(HiveAccumuloBatchRecordReader.position(all, new Text("")), 0.0F);
+        assertTrue(HiveAccumuloBatchRecordReader.position(all, new Text("m")) > 0.4F);
+        assertTrue(HiveAccumuloBatchRecordReader.position(all, new Text("m")) < 0.5F);
+        assertEquals(HiveAccumuloBatchRecordReader.position(new Range(new Text("m"), null), new Text("m")), 0.0F);
+    }
+
 }
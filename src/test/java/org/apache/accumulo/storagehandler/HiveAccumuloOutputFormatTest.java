@@ -0,0 +1,165 @@
+package org.apache.accumulo.storagehandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.util.StringUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.testng.Assert.*;
+
+public class HiveAccumuloOutputFormatTest {
+
+    private static final String MOCK_INSTANCE_NAME = "output_instance";
+    private static final String USER = "user";
+    private static final String PASS = "password";
+    private static final String TABLE = "written";
+
+    @Test
+    public void writeRows() {
+        try {
+            MockInstance instance = new MockInstance(MOCK_INSTANCE_NAME);
+            Connector con = instance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            con.tableOperations().create(TABLE);
+
+            Properties properties = new Properties();
+            properties.setProperty(AccumuloSerde.TABLE_NAME, TABLE);
+            properties.setProperty(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name,cf|sid,cf|millis,cf|dgrs");
+            properties.setProperty(serdeConstants.LIST_COLUMNS, "id,name,sid,millis,dgrs");
+            properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "string:string:int:bigint:double");
+            JobConf conf = new JobConf();
+            conf.set(AccumuloSerde.USER_NAME, USER);
+            conf.set(AccumuloSerde.USER_PASS, PASS);
+            conf.set(AccumuloSerde.TABLE_NAME, TABLE);
+            conf.setInt(AccumuloSerde.WRITER_THREADS, 2);
+            AccumuloSerde serde = new AccumuloSerde();
+            serde.initialize(conf, properties);
+
+            List<ObjectInspector> inspectors = Lists.newArrayList();
+            inspectors.add(PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+            inspectors.add(PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+            inspectors.add(PrimitiveObjectInspectorFactory.javaIntObjectInspector);
+            inspectors.add(PrimitiveObjectInspectorFactory.javaLongObjectInspector);
+            inspectors.add(PrimitiveObjectInspectorFactory.javaDoubleObjectInspector);
+            StructObjectInspector oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                    Lists.newArrayList("id", "name", "sid", "millis", "dgrs"), inspectors);
+
+            HiveAccumuloTableOutputFormat outputFormat = new HiveAccumuloTableOutputFormat();
+            outputFormat.setInstance(instance);
+            outputFormat.checkOutputSpecs(null, conf);
+            RecordWriter writer = outputFormat.getHiveRecordWriter(conf, null, null, false, properties, null);
+            writer.write(serde.serialize(Lists.<Object>newArrayList("r1", "brian", 1, 555L, 40.5), oi));
+            writer.write(serde.serialize(Lists.<Object>newArrayList("r2", null, 2, 666L, null), oi));
+            writer.close(false);
+
+            Map<String, byte[]> cells = Maps.newHashMap();
+            Scanner scanner = con.createScanner(TABLE, new Authorizations());
+            for (Map.Entry<Key, Value> entry : scanner) {
+                Key key = entry.getKey();
+                cells.put(key.getRow() + ":" + key.getColumnQualifier(), entry.getValue().get());
+            }
+            assertEquals(cells.size(), 6);
+            assertEquals(new String(cells.get("r1:name")), "brian");
+            assertEquals(ByteBuffer.wrap(cells.get("r1:sid")).getInt(), 1);
+            assertEquals(ByteBuffer.wrap(cells.get("r1:millis")).getLong(), 555L);
+            assertEquals(ByteBuffer.wrap(cells.get("r1:dgrs")).getDouble(), 40.5);
+            assertFalse(cells.containsKey("r2:name"));
+            assertEquals(ByteBuffer.wrap(cells.get("r2:millis")).getLong(), 666L);
+
+            conf.set(AccumuloSerde.TABLE_NAME, "missing");
+            try {
+                outputFormat.checkOutputSpecs(null, conf);
+                fail("Should reject a missing table");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("missing"));
+            }
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void bulkImport() {
+        String table = "bulk";
+        File bulkDir = new File(System.getProperty("java.io.tmpdir"), "accumulo-bulk-" + System.nanoTime());
+        try {
+            MockInstance instance = new MockInstance(MOCK_INSTANCE_NAME);
+            Connector con = instance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+            con.tableOperations().create(table);
+            SortedSet<Text> splits = new TreeSet<Text>();
+            splits.add(new Text("m"));
+            con.tableOperations().addSplits(table, splits);
+
+            Properties properties = new Properties();
+            properties.setProperty(AccumuloSerde.TABLE_NAME, table);
+            properties.setProperty(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name");
+            properties.setProperty(serdeConstants.LIST_COLUMNS, "id,name");
+            properties.setProperty(serdeConstants.LIST_COLUMN_TYPES, "string:string");
+            JobConf conf = new JobConf();
+            conf.set(AccumuloSerde.USER_NAME, USER);
+            conf.set(AccumuloSerde.USER_PASS, PASS);
+            conf.set(AccumuloSerde.WRITER_MODE, AccumuloSerde.BULK_WRITER);
+            conf.set(AccumuloSerde.BULK_DIRECTORY, bulkDir.getAbsolutePath());
+            conf.setLong(AccumuloSerde.WRITER_MAX_MEMORY, 1); //a file set per row, to import several.
+            AccumuloSerde serde = new AccumuloSerde();
+            serde.initialize(conf, properties);
+
+            List<ObjectInspector> inspectors = Lists.newArrayList();
+            inspectors.add(PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+            inspectors.add(PrimitiveObjectInspectorFactory.javaStringObjectInspector);
+            StructObjectInspector oi = ObjectInspectorFactory.getStandardStructObjectInspector(
+                    Lists.newArrayList("id", "name"), inspectors);
+
+            HiveAccumuloTableOutputFormat outputFormat = new HiveAccumuloTableOutputFormat();
+            outputFormat.setInstance(instance);
+            try {
+                outputFormat.getHiveRecordWriter(conf, null, null, false, properties, null);
+                fail("Speculative attempts would import the same rows twice");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("speculative"));
+            }
+            conf.setMapSpeculativeExecution(false);
+            conf.setReduceSpeculativeExecution(false);
+            RecordWriter writer = outputFormat.getHiveRecordWriter(conf, null, null, false, properties, null);
+            writer.write(serde.serialize(Lists.<Object>newArrayList("z1", "zed"), oi));
+            writer.write(serde.serialize(Lists.<Object>newArrayList("a1", "abe"), oi));
+            writer.write(serde.serialize(Lists.<Object>newArrayList("n1", "ned"), oi));
+            writer.close(false);
+
+            Map<String, String> rows = Maps.newTreeMap();
+            for (Map.Entry<Key, Value> entry : con.createScanner(table, new Authorizations()))
+                rows.put(entry.getKey().getRow().toString(), entry.getValue().toString());
+            assertEquals(rows.toString(), "{a1=abe, n1=ned, z1=zed}");
+            File[] taskDirs = new File(bulkDir, table).listFiles();
+            assertTrue(taskDirs == null || taskDirs.length == 0);
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        } finally {
+            FileUtil.fullyDelete(bulkDir);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second read through HiveAccumuloTableInputFormat with the Scanner backed reader,
+ * the BatchScanner reader and the prefetching Scanner reader, over the same table.
+ *
+ * The table lives in a MockInstance, so this compares the client side cost of each reader
+ * (row assembly, iterator decoding, hand off between threads) rather than tablet server reads.
+ *
+ * Run with main() from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HiveAccumuloRecordReaderBenchmark {
+
+    private static final int ROWS = 10000;
+    private static final String TABLE = "reader_benchmark";
+    private static final String USER = "user";
+    private static final String PASS = "password";
+    private static final Text CF = new Text("cf");
+
+    @Param({"scanner", "batch", "prefetch"})
+    public String reader;
+
+    private HiveAccumuloTableInputFormat inputFormat;
+    private JobConf jobConf;
+
+    @Setup
+    public void setup() throws Exception {
+        MockInstance instance = new MockInstance("reader_benchmark_instance");
+        Connector con = instance.getConnector(USER, new PasswordToken(PASS.getBytes()));
+        if(!con.tableOperations().exists(TABLE)) {
+            con.tableOperations().create(TABLE);
+            con.securityOperations().changeUserAuthorizations(USER, new Authorizations("blah"));
+            BatchWriter writer = con.createBatchWriter(TABLE, new BatchWriterConfig());
+            for (int i = 0; i < ROWS; i++) {
+                Mutation m = new Mutation(new Text(String.format("r%06d", i)));
+                m.put(CF, new Text("name"), new Value(("name" + i).getBytes()));
+                m.put(CF, new Text("sid"), new Value(ByteBuffer.allocate(4).putInt(i).array()));
+                m.put(CF, new Text("dgrs"), new Value(ByteBuffer.allocate(8).putDouble(i + 0.5).array()));
+                m.put(CF, new Text("mills"), new Value(ByteBuffer.allocate(8).putLong(i * 10l).array()));
+                writer.addMutation(m);
+            }
+            writer.close();
+        }
+
+        jobConf = new JobConf();
+        jobConf.set(AccumuloSerde.TABLE_NAME, TABLE);
+        jobConf.set(AccumuloSerde.INSTANCE_ID, instance.getInstanceName());
+        jobConf.set(AccumuloSerde.USER_NAME, USER);
+        jobConf.set(AccumuloSerde.USER_PASS, PASS);
+        jobConf.set(AccumuloSerde.ZOOKEEPERS, "localhost:2181");
+        jobConf.set(AccumuloSerde.COLUMN_MAPPINGS, "rowID,cf|name,cf|sid,cf|dgrs,cf|mills");
+        jobConf.set(serdeConstants.LIST_COLUMNS, "rid,name,sid,dgrs,mills");
+        jobConf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string,int,double,bigint");
+        FileInputFormat.addInputPath(jobConf, new Path("unused"));
+        if(reader.equals("batch")) {
+            jobConf.set(AccumuloSerde.READER_MODE, AccumuloSerde.BATCH_READER);
+            jobConf.setInt(AccumuloSerde.BATCH_READER_THREADS, 4);
+        } else if(reader.equals("prefetch")) {
+            jobConf.setInt(AccumuloSerde.PREFETCH_DEPTH, 64);
+        }
+        inputFormat = new HiveAccumuloTableInputFormat();
+        inputFormat.setInstance(instance);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void readTable(Blackhole bh) throws Exception {
+        for (InputSplit split : inputFormat.getSplits(jobConf, 0)) {
+            RecordReader<Text, AccumuloHiveRow> recordReader = inputFormat.getRecordReader(split, jobConf, null);
+            Text key = recordReader.createKey();
+            AccumuloHiveRow row = recordReader.createValue();
+            while (recordReader.next(key, row))
+                bh.consume(row);
+            recordReader.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HiveAccumuloRecordReaderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
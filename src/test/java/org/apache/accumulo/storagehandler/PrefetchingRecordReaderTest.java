@@ -0,0 +1,126 @@
+package org.apache.accumulo.storagehandler;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.RecordReader;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.testng.Assert.*;
+
+public class PrefetchingRecordReaderTest {
+
+    @Test
+    public void readsInOrder() throws IOException {
+        CountingReader delegate = new CountingReader(100, -1);
+        PrefetchingRecordReader reader = new PrefetchingRecordReader(delegate, 4, null);
+        Text key = reader.createKey();
+        AccumuloHiveRow row = reader.createValue();
+        float progress = reader.getProgress();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(reader.next(key, row));
+            assertEquals(key.toString(), "k" + i);
+            assertEquals(row.getRowId(), "r" + i);
+            assertEquals(row.getValue("cf", "q"), ("v" + i).getBytes());
+            assertTrue(reader.getProgress() >= progress);
+            progress = reader.getProgress();
+        }
+        assertFalse(reader.next(key, row));
+        assertFalse(reader.next(key, row));
+        assertEquals(reader.getProgress(), 1.0F);
+        reader.close();
+        assertTrue(delegate.closed);
+        //the delegate is only read from the prefetch thread.
+        assertFalse(delegate.usedFromOtherThread);
+        assertTrue(reader.getScanWaitNanos() >= 0);
+        assertTrue(reader.getHiveWaitNanos() >= 0);
+    }
+
+    @Test
+    public void failureAfterQueuedRows() throws IOException {
+        PrefetchingRecordReader reader = new PrefetchingRecordReader(new CountingReader(100, 3), 2, null);
+        Text key = reader.createKey();
+        AccumuloHiveRow row = reader.createValue();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(reader.next(key, row));
+            assertEquals(row.getRowId(), "r" + i);
+        }
+        try {
+            reader.next(key, row);
+            fail("Delegate failure should be rethrown");
+        } catch (IOException e) {
+            assertEquals(e.getCause().getMessage(), "scan failed at 3");
+        }
+        reader.close();
+    }
+
+    @Test(timeOut = 10000)
+    public void closeBeforeEnd() throws IOException {
+        CountingReader delegate = new CountingReader(Integer.MAX_VALUE, -1);
+        PrefetchingRecordReader reader = new PrefetchingRecordReader(delegate, 2, null);
+        Text key = reader.createKey();
+        AccumuloHiveRow row = reader.createValue();
+        assertTrue(reader.next(key, row));
+        reader.close();
+        assertTrue(delegate.closed);
+    }
+
+    private static class CountingReader implements RecordReader<Text, AccumuloHiveRow> {
+        private final int numRows;
+        private final int failAt;
+        private int next = 0;
+        private volatile boolean closed = false;
+        private volatile boolean usedFromOtherThread = false;
+
+        private CountingReader(int numRows, int failAt) {
+            this.numRows = numRows;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean next(Text key, AccumuloHiveRow value) throws IOException {
+            checkThread();
+            if(next == failAt)
+                throw new IOException("scan failed at " + next);
+            if(next >= numRows)
+                return false;
+            key.set("k" + next);
+            value.clear();
+            value.setRowId("r" + next);
+            value.add("cf", "q", ("v" + next).getBytes());
+            next++;
+            return true;
+        }
+
+        @Override
+        public Text createKey() {
+            return new Text();
+        }
+
+        @Override
+        public AccumuloHiveRow createValue() {
+            return new AccumuloHiveRow();
+        }
+
+        @Override
+        public long getPos() throws IOException {
+            return next;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+
+        @Override
+        public float getProgress() throws IOException {
+            checkThread();
+            return (float) next / numRows;
+        }
+
+        private void checkThread() {
+            if(!Thread.currentThread().getName().equals("accumulo-prefetch"))
+                usedFromOtherThread = true;
+        }
+    }
+}
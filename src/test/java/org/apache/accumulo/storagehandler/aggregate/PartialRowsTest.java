@@ -0,0 +1,64 @@
+package org.apache.accumulo.storagehandler.aggregate;
+
+import org.apache.accumulo.storagehandler.AccumuloColumnPlan.ValueType;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.testng.Assert.*;
+
+public class PartialRowsTest {
+
+    @Test
+    public void emptyRows() {
+        PartialRows rows = PartialRows.empty(3);
+        int count = 0;
+        while (rows.next()) {
+            assertNull(rows.value());
+            count++;
+        }
+        assertEquals(count, 3);
+    }
+
+    @Test
+    public void spreadKeepsSumAndCount() {
+        long[][] cases = {{10, 4}, {-10, 4}, {7, 7}, {0, 3}, {-1, 2}};
+        for (long[] c : cases) {
+            PartialRows rows = PartialRows.spread(ValueType.BIGINT, c[0], c[1]);
+            long sum = 0;
+            long count = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            while (rows.next()) {
+                long value = ByteBuffer.wrap(rows.value()).getLong();
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                count++;
+            }
+            assertEquals(sum, c[0]);
+            assertEquals(count, c[1]);
+            assertTrue(max - min <= 1);
+        }
+    }
+
+    @Test
+    public void intSumStaysInRange() {
+        long sum = 5L * Integer.MAX_VALUE + 17;
+        PartialRows rows = PartialRows.intSum(sum);
+        long total = 0;
+        int count = 0;
+        while (rows.next()) {
+            assertEquals(rows.value().length, 4);
+            total += ByteBuffer.wrap(rows.value()).getInt();
+            count++;
+        }
+        assertEquals(total, sum);
+        assertEquals(count, 6);
+
+        rows = PartialRows.intSum(-42);
+        assertTrue(rows.next());
+        assertEquals(ByteBuffer.wrap(rows.value()).getInt(), -42);
+        assertFalse(rows.next());
+    }
+}
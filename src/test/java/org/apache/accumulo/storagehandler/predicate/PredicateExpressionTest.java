@@ -0,0 +1,83 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.apache.accumulo.storagehandler.predicate.PredicateExpression.*;
+import static org.testng.Assert.*;
+
+public class PredicateExpressionTest {
+
+    @Test
+    public void roundTrip() throws IOException {
+        List<PredicateExpression> orChildren = Lists.newArrayList();
+        orChildren.add(condition(1));
+        orChildren.add(not(condition(2)));
+        List<PredicateExpression> andChildren = Lists.newArrayList();
+        andChildren.add(condition(0));
+        andChildren.add(or(orChildren));
+        PredicateExpression expr = and(andChildren);
+        assertEquals(expr.toString(), "and(0,or(1,not(2)))");
+        assertEquals(parse(expr.toString(), 3).toString(), expr.toString());
+        assertEquals(allOf(1).toString(), "0");
+        assertEquals(allOf(3).toString(), "and(0,1,2)");
+    }
+
+    @Test
+    public void threeValuedLogic() throws IOException {
+        PredicateExpression and = parse("and(0,1)", 2);
+        PredicateExpression or = parse("or(0,1)", 2);
+        PredicateExpression not = parse("not(0)", 1);
+
+        assertEquals(and.evaluate(results(TRUE, TRUE)), TRUE);
+        assertEquals(and.evaluate(results(TRUE, UNKNOWN)), UNKNOWN);
+        assertEquals(and.evaluate(results(UNKNOWN, FALSE)), FALSE);
+
+        assertEquals(or.evaluate(results(FALSE, FALSE)), FALSE);
+        assertEquals(or.evaluate(results(FALSE, UNKNOWN)), UNKNOWN);
+        assertEquals(or.evaluate(results(UNKNOWN, TRUE)), TRUE);
+
+        assertEquals(not.evaluate(results(TRUE)), FALSE);
+        assertEquals(not.evaluate(results(UNKNOWN)), UNKNOWN);
+    }
+
+    @Test
+    public void shortCircuits() throws IOException {
+        final boolean[] asked = new boolean[2];
+        ConditionResults results = new ConditionResults() {
+            @Override
+            public byte get(int condition) {
+                asked[condition] = true;
+                return FALSE;
+            }
+        };
+        assertEquals(parse("and(0,1)", 2).evaluate(results), FALSE);
+        assertTrue(asked[0]);
+        assertFalse(asked[1]);
+    }
+
+    @Test
+    public void malformed() {
+        String[] bad = {"and(0,1", "or()", "xor(0,1)", "not(0,1)", "and(0,3)", "0)"};
+        for (String expr : bad) {
+            try {
+                parse(expr, 2);
+                fail("Should fail to parse " + expr);
+            } catch (IOException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    private ConditionResults results(final byte... values) {
+        return new ConditionResults() {
+            @Override
+            public byte get(int condition) {
+                return values[condition];
+            }
+        };
+    }
+}
@@ -4,13 +4,16 @@ import com.google.common.collect.Lists;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.storagehandler.AccumuloRowIdShards;
 import org.apache.accumulo.storagehandler.AccumuloSerde;
 import org.apache.accumulo.storagehandler.predicate.compare.*;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.hadoop.hive.ql.exec.FunctionRegistry;
 import org.apache.hadoop.hive.ql.exec.Utilities;
 import org.apache.hadoop.hive.ql.index.IndexSearchCondition;
+import org.apache.hadoop.hive.ql.metadata.HiveStoragePredicateHandler;
 import org.apache.hadoop.hive.ql.plan.*;
+import org.apache.hadoop.hive.ql.udf.UDFLike;
 import org.apache.hadoop.hive.ql.udf.generic.*;
 import org.apache.hadoop.hive.serde.serdeConstants;
 import org.apache.hadoop.hive.serde2.SerDeException;
@@ -22,6 +25,7 @@ import org.apache.log4j.Logger;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
 
@@ -229,16 +233,115 @@ public class PredicateHandlerTest {
         conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, filterExpr);
         try {
             Collection<Range> ranges = handler.getRanges(conf);
-            assertEquals(ranges.size(), 2);
-            Iterator<Range> itr = ranges.iterator();
-            Range range1 = itr.next();
-            Range range2 = itr.next();
-            assertNull(range1.clip(range2, true));
+            assertEquals(ranges.size(), 0); //rid <= aaa and rid > bbb cannot both hold.
         } catch (Exception e) {
             fail("Error getting search conditions");
         }
     }
 
+    @Test
+    public void boundedRange() {
+        setup();
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(compare(new GenericUDFOPGreaterThan(), "rid", "a"));
+        children.add(compare(new GenericUDFOPLessThan(), "rid", "m"));
+        ExprNodeDesc both = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), children);
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(both));
+        try {
+            List<Range> ranges = handler.getRanges(conf);
+            assertEquals(ranges.size(), 1);
+            Range range = ranges.get(0);
+            assertFalse(range.isInfiniteStartKey());
+            assertFalse(range.isInfiniteStopKey());
+            assertTrue(range.contains(new Key(new Text("b"))));
+            assertFalse(range.contains(new Key(new Text("a"))));
+            assertFalse(range.contains(new Key(new Text("m"))));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void notEqualRanges() {
+        setup();
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR,
+                Utilities.serializeExpression(compare(new GenericUDFOPNotEqual(), "rid", "m")));
+        try {
+            List<Range> ranges = handler.getRanges(conf);
+            assertEquals(ranges.size(), 2);
+            assertTrue(ranges.get(0).contains(new Key(new Text("a"))));
+            assertTrue(ranges.get(1).contains(new Key(new Text("z"))));
+            for(Range range : ranges)
+                assertFalse(range.contains(new Key(new Text("m"))));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void orAndInRanges() {
+        setup();
+        List<ExprNodeDesc> inChildren = Lists.newArrayList();
+        inChildren.add(new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "rid", null, false));
+        inChildren.add(new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, "r5"));
+        inChildren.add(new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, "r1"));
+        ExprNodeDesc in = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFIn(), inChildren);
+
+        List<ExprNodeDesc> orChildren = Lists.newArrayList();
+        orChildren.add(in);
+        orChildren.add(compare(new GenericUDFOPEqualOrGreaterThan(), "rid", "r5")); //overlaps r5
+        ExprNodeDesc or = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(), orChildren);
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(or));
+        try {
+            List<Range> ranges = handler.getRanges(conf);
+            assertEquals(ranges.size(), 2);
+            assertTrue(ranges.get(0).contains(new Key(new Text("r1"))));
+            assertTrue(ranges.get(1).contains(new Key(new Text("r5"))));
+            assertTrue(ranges.get(1).isInfiniteStopKey());
+
+            //OR with a non rowID predicate cannot restrict rows.
+            orChildren.set(1, compare(new GenericUDFOPEqual(), "field1", "x"));
+            or = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(), orChildren);
+            conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(or));
+            assertNull(handler.getRanges(conf));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void shardedRowIdRanges() {
+        setup();
+        conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf|f1,rowID#4");
+        try {
+            conf.set(TableScanDesc.FILTER_EXPR_CONF_STR,
+                    Utilities.serializeExpression(compare(new GenericUDFOPEqual(), "rid", "aaa")));
+            List<Range> ranges = handler.getRanges(conf);
+            assertEquals(ranges.size(), 1);
+            Text row = new Text();
+            new AccumuloRowIdShards(4).toRow(new Text("aaa"), row);
+            assertEquals(ranges.get(0), new Range(row));
+
+            conf.set(TableScanDesc.FILTER_EXPR_CONF_STR,
+                    Utilities.serializeExpression(compare(new GenericUDFOPGreaterThan(), "rid", "aaa")));
+            ranges = handler.getRanges(conf);
+            assertEquals(ranges.size(), 4);
+            for (int i = 0; i < ranges.size(); i++) {
+                assertTrue(ranges.get(i).contains(new Key(new Text(i + "_b"))));
+                assertFalse(ranges.get(i).contains(new Key(new Text(i + "_aaa"))));
+            }
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    private ExprNodeDesc compare(GenericUDF op, String col, String constant) {
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, col, null, false));
+        children.add(new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, constant));
+        return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, op, children);
+    }
+
     @Test
     public void pushdownTuple() {
         setup();
@@ -417,63 +520,65 @@ public class PredicateHandlerTest {
         conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, filterExpr);
         try {
             List<IteratorSetting> iterators = handler.getIterators(conf);
-            assertEquals(iterators.size(), 2);
-            IteratorSetting is1 = iterators.get(0);
-            IteratorSetting is2 = iterators.get(1);
-
-            boolean foundQual = false;
-            boolean foundPCompare = false;
-            boolean foundCOpt = false;
-            boolean foundConst = false;
-            for(Map.Entry<String, String> option : is1.getOptions().entrySet()) {
-                String optKey = option.getKey();
-                if(optKey.equals(PrimitiveComparisonFilter.COLUMN)) {
-                    foundQual = true;
-                    assertEquals(option.getValue(), "cf|f1");
-                } else if (optKey.equals(PrimitiveComparisonFilter.CONST_VAL)) {
-                    foundConst = true;
-                    assertEquals(option.getValue(), new String(Base64.encodeBase64("aaa".getBytes())));
-                } else if (optKey.equals(PrimitiveComparisonFilter.COMPARE_OPT_CLASS)) {
-                    foundCOpt = true;
-                    assertEquals(option.getValue(), LessThanOrEqual.class.getName());
-                } else if(optKey.equals(PrimitiveComparisonFilter.P_COMPARE_CLASS)) {
-                    foundPCompare = true;
-                    assertEquals(option.getValue(), StringCompare.class.getName());
-                }
-
-            }
-            assertTrue(foundConst & foundCOpt & foundPCompare & foundQual);
-
-            foundQual = false;
-            foundPCompare = false;
-            foundCOpt = false;
-            foundConst = false;
-            for(Map.Entry<String, String> option : is2.getOptions().entrySet()) {
-                String optKey = option.getKey();
-                if(optKey.equals(PrimitiveComparisonFilter.COLUMN)) {
-                    foundQual = true;
-                    assertEquals(option.getValue(), "cf|f2");
-                } else if (optKey.equals(PrimitiveComparisonFilter.CONST_VAL)) {
-                    foundConst = true;
-                    byte [] intVal = new byte[4];
-                    ByteBuffer.wrap(intVal).putInt(5);
-                    assertEquals(option.getValue(), new String(Base64.encodeBase64(intVal)));
-                } else if (optKey.equals(PrimitiveComparisonFilter.COMPARE_OPT_CLASS)) {
-                    foundCOpt = true;
-                    assertEquals(option.getValue(), GreaterThan.class.getName());
-                } else if(optKey.equals(PrimitiveComparisonFilter.P_COMPARE_CLASS)) {
-                    foundPCompare = true;
-                    assertEquals(option.getValue(), IntCompare.class.getName());
-                }
-
-            }
-            assertTrue(foundConst & foundCOpt & foundPCompare & foundQual);
-
+            assertEquals(iterators.size(), 1);
+            IteratorSetting is = iterators.get(0);
+            assertEquals(is.getIteratorClass(), ConjunctiveComparisonFilter.class.getName());
+            Map<String, String> options = is.getOptions();
+            String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX;
+            assertEquals(options.get(prefix + ComparisonCondition.CONDITION_COUNT), "2");
+
+            assertEquals(options.get(prefix + "0." + ComparisonCondition.COLUMN), "cf|f1");
+            assertEquals(options.get(prefix + "0." + ComparisonCondition.CONST_VAL), new String(Base64.encodeBase64("aaa".getBytes())));
+            assertEquals(options.get(prefix + "0." + ComparisonCondition.COMPARE_OPT_CLASS), LessThanOrEqual.class.getName());
+            assertEquals(options.get(prefix + "0." + ComparisonCondition.P_COMPARE_CLASS), StringCompare.class.getName());
+
+            byte [] intVal = new byte[4];
+            ByteBuffer.wrap(intVal).putInt(5);
+            assertEquals(options.get(prefix + "1." + ComparisonCondition.COLUMN), "cf|f2");
+            assertEquals(options.get(prefix + "1." + ComparisonCondition.CONST_VAL), new String(Base64.encodeBase64(intVal)));
+            assertEquals(options.get(prefix + "1." + ComparisonCondition.COMPARE_OPT_CLASS), GreaterThan.class.getName());
+            assertEquals(options.get(prefix + "1." + ComparisonCondition.P_COMPARE_CLASS), IntCompare.class.getName());
+
+            List<ComparisonCondition> conditions = ComparisonCondition.fromOptions(options, prefix);
+            assertEquals(conditions.size(), 2);
+            assertEquals(conditions.get(0).getQual().toString(), "f1");
+            assertTrue(conditions.get(1).getCompareOp() instanceof GreaterThan);
+            assertTrue(conditions.get(1).accept(ByteBuffer.allocate(4).putInt(6).array()));
+            assertFalse(conditions.get(1).accept(ByteBuffer.allocate(4).putInt(5).array()));
         } catch (Exception e) {
             fail(StringUtils.stringifyException(e));
         }
     }
 
+    @Test
+    public void streamingFilterMode() {
+        conf = new JobConf();
+        conf.set(serdeConstants.LIST_COLUMNS, "field1,rid");
+        conf.set(serdeConstants.LIST_COLUMN_TYPES, "string,string");
+        conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf|f1,rowID");
+        ExprNodeDesc column = new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "field1", null, false);
+        ExprNodeDesc constant = new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, "aaa");
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(column);
+        children.add(constant);
+        ExprNodeDesc node = new ExprNodeGenericFuncDesc(TypeInfoFactory.stringTypeInfo, new GenericUDFOPEqual(), children);
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(node));
+        try {
+            conf.set(AccumuloSerde.ITERATOR_FILTER_MODE, AccumuloSerde.STREAMING_FILTER);
+            List<IteratorSetting> iterators = handler.getIterators(conf);
+            assertEquals(iterators.size(), 1);
+            assertEquals(iterators.get(0).getIteratorClass(), StreamingComparisonFilter.class.getName());
+            conf.set(AccumuloSerde.ITERATOR_FILTER_MODE, AccumuloSerde.WHOLE_ROW_FILTER);
+            assertEquals(handler.getIterators(conf).get(0).getIteratorClass(), ConjunctiveComparisonFilter.class.getName());
+
+            conf.set(AccumuloSerde.ITERATOR_FILTER_MODE, "blah");
+            handler.getIterators(conf);
+            fail("Should fail for unknown filter mode");
+        } catch (SerDeException e) {
+            assertTrue(e.getMessage().contains("Unsupported " + AccumuloSerde.ITERATOR_FILTER_MODE));
+        }
+    }
+
     @Test
     public void basicOptLookup() {
         boolean foundEqual = false;
@@ -535,6 +640,211 @@ public class PredicateHandlerTest {
         assertTrue(foundDouble & foundLong & foundInt & foundString);
     }
 
+    @Test
+    public void rowIdLikePrefix() {
+        setup();
+        ExprNodeDesc node = like("rid", "abc%");
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(node));
+        try {
+            List<IndexSearchCondition> sConditions = handler.getSearchConditions(conf);
+            assertEquals(sConditions.size(), 1);
+            assertEquals(sConditions.get(0).getComparisonOp(), UDFLike.class.getName());
+            Collection<Range> ranges = handler.getRanges(conf);
+            assertEquals(ranges.size(), 1);
+            Range range = ranges.iterator().next();
+            assertTrue(range.contains(new Key(new Text("abc"))));
+            assertTrue(range.contains(new Key(new Text("abczzz"))));
+            assertFalse(range.contains(new Key(new Text("abd"))));
+            assertFalse(range.contains(new Key(new Text("ab"))));
+            assertEquals(handler.getIterators(conf).size(), 0);
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void rowIdInQualifierIsACell() throws IOException {
+        IteratorSetting is = new IteratorSetting(1, ConjunctiveComparisonFilter.FILTER_NAME, ConjunctiveComparisonFilter.class);
+        String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX;
+        ComparisonCondition.addCondition(is, prefix, "cf|rowIDs", StringCompare.class, Equal.class, "a".getBytes());
+        ComparisonCondition.addCondition(is, prefix, ComparisonCondition.ROW_ID, StringCompare.class, Equal.class, "a".getBytes());
+        List<ComparisonCondition> conditions = ComparisonCondition.fromOptions(is.getOptions(), prefix);
+        assertFalse(conditions.get(0).isRowId());
+        assertEquals(conditions.get(0).getQual().toString(), "rowIDs");
+        assertTrue(conditions.get(1).isRowId());
+    }
+
+    @Test
+    public void rowIdLikeSuffix() {
+        setup();
+        ExprNodeDesc node = like("rid", "%abc");
+        HiveStoragePredicateHandler.DecomposedPredicate decomposed = handler.decompose(conf, node);
+        assertNotNull(decomposed);
+        assertNull(decomposed.residualPredicate);
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(decomposed.pushedPredicate));
+        try {
+            assertNull(handler.getRanges(conf));
+            List<IteratorSetting> iterators = handler.getIterators(conf);
+            assertEquals(iterators.size(), 1);
+            Map<String, String> options = iterators.get(0).getOptions();
+            String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX;
+            assertEquals(options.get(prefix + "0." + ComparisonCondition.COLUMN), ComparisonCondition.ROW_ID);
+            List<ComparisonCondition> conditions = ComparisonCondition.fromOptions(options, prefix);
+            assertTrue(conditions.get(0).isRowId());
+            assertTrue(conditions.get(0).accept("zabc".getBytes()));
+            assertFalse(conditions.get(0).accept("abcz".getBytes()));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+
+        conf.setBoolean(AccumuloSerde.NO_ITERATOR_PUSHDOWN, true);
+        assertNull(handler.decompose(conf, node));
+
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(node);
+        children.add(like("rid", "abc%"));
+        ExprNodeDesc both = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), children);
+        decomposed = handler.decompose(conf, both);
+        assertNotNull(decomposed);
+        assertEquals(decomposed.residualPredicate.getExprString(), node.getExprString());
+        assertEquals(decomposed.pushedPredicate.getExprString(), children.get(1).getExprString());
+    }
+
+    @Test
+    public void orExpressionIterator() {
+        intColumnSetup();
+        List<ExprNodeDesc> orChildren = Lists.newArrayList();
+        orChildren.add(compare(new GenericUDFOPEqual(), "field1", "aaa"));
+        orChildren.add(like("rid", "%z"));
+        ExprNodeDesc or = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(), orChildren);
+
+        List<ExprNodeDesc> flippedChildren = Lists.newArrayList(); // 5 > field2
+        flippedChildren.add(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 5));
+        flippedChildren.add(new ExprNodeColumnDesc(TypeInfoFactory.intTypeInfo, "field2", null, false));
+        ExprNodeDesc flipped = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                new GenericUDFOPGreaterThan(), flippedChildren);
+
+        List<ExprNodeDesc> andChildren = Lists.newArrayList();
+        andChildren.add(or);
+        andChildren.add(flipped);
+        ExprNodeDesc both = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), andChildren);
+
+        HiveStoragePredicateHandler.DecomposedPredicate decomposed = handler.decompose(conf, both);
+        assertNotNull(decomposed);
+        assertNull(decomposed.residualPredicate);
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(decomposed.pushedPredicate));
+        try {
+            assertNull(handler.getRanges(conf));
+            List<IteratorSetting> iterators = handler.getIterators(conf);
+            assertEquals(iterators.size(), 1);
+            Map<String, String> options = iterators.get(0).getOptions();
+            String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX;
+            assertEquals(options.get(prefix + ComparisonCondition.CONDITION_COUNT), "3");
+            assertEquals(options.get(prefix + ComparisonCondition.EXPRESSION), "and(or(0,1),2)");
+            assertEquals(options.get(prefix + "1." + ComparisonCondition.COLUMN), ComparisonCondition.ROW_ID);
+            assertEquals(options.get(prefix + "2." + ComparisonCondition.COLUMN), "cf|f2");
+            assertEquals(options.get(prefix + "2." + ComparisonCondition.COMPARE_OPT_CLASS), LessThan.class.getName());
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void inAndNotIterator() {
+        intColumnSetup();
+        List<ExprNodeDesc> inChildren = Lists.newArrayList();
+        inChildren.add(new ExprNodeColumnDesc(TypeInfoFactory.intTypeInfo, "field2", null, false));
+        inChildren.add(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 1));
+        inChildren.add(new ExprNodeConstantDesc(TypeInfoFactory.intTypeInfo, 2));
+        ExprNodeDesc in = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFIn(), inChildren);
+
+        List<ExprNodeDesc> notChildren = Lists.newArrayList();
+        notChildren.add(compare(new GenericUDFOPEqual(), "field1", "aaa"));
+        ExprNodeDesc not = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPNot(), notChildren);
+
+        List<ExprNodeDesc> andChildren = Lists.newArrayList();
+        andChildren.add(in);
+        andChildren.add(not);
+        andChildren.add(compare(new GenericUDFOPLessThan(), "rid", "m"));
+        ExprNodeDesc all = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), andChildren);
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(all));
+        try {
+            assertEquals(handler.getRanges(conf).size(), 1);
+            List<IteratorSetting> iterators = handler.getIterators(conf);
+            assertEquals(iterators.size(), 1);
+            Map<String, String> options = iterators.get(0).getOptions();
+            String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX;
+            assertEquals(options.get(prefix + ComparisonCondition.CONDITION_COUNT), "3");
+            assertEquals(options.get(prefix + ComparisonCondition.EXPRESSION), "and(or(0,1),not(2))");
+            assertEquals(options.get(prefix + "0." + ComparisonCondition.COMPARE_OPT_CLASS), Equal.class.getName());
+            assertEquals(options.get(prefix + "1." + ComparisonCondition.CONST_VAL),
+                    new String(Base64.encodeBase64(ByteBuffer.allocate(4).putInt(2).array())));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    @Test
+    public void decomposeKeepsUnsupportedConjuncts() {
+        setup();
+        List<ExprNodeDesc> floatChildren = Lists.newArrayList();
+        floatChildren.add(new ExprNodeColumnDesc(TypeInfoFactory.floatTypeInfo, "field1", null, false));
+        floatChildren.add(new ExprNodeConstantDesc(TypeInfoFactory.floatTypeInfo, 5.5f));
+        ExprNodeDesc floatCompare = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                new GenericUDFOPEqual(), floatChildren);
+
+        List<ExprNodeDesc> orChildren = Lists.newArrayList();
+        orChildren.add(floatCompare);
+        orChildren.add(like("field1", "a%"));
+        ExprNodeDesc or = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(), orChildren);
+
+        List<ExprNodeDesc> andChildren = Lists.newArrayList();
+        andChildren.add(or);
+        andChildren.add(like("field1", "%b"));
+        andChildren.add(compare(new GenericUDFOPGreaterThan(), "rid", "c"));
+        ExprNodeDesc all = new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(), andChildren);
+
+        HiveStoragePredicateHandler.DecomposedPredicate decomposed = handler.decompose(conf, all);
+        assertNotNull(decomposed);
+        assertEquals(decomposed.residualPredicate.getExprString(), or.getExprString());
+        ExprNodeGenericFuncDesc pushed = (ExprNodeGenericFuncDesc) decomposed.pushedPredicate;
+        assertTrue(pushed.getGenericUDF() instanceof GenericUDFOPAnd);
+        assertEquals(pushed.getChildren().size(), 2);
+    }
+
+    private void intColumnSetup() {
+        setup();
+        conf.set(serdeConstants.LIST_COLUMNS, "field1,field2,rid");
+        conf.set(serdeConstants.LIST_COLUMN_TYPES, "string,int,string");
+        conf.set(AccumuloSerde.COLUMN_MAPPINGS, "cf|f1,cf|f2,rowID");
+    }
+
+    @Test
+    public void likeIterator() {
+        setup();
+        conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(like("field1", "%abc%")));
+        try {
+            List<IteratorSetting> iterators = handler.getIterators(conf);
+            assertEquals(iterators.size(), 1);
+            Map<String, String> options = iterators.get(0).getOptions();
+            String prefix = ConjunctiveComparisonFilter.OPTION_PREFIX + "0.";
+            assertEquals(options.get(prefix + ComparisonCondition.COMPARE_OPT_CLASS), Like.class.getName());
+            assertEquals(options.get(prefix + ComparisonCondition.P_COMPARE_CLASS), StringCompare.class.getName());
+            assertEquals(options.get(prefix + ComparisonCondition.CONST_VAL), new String(Base64.encodeBase64("%abc%".getBytes())));
+        } catch (Exception e) {
+            fail(StringUtils.stringifyException(e));
+        }
+    }
+
+    private ExprNodeDesc like(String col, String pattern) {
+        FunctionRegistry.getFunctionNames();
+        List<ExprNodeDesc> children = Lists.newArrayList();
+        children.add(new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, col, null, false));
+        children.add(new ExprNodeConstantDesc(TypeInfoFactory.stringTypeInfo, pattern));
+        return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo,
+                FunctionRegistry.getFunctionInfo("like").getGenericUDF(), children);
+    }
+
     private void setup() {
         FunctionRegistry. getFunctionNames();
         conf = new JobConf();
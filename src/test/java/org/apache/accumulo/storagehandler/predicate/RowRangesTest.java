@@ -0,0 +1,44 @@
+package org.apache.accumulo.storagehandler.predicate;
+
+import com.google.common.collect.Lists;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class RowRangesTest {
+
+    @Test
+    public void intersect() {
+        List<Range> greater = Lists.newArrayList(new Range("b", null));
+        List<Range> less = Lists.newArrayList(new Range(null, "k"));
+        List<Range> both = RowRanges.intersect(greater, less);
+        assertEquals(both.size(), 1);
+        assertEquals(both.get(0), new Range("b", "k"));
+
+        assertEquals(RowRanges.intersect(null, less), less);
+        assertEquals(RowRanges.intersect(Lists.newArrayList(new Range("a", "b")),
+                Lists.newArrayList(new Range("c", "d"))).size(), 0);
+    }
+
+    @Test
+    public void union() {
+        List<Range> merged = RowRanges.union(Lists.newArrayList(new Range("a", "f")),
+                Lists.newArrayList(new Range("d", "k"), new Range("x", "z")));
+        assertEquals(merged.size(), 2);
+        assertEquals(merged.get(0), new Range("a", "k"));
+        assertEquals(merged.get(1), new Range("x", "z"));
+        assertNull(RowRanges.union(null, merged));
+    }
+
+    @Test
+    public void notEqual() {
+        List<Range> ranges = RowRanges.notEqual(new Text("m"));
+        List<Range> restricted = RowRanges.intersect(ranges, Lists.newArrayList(new Range("m")));
+        assertEquals(restricted.size(), 0);
+        assertEquals(RowRanges.intersect(ranges, Lists.newArrayList(new Range("a", "z"))).size(), 2);
+    }
+}
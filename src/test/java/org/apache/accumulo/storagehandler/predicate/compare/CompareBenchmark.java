@@ -0,0 +1,92 @@
+package org.apache.accumulo.storagehandler.predicate.compare;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each CompareOp over each PrimitiveCompare, as the filter
+ * iterators call them once per row per predicate.
+ *
+ * Run with main() from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompareBenchmark {
+
+    private static final int NUM_VALUES = 1024;
+
+    @Param({"Equal", "NotEqual", "GreaterThan", "GreaterThanOrEqual", "LessThan", "LessThanOrEqual"})
+    public String op;
+
+    @Param({"int", "bigint", "double", "string"})
+    public String type;
+
+    private CompareOp compareOp;
+    private byte[][] values;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        values = new byte[NUM_VALUES][];
+        for (int i = 0; i < NUM_VALUES; i++) {
+            values[i] = encode(random.nextInt(1000));
+        }
+        PrimitiveCompare pCompare = newCompare();
+        pCompare.init(encode(500));
+        compareOp = Class.forName(CompareOp.class.getPackage().getName() + "." + op)
+                .asSubclass(CompareOp.class).newInstance();
+        compareOp.setPrimitiveCompare(pCompare);
+    }
+
+    private PrimitiveCompare newCompare() {
+        if(type.equals("int")) {
+            return new IntCompare();
+        } else if (type.equals("bigint")) {
+            return new LongCompare();
+        } else if (type.equals("double")) {
+            return new DoubleCompare();
+        }
+        return new StringCompare();
+    }
+
+    private byte[] encode(int val) {
+        if(type.equals("int")) {
+            return ByteBuffer.allocate(4).putInt(val).array();
+        } else if (type.equals("bigint")) {
+            return ByteBuffer.allocate(8).putLong(val).array();
+        } else if (type.equals("double")) {
+            return ByteBuffer.allocate(8).putDouble(val + 0.5d).array();
+        }
+        return ("value" + val).getBytes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_VALUES)
+    public int accept() {
+        int accepted = 0;
+        for (byte[] value : values) {
+            if(compareOp.accept(value))
+                accepted++;
+        }
+        return accepted;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CompareBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
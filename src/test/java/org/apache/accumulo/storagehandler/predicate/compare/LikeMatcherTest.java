@@ -0,0 +1,56 @@
+package org.apache.accumulo.storagehandler.predicate.compare;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class LikeMatcherTest {
+
+    @Test
+    public void kinds() {
+        assertEquals(new LikeMatcher("abc").getKind(), LikeMatcher.Kind.EXACT);
+        assertEquals(new LikeMatcher("abc%").getKind(), LikeMatcher.Kind.PREFIX);
+        assertEquals(new LikeMatcher("abc%%").getKind(), LikeMatcher.Kind.PREFIX);
+        assertEquals(new LikeMatcher("%abc").getKind(), LikeMatcher.Kind.SUFFIX);
+        assertEquals(new LikeMatcher("%abc%").getKind(), LikeMatcher.Kind.CONTAINS);
+        assertEquals(new LikeMatcher("a%b%c").getKind(), LikeMatcher.Kind.SEGMENTS);
+        assertEquals(new LikeMatcher("a_c").getKind(), LikeMatcher.Kind.REGEX);
+        assertEquals(new LikeMatcher("abc%").getLiteral(), "abc");
+        assertNull(new LikeMatcher("%abc").getLiteral());
+    }
+
+    @Test
+    public void matches() {
+        assertTrue(matches("abc%", "abcdef"));
+        assertTrue(matches("abc%", "abc"));
+        assertFalse(matches("abc%", "xabc"));
+        assertTrue(matches("%def", "abcdef"));
+        assertFalse(matches("%def", "defx"));
+        assertTrue(matches("%cd%", "abcdef"));
+        assertFalse(matches("%cd%", "abdc"));
+        assertTrue(matches("a%c%f", "abcdef"));
+        assertTrue(matches("a%c%c", "acc"));
+        assertFalse(matches("a%c%c", "ac"));
+        assertTrue(matches("%", ""));
+        assertTrue(matches("a_c", "abc"));
+        assertFalse(matches("a_c", "abbc"));
+        assertTrue(matches("%é%", "café noir"));
+    }
+
+    @Test
+    public void escapes() {
+        assertTrue(matches("100\\%", "100%"));
+        assertFalse(matches("100\\%", "1000"));
+        assertEquals(new LikeMatcher("100\\%").getKind(), LikeMatcher.Kind.EXACT);
+        assertTrue(matches("a\\_%", "a_b"));
+        assertFalse(matches("a\\_%", "ab"));
+    }
+
+    private boolean matches(String pattern, String value) {
+        try {
+            return new LikeMatcher(pattern).matches(value.getBytes("UTF-8"));
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.apache.accumulo.storagehandler.predicate.compare;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.testng.Assert.*;
+
+public class RawBytesTest {
+
+    @Test
+    public void readPrimitives() {
+        for (int val : new int[]{0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 123456789}) {
+            assertEquals(RawBytes.readInt(ByteBuffer.allocate(4).putInt(val).array()), val);
+        }
+        for (long val : new long[]{0l, -1l, Long.MAX_VALUE, Long.MIN_VALUE, 1234567890123l}) {
+            assertEquals(RawBytes.readLong(ByteBuffer.allocate(8).putLong(val).array()), val);
+        }
+        for (double val : new double[]{0d, -0.5d, 44.5d, Double.MAX_VALUE, Double.MIN_VALUE}) {
+            assertEquals(RawBytes.readDouble(ByteBuffer.allocate(8).putDouble(val).array()), val);
+        }
+    }
+
+    @Test
+    public void readAtOffset() {
+        byte[] bytes = ByteBuffer.allocate(13).put((byte) 7).putInt(-5).putLong(1234567890123l).array();
+        assertEquals(RawBytes.readInt(bytes, 1), -5);
+        assertEquals(RawBytes.readLong(bytes, 5), 1234567890123l);
+        bytes = ByteBuffer.allocate(10).putShort((short) 1).putDouble(-44.5d).array();
+        assertEquals(RawBytes.readDouble(bytes, 2), -44.5d);
+    }
+
+    @Test
+    public void shortValue() {
+        try {
+            RawBytes.readLong(new byte[4]);
+            fail("Should fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains(" occurred trying to build long value"));
+        }
+    }
+
+    @Test
+    public void compareUnsigned() throws Exception {
+        assertEquals(RawBytes.compareUnsigned("aaa".getBytes(), "aaa".getBytes()), 0);
+        assertTrue(RawBytes.compareUnsigned("aab".getBytes(), "aaa".getBytes()) > 0);
+        assertTrue(RawBytes.compareUnsigned("aa".getBytes(), "aaa".getBytes()) < 0);
+        //multi-byte UTF8 sorts after ascii, bytes must not be treated as signed.
+        assertTrue(RawBytes.compareUnsigned("é".getBytes("UTF-8"), "z".getBytes("UTF-8")) > 0);
+    }
+}
@@ -101,26 +101,32 @@ public class StringCompareTest {
 
     @Test
     public void like() {
-        Like likeObj = new Like(strCompare);
-        String condition = "%a";
-        assertTrue(likeObj.accept(condition.getBytes()));
-
-        condition = "%a%";
-        assertTrue(likeObj.accept(condition.getBytes()));
-
-        condition = "a%";
-        assertTrue(likeObj.accept(condition.getBytes()));
-
-        condition = "a%aa";
-        assertFalse(likeObj.accept(condition.getBytes()));
-
-        condition = "b%";
-        assertFalse(likeObj.accept(condition.getBytes()));
+        //the constant is the pattern, values are matched against it.
+        assertTrue(likeAccept("%a", "aaa"));
+        assertTrue(likeAccept("%a%", "aaa"));
+        assertTrue(likeAccept("a%", "aaa"));
+        assertTrue(likeAccept("a%aa", "aaa"));
+        assertTrue(likeAccept("a_a", "aaa"));
+        assertTrue(likeAccept("aaa", "aaa"));
+        assertFalse(likeAccept("b%", "aaa"));
+        assertFalse(likeAccept("%ab%", "aaa"));
+        assertFalse(likeAccept("%ba", "aaa"));
+        assertFalse(likeAccept("a_", "aaa"));
+    }
 
-        condition = "%ab%";
-        assertFalse(likeObj.accept(condition.getBytes()));
+    @Test
+    public void wildcardsOutsideLike() {
+        //a constant holding LIKE wildcards is compared as is by the other operators.
+        StringCompare compare = new StringCompare();
+        compare.init("a_[%".getBytes());
+        assertTrue(compare.isEqual("a_[%".getBytes()));
+        assertFalse(compare.isEqual("ab[c".getBytes()));
+        assertTrue(compare.greaterThan("b".getBytes()));
+    }
 
-        condition = "%ba";
-        assertFalse(likeObj.accept(condition.getBytes()));
+    private boolean likeAccept(String pattern, String value) {
+        StringCompare compare = new StringCompare();
+        compare.init(pattern.getBytes());
+        return new Like(compare).accept(value.getBytes());
     }
 }